@@ -0,0 +1,63 @@
+package io.github.haiphamcoder.xss.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.policy.JsoupCleanerService;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+
+/**
+ * Compares cleaning a batch of values one by one with cleaning it through
+ * {@link CleanerService#cleanAll(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CleanAllBenchmark {
+
+    @Param({ "owasp", "jsoup" })
+    private String engine;
+
+    private CleanerService cleaner;
+
+    private String[] values;
+
+    @Setup
+    public void setUp() {
+        cleaner = "jsoup".equals(engine) ? new JsoupCleanerService() : new OwaspCleanerService();
+        values = new String[1_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? "<b>item " + i + "</b> &amp; more" : "<i onclick=x()>note</i> " + i;
+        }
+    }
+
+    @Benchmark
+    public String[] cleanEach() {
+        String[] cleaned = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            cleaned[i] = cleaner.clean(values[i]);
+        }
+        return cleaned;
+    }
+
+    @Benchmark
+    public String[] cleanAll() {
+        return cleaner.cleanAll(values);
+    }
+
+}
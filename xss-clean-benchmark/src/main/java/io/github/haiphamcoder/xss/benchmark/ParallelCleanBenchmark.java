@@ -0,0 +1,86 @@
+package io.github.haiphamcoder.xss.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.owasp.html.Sanitizers;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.ParallelCleanerService;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+
+/**
+ * Compares the sequential walk of a list of beans with the parallel walk of
+ * {@link ParallelCleanerService} for growing list sizes, to find the size at
+ * which splitting the list pays off. The values hold markup allowed by the
+ * policy, so they are parsed on every run but never changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelCleanBenchmark {
+
+    @Param({ "64", "256", "1024", "4096", "16384", "100000" })
+    public int size;
+
+    private CleanerService sequential;
+
+    private ParallelCleanerService parallel;
+
+    private List<Comment> comments;
+
+    @Setup
+    public void setUp() {
+        sequential = new OwaspCleanerService(Sanitizers.FORMATTING);
+        parallel = new ParallelCleanerService(sequential, 2, 0);
+        comments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Comment comment = new Comment();
+            comment.author = "user" + i;
+            comment.text = "A <b>bold</b> comment number " + i + " with <i>some</i> text";
+            comments.add(comment);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallel.close();
+    }
+
+    @Benchmark
+    public List<Comment> sequential() {
+        sequential.cleanObject(comments);
+        return comments;
+    }
+
+    @Benchmark
+    public List<Comment> parallel() {
+        parallel.cleanObject(comments);
+        return comments;
+    }
+
+    /**
+     * A bean of a request body.
+     */
+    public static class Comment {
+        String author;
+        String text;
+    }
+
+}
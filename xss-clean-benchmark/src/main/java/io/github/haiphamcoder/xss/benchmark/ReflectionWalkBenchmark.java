@@ -0,0 +1,221 @@
+package io.github.haiphamcoder.xss.benchmark;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.haiphamcoder.xss.ReflectionCleaner;
+
+/**
+ * Compares the walk of {@link ReflectionCleaner}, which accesses values
+ * through method handles built per class, with a walk of the same shape that
+ * accesses them through {@link Field} and {@link Method} objects cached per class, and
+ * with walks of beans holding only Strings, which need no set of visited objects. The
+ * sanitizer returns its input, so the cost of the walk dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionWalkBenchmark {
+
+    private static final UnaryOperator<String> SANITIZER = UnaryOperator.identity();
+
+    private Order order;
+
+    private FlatLine[] flatLines;
+
+    @Setup
+    public void setUp() {
+        order = new Order();
+        flatLines = new FlatLine[20];
+        for (int i = 0; i < 20; i++) {
+            Line line = new Line();
+            line.setSku("SKU-" + i);
+            line.description = "Line item " + i;
+            line.note = "note " + i;
+            order.lines.add(line);
+            FlatLine flatLine = new FlatLine();
+            flatLine.sku = "SKU-" + i;
+            flatLine.description = "Line item " + i;
+            flatLine.note = "note " + i;
+            flatLines[i] = flatLine;
+        }
+    }
+
+    @Benchmark
+    public Order methodHandleAccessors() {
+        ReflectionCleaner.clean(order, SANITIZER);
+        return order;
+    }
+
+    @Benchmark
+    public FlatLine[] methodHandleAccessorsFlat() {
+        for (FlatLine line : flatLines) {
+            ReflectionCleaner.clean(line, SANITIZER);
+        }
+        return flatLines;
+    }
+
+    @Benchmark
+    public Order coreReflection() {
+        ReflectiveWalker.clean(order, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return order;
+    }
+
+    /**
+     * A walker reading and writing values with {@code Field.get/set} and
+     * {@code Method.invoke}, with the metadata of each class cached.
+     */
+    private static final class ReflectiveWalker {
+
+        private static final ClassValue<Object[][]> SLOTS = new ClassValue<>() {
+            @Override
+            protected Object[][] computeValue(Class<?> type) {
+                List<Object[]> slots = new ArrayList<>();
+                try {
+                    Map<String, PropertyDescriptor> properties = new HashMap<>();
+                    for (PropertyDescriptor pd : Introspector.getBeanInfo(type, Object.class)
+                            .getPropertyDescriptors()) {
+                        if (pd.getReadMethod() != null && pd.getWriteMethod() != null) {
+                            properties.put(pd.getName(), pd);
+                        }
+                    }
+                    for (Field field : type.getDeclaredFields()) {
+                        if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                            continue;
+                        }
+                        PropertyDescriptor pd = properties.get(field.getName());
+                        if (pd != null) {
+                            slots.add(new Object[] { pd.getReadMethod(), pd.getWriteMethod() });
+                        } else {
+                            field.setAccessible(true);
+                            slots.add(new Object[] { field,
+                                    Modifier.isFinal(field.getModifiers()) ? null : field });
+                        }
+                    }
+                } catch (IntrospectionException e) {
+                    throw new IllegalStateException(e);
+                }
+                return slots.toArray(new Object[0][]);
+            }
+        };
+
+        static void clean(Object object, Set<Object> visited) {
+            if (object == null || !visited.add(object)) {
+                return;
+            }
+            if (object instanceof Collection<?> collection) {
+                Object[] elements = collection.toArray();
+                for (int i = 0; i < elements.length; i++) {
+                    if (elements[i] instanceof String string) {
+                        elements[i] = SANITIZER.apply(string);
+                    } else {
+                        clean(elements[i], visited);
+                    }
+                }
+                @SuppressWarnings("unchecked")
+                Collection<Object> target = (Collection<Object>) collection;
+                target.clear();
+                target.addAll(Arrays.asList(elements));
+                return;
+            }
+            if (object.getClass().getName().startsWith("java.")) {
+                return;
+            }
+            try {
+                for (Object[] slot : SLOTS.get(object.getClass())) {
+                    Object value = slot[0] instanceof Method getter ? getter.invoke(object)
+                            : ((Field) slot[0]).get(object);
+                    if (value instanceof String string) {
+                        if (slot[1] instanceof Method setter) {
+                            setter.invoke(object, SANITIZER.apply(string));
+                        } else if (slot[1] instanceof Field field) {
+                            field.set(object, SANITIZER.apply(string));
+                        }
+                    } else {
+                        clean(value, visited);
+                    }
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public static class Order {
+        private String id = "order-1";
+        private String customer = "Jane Doe";
+        private String address = "1 Main Street";
+        private String comment = "Leave at the door";
+        private final List<Line> lines = new ArrayList<>();
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+    }
+
+    public static class Line {
+        private String sku;
+        private String description;
+        private String note;
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+    }
+
+    /**
+     * A line holding only Strings, so that its walk needs no set of visited
+     * objects.
+     */
+    public static final class FlatLine {
+        String sku;
+        String description;
+        String note;
+    }
+
+}
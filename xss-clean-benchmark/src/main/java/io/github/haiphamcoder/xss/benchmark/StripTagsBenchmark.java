@@ -0,0 +1,62 @@
+package io.github.haiphamcoder.xss.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import io.github.haiphamcoder.xss.policy.StripTagsCleanerService;
+
+/**
+ * Compares the strip-tags engine with the OWASP engine using the empty policy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StripTagsBenchmark {
+
+    @Param({ "plain", "entities", "markup", "attack" })
+    private String input;
+
+    private String value;
+
+    private final CleanerService owasp = new OwaspCleanerService();
+
+    private final CleanerService stripTags = new StripTagsCleanerService();
+
+    @Setup
+    public void setUp() {
+        switch (input) {
+            case "plain" -> value = "The quick brown fox jumps over the lazy dog, again and again.";
+            case "entities" -> value = "Fish &amp; chips &lt;3 \"quoted\" user@example.com a+b=c";
+            case "markup" -> value = "<p>Hello <b class=\"greeting\">world</b>, see <a href=\"/docs\">the docs</a>"
+                    + "<br/><!-- note --></p>";
+            default -> value = "<img src=x onerror=alert(1)><svg/onload=alert(1)>\"><i>click</i>";
+        }
+    }
+
+    @Benchmark
+    public String owasp() {
+        return owasp.clean(value);
+    }
+
+    @Benchmark
+    public String stripTags() {
+        return stripTags.clean(value);
+    }
+
+}
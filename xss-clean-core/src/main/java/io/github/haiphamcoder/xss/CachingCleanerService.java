@@ -0,0 +1,496 @@
+package io.github.haiphamcoder.xss;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The CachingCleanerService class decorates another CleanerService and
+ * memoizes the results of {@link #clean(String)} for recurring values such as
+ * headers, locale codes and enum-like parameters.
+ * <p>
+ * The cache is bounded by weight, where the weight of an entry is the number
+ * of characters it holds. Values that pass through cleaning unchanged are
+ * only held once, as the key, and are returned as the caller's own instance.
+ * Eviction follows a segmented LRU policy: new entries
+ * start in a probation segment and are promoted to a protected segment on
+ * their second hit, so a burst of one-off values cannot flush the values that
+ * are actually reused. The cache is split into independently locked stripes
+ * to keep contention low under concurrent access.
+ */
+public class CachingCleanerService implements CleanerService {
+
+    private static final int STRIPES = 16;
+
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final CleanerService delegate;
+
+    private final int maxInputLength;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a new CachingCleanerService.
+     *
+     * @param delegate       The cleaner whose results are cached.
+     * @param maximumWeight  The maximum number of characters held by the cache,
+     *                       counting both inputs and cleaned values.
+     * @param maxInputLength The maximum length of an input to be cached; longer
+     *                       inputs are passed straight to the delegate.
+     */
+    public CachingCleanerService(CleanerService delegate, long maximumWeight, int maxInputLength) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        if (maximumWeight < 0 || maxInputLength < 0) {
+            throw new IllegalArgumentException("maximumWeight and maxInputLength must not be negative");
+        }
+        this.delegate = delegate;
+        this.maxInputLength = maxInputLength;
+        long stripeWeight = maximumWeight / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeWeight);
+        }
+    }
+
+    /**
+     * Cleans a raw string input, serving recurring values from the cache.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned string.
+     */
+    @Override
+    public String clean(String raw) {
+        if (raw == null || raw.length() > maxInputLength) {
+            return delegate.clean(raw);
+        }
+        return cleanTracked(raw).getValue();
+    }
+
+    /**
+     * Cleans a raw string input and reports whether it changed, serving
+     * recurring values from the cache.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned value and whether it differs from the input.
+     */
+    @Override
+    public CleanResult cleanTracked(String raw) {
+        if (raw == null || raw.length() > maxInputLength) {
+            return delegate.cleanTracked(raw);
+        }
+
+        Stripe stripe = stripeFor(raw);
+        CleanResult cached = stripe.get(raw);
+        if (cached != null) {
+            hits.increment();
+            return cached.isChanged() ? cached : CleanResult.unchanged(raw);
+        }
+
+        misses.increment();
+        CleanResult result = delegate.cleanTracked(raw);
+        if (result.getValue() != null) {
+            evictions.add(stripe.put(raw, result));
+        }
+        return result;
+    }
+
+    /**
+     * Cleans a batch of raw string inputs, serving recurring values from the
+     * cache and passing the remaining values to the delegate as one batch.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new array holding the cleaned strings in the same order.
+     */
+    @Override
+    public String[] cleanAll(String[] raws) {
+        String[] cleaned = new String[raws.length];
+        int[] missed = new int[raws.length];
+        int missCount = 0;
+        for (int i = 0; i < raws.length; i++) {
+            String raw = raws[i];
+            CleanResult cached = isCacheable(raw) ? stripeFor(raw).get(raw) : null;
+            if (cached != null) {
+                hits.increment();
+                cleaned[i] = cached.isChanged() ? cached.getValue() : raw;
+            } else {
+                missed[missCount++] = i;
+            }
+        }
+        if (missCount == 0) {
+            return cleaned;
+        }
+
+        String[] batch = new String[missCount];
+        for (int j = 0; j < missCount; j++) {
+            batch[j] = raws[missed[j]];
+        }
+        String[] results = delegate.cleanAll(batch);
+        for (int j = 0; j < missCount; j++) {
+            String raw = batch[j];
+            String value = results[j];
+            cleaned[missed[j]] = value;
+            if (isCacheable(raw) && value != null) {
+                misses.increment();
+                boolean changed = value != raw && !value.equals(raw);
+                evictions.add(stripeFor(raw).put(raw, changed ? CleanResult.changed(value) : CleanResult.unchanged(raw)));
+            }
+        }
+        return cleaned;
+    }
+
+    /**
+     * Cleans a batch of raw string inputs and reports for each of them whether
+     * it changed, serving recurring values from the cache and passing the
+     * remaining values to the delegate as one batch.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new array holding the results in the same order.
+     */
+    @Override
+    public CleanResult[] cleanAllTracked(String[] raws) {
+        CleanResult[] results = new CleanResult[raws.length];
+        int[] missed = new int[raws.length];
+        int missCount = 0;
+        for (int i = 0; i < raws.length; i++) {
+            String raw = raws[i];
+            CleanResult cached = isCacheable(raw) ? stripeFor(raw).get(raw) : null;
+            if (cached != null) {
+                hits.increment();
+                results[i] = cached.isChanged() ? cached : CleanResult.unchanged(raw);
+            } else {
+                missed[missCount++] = i;
+            }
+        }
+        if (missCount == 0) {
+            return results;
+        }
+
+        String[] batch = new String[missCount];
+        for (int j = 0; j < missCount; j++) {
+            batch[j] = raws[missed[j]];
+        }
+        CleanResult[] computed = delegate.cleanAllTracked(batch);
+        for (int j = 0; j < missCount; j++) {
+            String raw = batch[j];
+            CleanResult result = computed[j];
+            results[missed[j]] = result;
+            if (isCacheable(raw) && result.getValue() != null) {
+                misses.increment();
+                evictions.add(stripeFor(raw).put(raw, result));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Checks if the given input would pass through cleaning unchanged, using
+     * a cached result when there is one and the delegate otherwise.
+     *
+     * @param input The input to check.
+     * @return True if the input is safe as-is, false if cleaning would change
+     *         it.
+     */
+    @Override
+    public boolean isSafe(CharSequence input) {
+        if (input == null || input.length() > maxInputLength) {
+            return delegate.isSafe(input);
+        }
+        String raw = input.toString();
+        CleanResult cached = stripeFor(raw).get(raw);
+        if (cached != null) {
+            hits.increment();
+            return !cached.isChanged();
+        }
+        misses.increment();
+        return delegate.isSafe(raw);
+    }
+
+    /**
+     * Cleans a character stream with the delegate. Streamed documents are
+     * never cached.
+     *
+     * @param input  The raw character stream to be cleaned.
+     * @param output The destination of the cleaned content.
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    @Override
+    public void clean(Reader input, Appendable output) throws IOException {
+        delegate.clean(input, output);
+    }
+
+    /**
+     * Cleans an object by applying the cached cleaner to its fields.
+     *
+     * @param object The object to be cleaned.
+     */
+    @Override
+    public void cleanObject(Object object) {
+        ReflectionCleaner.clean(object, this);
+    }
+
+    /**
+     * Gets the cleaner whose results are cached.
+     *
+     * @return The delegate cleaner.
+     */
+    public CleanerService getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Gets a snapshot of the cache statistics.
+     *
+     * @return The cache statistics.
+     */
+    public CacheStats getStats() {
+        long weight = 0;
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                weight += stripe.probationWeight + stripe.protectedWeight;
+                size += stripe.probation.size() + stripe.protectedEntries.size();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, weight);
+    }
+
+    /**
+     * Removes all entries from the cache. Statistics are kept.
+     */
+    public void invalidateAll() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    /**
+     * Checks if the given input is short enough to be cached.
+     *
+     * @param raw The input.
+     * @return True if results for the input are cached.
+     */
+    private boolean isCacheable(String raw) {
+        return raw != null && raw.length() <= maxInputLength;
+    }
+
+    /**
+     * Selects the stripe responsible for the given input.
+     *
+     * @param raw The input.
+     * @return The stripe.
+     */
+    private Stripe stripeFor(String raw) {
+        int h = raw.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    /**
+     * Computes the weight of a cache entry. An unchanged value shares the
+     * characters of its key.
+     *
+     * @param raw    The input.
+     * @param result The cleaning result.
+     * @return The weight of the entry.
+     */
+    private static long weigh(String raw, CleanResult result) {
+        return result.isChanged() ? (long) raw.length() + result.getValue().length() : raw.length();
+    }
+
+    /**
+     * One independently locked part of the cache, holding a probation and a
+     * protected segment in LRU order.
+     */
+    private static final class Stripe {
+
+        private final long capacity;
+
+        private final long protectedCapacity;
+
+        private final LinkedHashMap<String, CleanResult> probation = new LinkedHashMap<>();
+
+        private final LinkedHashMap<String, CleanResult> protectedEntries = new LinkedHashMap<>();
+
+        private long probationWeight;
+
+        private long protectedWeight;
+
+        Stripe(long capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = capacity * PROTECTED_PERCENT / 100;
+        }
+
+        /**
+         * Looks up an entry, promoting it to the protected segment on a hit in
+         * the probation segment.
+         *
+         * @param raw The input.
+         * @return The cached result, or null if absent.
+         */
+        synchronized CleanResult get(String raw) {
+            CleanResult cleaned = protectedEntries.remove(raw);
+            if (cleaned != null) {
+                protectedEntries.put(raw, cleaned);
+                return cleaned;
+            }
+
+            cleaned = probation.remove(raw);
+            if (cleaned == null) {
+                return null;
+            }
+            long weight = weigh(raw, cleaned);
+            probationWeight -= weight;
+            protectedEntries.put(raw, cleaned);
+            protectedWeight += weight;
+
+            // Demote the least recently used protected entries back to probation
+            Iterator<Map.Entry<String, CleanResult>> it = protectedEntries.entrySet().iterator();
+            while (protectedWeight > protectedCapacity && it.hasNext()) {
+                Map.Entry<String, CleanResult> eldest = it.next();
+                it.remove();
+                long eldestWeight = weigh(eldest.getKey(), eldest.getValue());
+                protectedWeight -= eldestWeight;
+                probation.put(eldest.getKey(), eldest.getValue());
+                probationWeight += eldestWeight;
+            }
+            return cleaned;
+        }
+
+        /**
+         * Adds an entry to the probation segment and evicts entries until the
+         * stripe fits its capacity again.
+         *
+         * @param raw     The input.
+         * @param cleaned The cleaning result.
+         * @return The number of evicted entries.
+         */
+        synchronized int put(String raw, CleanResult cleaned) {
+            long weight = weigh(raw, cleaned);
+            if (weight > capacity || probation.containsKey(raw) || protectedEntries.containsKey(raw)) {
+                return 0;
+            }
+            probation.put(raw, cleaned);
+            probationWeight += weight;
+
+            int evicted = 0;
+            while (probationWeight + protectedWeight > capacity) {
+                LinkedHashMap<String, CleanResult> victims = probation.isEmpty() ? protectedEntries : probation;
+                Iterator<Map.Entry<String, CleanResult>> it = victims.entrySet().iterator();
+                Map.Entry<String, CleanResult> eldest = it.next();
+                it.remove();
+                long eldestWeight = weigh(eldest.getKey(), eldest.getValue());
+                if (victims == probation) {
+                    probationWeight -= eldestWeight;
+                } else {
+                    protectedWeight -= eldestWeight;
+                }
+                evicted++;
+            }
+            return evicted;
+        }
+
+        synchronized void clear() {
+            probation.clear();
+            protectedEntries.clear();
+            probationWeight = 0;
+            protectedWeight = 0;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the cache statistics.
+     */
+    public static final class CacheStats {
+
+        private final long hitCount;
+
+        private final long missCount;
+
+        private final long evictionCount;
+
+        private final long size;
+
+        private final long weight;
+
+        CacheStats(long hitCount, long missCount, long evictionCount, long size, long weight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        /**
+         * Gets the number of lookups served from the cache.
+         *
+         * @return The hit count.
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * Gets the number of cacheable lookups that had to call the delegate.
+         *
+         * @return The miss count.
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * Gets the number of entries evicted to stay within the maximum weight.
+         *
+         * @return The eviction count.
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * Gets the number of entries currently cached.
+         *
+         * @return The number of entries.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the number of characters currently cached.
+         *
+         * @return The current weight.
+         */
+        public long getWeight() {
+            return weight;
+        }
+
+        /**
+         * Gets the ratio of hits to cacheable lookups.
+         *
+         * @return The hit rate, or 1.0 if there were no lookups yet.
+         */
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CacheStats{hitCount=%d, missCount=%d, evictionCount=%d, size=%d, weight=%d}",
+                    hitCount, missCount, evictionCount, size, weight);
+        }
+    }
+
+}
@@ -0,0 +1,483 @@
+package io.github.haiphamcoder.xss;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+
+/**
+ * The CleanPlan class describes how {@link ReflectionCleaner} walks the
+ * instances of a bean class. A plan is computed once per class and cached in
+ * a {@link ClassValue}, so the walk does not introspect the class again.
+ * <p>
+ * A plan visits the fields declared by its class, then delegates to the plan
+ * of the superclass. Fields are read and written directly, even when they are
+ * also exposed through a getter and setter pair, as a getter may return a
+ * copy whose cleaning would not reach the field. Bean properties are only
+ * visited for classes whose fields cannot be accessed, and then only when no
+ * accessible field of their name is visited instead, so each value has exactly
+ * one write path and is sanitized once. Final fields are read but never
+ * written, and a value is only written back when cleaning replaced it. Members
+ * whose declared type cannot hold a String, as decided by
+ * {@link StringReachability}, are not visited.
+ * <p>
+ * Members annotated with {@link XssIgnore} are not visited, nor are the
+ * instances of a class annotated with it. Members annotated with
+ * {@link XssPolicy} are visited through a visitor applying the named policy;
+ * the policy of the class itself is applied by {@link ReflectionCleaner}.
+ * <p>
+ * The members are visited through method handles obtained with a private
+ * lookup, so private fields are accessed without
+ * {@link java.lang.reflect.AccessibleObject#setAccessible}. Classes of
+ * packages that are not open to this library are skipped.
+ */
+final class CleanPlan {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<CleanPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected CleanPlan computeValue(Class<?> type) {
+            return new CleanPlan(type);
+        }
+    };
+
+    private final CleanPlan parent;
+
+    private final Slot[] slots;
+
+    private final boolean flat;
+
+    private final boolean ignored;
+
+    private final String policy;
+
+    /**
+     * Constructs the plan for the given class.
+     *
+     * @param type The bean class.
+     */
+    CleanPlan(Class<?> type) {
+        Class<?> superclass = type.getSuperclass();
+        if (superclass == null || superclass == Object.class || ReflectionCleaner.isJavaType(superclass)) {
+            this.parent = null;
+        } else {
+            this.parent = of(superclass);
+        }
+
+        this.ignored = type.isAnnotationPresent(XssIgnore.class);
+        XssPolicy typePolicy = type.getAnnotation(XssPolicy.class);
+        this.policy = typePolicy == null ? null : typePolicy.value();
+
+        MethodHandles.Lookup lookup = lookupIn(type);
+        Map<String, PropertyDescriptor> properties = ignored ? Map.of() : properties(type);
+        List<Member> targets = new ArrayList<>();
+        Map<Member, String> policies = new HashMap<>();
+        if (lookup != null && !ignored) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())
+                        || !StringReachability.canHold(field.getGenericType())) {
+                    continue;
+                }
+                // The getter of the field only contributes its annotations
+                PropertyDescriptor property = properties.get(field.getName());
+                Method getter = property != null && property.getPropertyType() == field.getType()
+                        ? property.getReadMethod()
+                        : null;
+                if (isAnnotated(XssIgnore.class, field, getter)) {
+                    continue;
+                }
+                Member target = new Member(field, null, null,
+                        !Modifier.isFinal(field.getModifiers()) && isReplaceable(field.getType()));
+                targets.add(target);
+                XssPolicy memberPolicy = annotation(XssPolicy.class, field, getter);
+                if (memberPolicy != null) {
+                    policies.put(target, memberPolicy.value());
+                }
+            }
+        }
+        // Properties are views of the fields, and are only needed to reach
+        // state held by classes that cannot be accessed
+        if (!ignored && isClosed(type)) {
+            Set<String> fieldNames = accessibleFieldNames(type);
+            for (PropertyDescriptor property : properties.values()) {
+                Method getter = property.getReadMethod();
+                if (getter.getDeclaringClass() == type
+                        && StringReachability.canHold(getter.getGenericReturnType())
+                        && !fieldNames.contains(property.getName())
+                        && !getter.isAnnotationPresent(XssIgnore.class)) {
+                    Member target = propertyTarget(property);
+                    targets.add(target);
+                    XssPolicy memberPolicy = getter.getAnnotation(XssPolicy.class);
+                    if (memberPolicy != null) {
+                        policies.put(target, memberPolicy.value());
+                    }
+                }
+            }
+        }
+
+        List<Slot> list = new ArrayList<>();
+        for (Member target : targets) {
+            Slot slot = slot(target, policies.get(target));
+            if (slot != null) {
+                list.add(slot);
+            }
+        }
+        this.slots = list.toArray(new Slot[0]);
+        this.flat = isFlat(type);
+    }
+
+    /**
+     * Gets the plan for the given class, computing it on first use.
+     *
+     * @param type The bean class.
+     * @return The plan.
+     */
+    static CleanPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * Visits the members of the given bean.
+     *
+     * @param bean    The bean, an instance of the class of the plan.
+     * @param visitor The visitor sanitizing String values and walking other
+     *                values.
+     */
+    void clean(Object bean, Visitor visitor) {
+        if (ignored) {
+            return;
+        }
+        for (CleanPlan plan = this; plan != null; plan = plan.parent) {
+            for (Slot slot : plan.slots) {
+                slot.visit(bean, visitor);
+            }
+        }
+    }
+
+    /**
+     * Checks if the class of the plan is annotated with {@link XssIgnore}, in
+     * which case its instances are not walked.
+     *
+     * @return True if the instances of the class are not cleaned.
+     */
+    boolean isIgnored() {
+        return ignored;
+    }
+
+    /**
+     * Gets the policy named by the {@link XssPolicy} annotation of the class
+     * of the plan.
+     *
+     * @return The name of the policy, or null to keep the policy of the walk.
+     */
+    String getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Checks if the members walked for the class of the plan only hold
+     * Strings, so that the walk of an instance reaches no other object. A
+     * String is replaced rather than modified, so such an instance needs no
+     * record of visited objects when it is cleaned on its own.
+     *
+     * @return True if the walk of an instance only meets Strings.
+     */
+    boolean isFlat() {
+        return flat;
+    }
+
+    /**
+     * Checks if the fields of the given class and its superclasses that may
+     * hold a String are all declared as String.
+     *
+     * @param type The class.
+     * @return True if the walk of an instance only meets Strings.
+     */
+    private static boolean isFlat(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class && !ReflectionCleaner.isJavaType(c);
+                c = c.getSuperclass()) {
+            if (isClosed(c)) {
+                // Bean properties may expose any object
+                return false;
+            }
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && field.getType() != String.class
+                        && StringReachability.canHold(field.getGenericType())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the given member is annotated with the given annotation, on
+     * its field or on its getter.
+     *
+     * @param annotationType The annotation.
+     * @param field          The field.
+     * @param getter         The getter of the property of the field, or null.
+     * @return True if the annotation is present.
+     */
+    private static boolean isAnnotated(Class<? extends Annotation> annotationType, Field field, Method getter) {
+        return annotation(annotationType, field, getter) != null;
+    }
+
+    /**
+     * Gets the given annotation of a member, preferring the one of its field.
+     *
+     * @param <A>            The type of the annotation.
+     * @param annotationType The annotation.
+     * @param field          The field.
+     * @param getter         The getter of the property of the field, or null.
+     * @return The annotation, or null if it is absent.
+     */
+    private static <A extends Annotation> A annotation(Class<A> annotationType, Field field, Method getter) {
+        A annotation = field.getAnnotation(annotationType);
+        return annotation == null && getter != null ? getter.getAnnotation(annotationType) : annotation;
+    }
+
+    /**
+     * Collects the properties with a getter and a setter.
+     *
+     * @param type The bean class.
+     * @return The properties by name.
+     */
+    private static Map<String, PropertyDescriptor> properties(Class<?> type) {
+        Map<String, PropertyDescriptor> properties = new LinkedHashMap<>();
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                if (pd.getReadMethod() != null && pd.getWriteMethod() != null && pd.getPropertyType() != null) {
+                    properties.put(pd.getName(), pd);
+                }
+            }
+        } catch (IntrospectionException ignore) {
+            // Walk the fields only
+        }
+        return properties;
+    }
+
+    /**
+     * Collects the names of the fields declared by the given class and its
+     * superclasses that can be accessed with a private lookup, and so are
+     * visited directly.
+     *
+     * @param type The bean class.
+     * @return The field names.
+     */
+    private static Set<String> accessibleFieldNames(Class<?> type) {
+        Set<String> names = new HashSet<>();
+        for (Class<?> c = type; c != null && c != Object.class && !ReflectionCleaner.isJavaType(c);
+                c = c.getSuperclass()) {
+            if (lookupIn(c) == null) {
+                continue;
+            }
+            for (Field field : c.getDeclaredFields()) {
+                names.add(field.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Checks if some class of the hierarchy of the given class cannot be
+     * accessed with a private lookup.
+     *
+     * @param type The bean class.
+     * @return True if the fields of some class cannot be read.
+     */
+    private static boolean isClosed(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class && !ReflectionCleaner.isJavaType(c);
+                c = c.getSuperclass()) {
+            if (lookupIn(c) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Member propertyTarget(PropertyDescriptor property) {
+        return new Member(null, property.getReadMethod(), property.getWriteMethod(),
+                isReplaceable(property.getPropertyType()));
+    }
+
+    /**
+     * Checks if the value of a slot of the given type may be replaced: a
+     * String by its sanitized value, or a JDK collection or map by a rebuilt
+     * copy when it cannot be modified in place.
+     *
+     * @param type The declared type of the slot.
+     * @return True if the slot is written back.
+     */
+    private static boolean isReplaceable(Class<?> type) {
+        return type.isAssignableFrom(String.class) || ReflectionCleaner.isJavaType(type)
+                && (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type));
+    }
+
+    /**
+     * Creates a slot visiting the given member through method handles.
+     *
+     * @param target The member.
+     * @param policy The policy of the member, or null.
+     * @return The slot, or null if the member cannot be accessed.
+     */
+    private static Slot slot(Member target, String policy) {
+        try {
+            if (target.field() != null) {
+                MethodHandles.Lookup lookup = lookupIn(target.field().getDeclaringClass());
+                if (lookup == null) {
+                    return null;
+                }
+                return new Slot(lookup.unreflectGetter(target.field()).asType(GETTER_TYPE),
+                        target.writable() ? lookup.unreflectSetter(target.field()).asType(SETTER_TYPE) : null,
+                        policy);
+            }
+            // The accessors of a class that cannot be opened are reached
+            // through public access
+            MethodHandles.Lookup getterLookup = lookupOrPublic(target.getter().getDeclaringClass());
+            MethodHandles.Lookup setterLookup = lookupOrPublic(target.setter().getDeclaringClass());
+            return new Slot(getterLookup.unreflect(target.getter()).asType(GETTER_TYPE),
+                    target.writable() ? setterLookup.unreflect(target.setter()).asType(SETTER_TYPE) : null,
+                    policy);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets a lookup with private access to the given class.
+     *
+     * @param type The class.
+     * @return The lookup, or null if the package of the class is not open to
+     *         this library.
+     */
+    private static MethodHandles.Lookup lookupIn(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, LOOKUP);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets a lookup with private access to the given class, or with the
+     * access of this library if the class cannot be opened.
+     *
+     * @param type The class.
+     * @return The lookup.
+     */
+    private static MethodHandles.Lookup lookupOrPublic(Class<?> type) {
+        MethodHandles.Lookup lookup = lookupIn(type);
+        return lookup != null ? lookup : LOOKUP;
+    }
+
+    /**
+     * A member of a bean: either a field, or a getter with an optional setter.
+     *
+     * @param field    The field, or null for a property.
+     * @param getter   The getter of a property.
+     * @param setter   The setter of a property, or null.
+     * @param writable Whether the value is passed to the sanitizer and the
+     *                 result written back.
+     */
+    private record Member(Field field, Method getter, Method setter, boolean writable) {
+    }
+
+    /**
+     * Visits the values of a bean: {@link Function#apply} cleans the value of
+     * a writable member and returns the value to write back, which is a
+     * sanitized String, a rebuilt collection or map, or the value itself;
+     * {@link Consumer#accept} walks the value of a read-only member.
+     */
+    interface Visitor extends Function<Object, Object>, Consumer<Object> {
+
+        /**
+         * Gets the visitor applying the given policy to the values of a
+         * member.
+         *
+         * @param policy The name of the policy.
+         * @return The visitor.
+         */
+        default Visitor withPolicy(String policy) {
+            return this;
+        }
+    }
+
+    /**
+     * A member of a bean visited through method handles.
+     */
+    private static final class Slot {
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        private final String policy;
+
+        /**
+         * Constructs a slot.
+         *
+         * @param getter The getter, of type (Object)Object.
+         * @param setter The setter, of type (Object,Object)void, or null if
+         *               the slot is read-only.
+         * @param policy The policy of the slot, or null.
+         */
+        Slot(MethodHandle getter, MethodHandle setter, String policy) {
+            this.getter = getter;
+            this.setter = setter;
+            this.policy = policy;
+        }
+
+        /**
+         * Visits the value of the slot. A slot that fails is skipped.
+         *
+         * @param bean    The bean.
+         * @param visitor The visitor.
+         */
+        void visit(Object bean, Visitor visitor) {
+            if (policy != null) {
+                visitor = visitor.withPolicy(policy);
+            }
+            try {
+                Object value = (Object) getter.invokeExact(bean);
+                if (setter != null) {
+                    Object cleaned = visitor.apply(value);
+                    if (cleaned != value) {
+                        setter.invokeExact(bean, cleaned);
+                    }
+                } else {
+                    visitor.accept(value);
+                }
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable ignore) {
+                // Skip the slot
+            }
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package io.github.haiphamcoder.xss;
+
+/**
+ * The CleanResult class holds the outcome of cleaning a string together with
+ * whether cleaning changed it. An unchanged result holds the original input
+ * instance, so callers can rely on {@link #isChanged()} instead of comparing
+ * strings.
+ */
+public final class CleanResult {
+
+    private static final CleanResult NULL = new CleanResult(null, false);
+
+    private final String value;
+
+    private final boolean changed;
+
+    private CleanResult(String value, boolean changed) {
+        this.value = value;
+        this.changed = changed;
+    }
+
+    /**
+     * Creates a result for an input that cleaning left as it was.
+     *
+     * @param raw The original input.
+     * @return The result holding the original input.
+     */
+    public static CleanResult unchanged(String raw) {
+        return raw == null ? NULL : new CleanResult(raw, false);
+    }
+
+    /**
+     * Creates a result for an input that cleaning modified.
+     *
+     * @param cleaned The cleaned value.
+     * @return The result holding the cleaned value.
+     */
+    public static CleanResult changed(String cleaned) {
+        return new CleanResult(cleaned, true);
+    }
+
+    /**
+     * Gets the cleaned value, which is the original input instance if
+     * cleaning did not change it.
+     *
+     * @return The cleaned value.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Checks if cleaning changed the input.
+     *
+     * @return True if the input was changed, false otherwise.
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CleanResult{value='%s', changed=%s}", value, changed);
+    }
+
+}
@@ -0,0 +1,68 @@
+package io.github.haiphamcoder.xss;
+
+/**
+ * The Cleaner interface cleans the instances of one class without reflection.
+ * Implementations are generated for classes annotated with
+ * {@link io.github.haiphamcoder.xss.annotation.XssSanitized} by the
+ * {@code xss-clean-processor} annotation processor, and are looked up through
+ * {@link CleanerRegistry}.
+ *
+ * @param <T> The type of the cleaned objects.
+ */
+public interface Cleaner<T> {
+
+    /**
+     * Gets the class whose instances this cleaner cleans. Subclasses are not
+     * covered.
+     *
+     * @return The class.
+     */
+    Class<T> getType();
+
+    /**
+     * Cleans the members of the given object.
+     *
+     * @param object  The object to be cleaned, never null.
+     * @param context The context sanitizing String values and cleaning nested
+     *                values.
+     */
+    void clean(T object, Context context);
+
+    /**
+     * The Context interface gives a cleaner access to the sanitizer and to the
+     * walk of nested values of the current clean call.
+     */
+    interface Context {
+
+        /**
+         * Sanitizes a String value.
+         *
+         * @param value The value, may be null.
+         * @return The sanitized value, the same instance if nothing changed.
+         */
+        String clean(String value);
+
+        /**
+         * Cleans a nested value such as a collection, a map, an array or
+         * another object. Objects already visited by the current call are
+         * skipped. A collection or map that cannot be modified is cleaned
+         * into an unmodifiable copy, which the cleaner should store in place
+         * of the value.
+         *
+         * @param value The value, may be null.
+         * @return The value itself, or its cleaned copy.
+         */
+        Object cleanNested(Object value);
+
+        /**
+         * Gets the context applying the named policy of an
+         * {@link io.github.haiphamcoder.xss.annotation.XssPolicy} annotation.
+         *
+         * @param policy The name of the policy.
+         * @return The context applying the policy, or this context if no
+         *         cleaner is registered under the name.
+         */
+        Context withPolicy(String policy);
+    }
+
+}
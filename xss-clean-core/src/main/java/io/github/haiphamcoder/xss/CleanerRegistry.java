@@ -0,0 +1,83 @@
+package io.github.haiphamcoder.xss;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The CleanerRegistry class holds the {@link Cleaner} used for each class by
+ * {@link ReflectionCleaner}. Cleaners listed in
+ * {@code META-INF/services/io.github.haiphamcoder.xss.Cleaner}, which the
+ * {@code xss-clean-processor} annotation processor writes for its generated
+ * cleaners, are registered on first use. Providers that cannot be loaded are
+ * skipped.
+ */
+public final class CleanerRegistry {
+
+    private static final Map<Class<?>, Cleaner<?>> CLEANERS = new ConcurrentHashMap<>();
+
+    static {
+        load(CleanerRegistry.class.getClassLoader());
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        if (contextLoader != null && contextLoader != CleanerRegistry.class.getClassLoader()) {
+            load(contextLoader);
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CleanerRegistry() {
+    }
+
+    /**
+     * Registers a cleaner, replacing any cleaner registered for the same
+     * class.
+     *
+     * @param <T>     The type of the cleaned objects.
+     * @param cleaner The cleaner.
+     * @throws IllegalArgumentException If the cleaner is null.
+     */
+    public static <T> void register(Cleaner<T> cleaner) {
+        if (cleaner == null) {
+            throw new IllegalArgumentException("Cleaner must not be null");
+        }
+        CLEANERS.put(cleaner.getType(), cleaner);
+    }
+
+    /**
+     * Gets the cleaner registered for the given class.
+     *
+     * @param <T>  The type of the cleaned objects.
+     * @param type The class.
+     * @return The cleaner, or null if the class has none.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Cleaner<T> find(Class<T> type) {
+        return CLEANERS.isEmpty() ? null : (Cleaner<T>) CLEANERS.get(type);
+    }
+
+    /**
+     * Registers the cleaners provided through the given class loader.
+     *
+     * @param classLoader The class loader.
+     */
+    @SuppressWarnings("rawtypes")
+    private static void load(ClassLoader classLoader) {
+        Iterator<Cleaner> providers = ServiceLoader.load(Cleaner.class, classLoader).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    return;
+                }
+                Cleaner<?> cleaner = providers.next();
+                CLEANERS.putIfAbsent(cleaner.getType(), cleaner);
+            } catch (ServiceConfigurationError e) {
+                // Skip the provider
+            }
+        }
+    }
+
+}
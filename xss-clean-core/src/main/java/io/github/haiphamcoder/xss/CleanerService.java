@@ -1,5 +1,10 @@
 package io.github.haiphamcoder.xss;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * The CleanerService interface provides methods for cleaning and sanitizing
  * input data.
@@ -15,6 +20,104 @@ public interface CleanerService {
      */
     String clean(String raw);
 
+    /**
+     * Cleans a batch of raw string inputs by applying XSS protection policies.
+     * Implementations may reuse parser and output buffer state across the
+     * batch, which is cheaper than calling {@link #clean(String)} for each
+     * value.
+     *
+     * @param raws The raw string inputs to be cleaned. Null elements are
+     *             allowed and stay null.
+     * @return A new array holding the cleaned strings in the same order.
+     */
+    default String[] cleanAll(String[] raws) {
+        String[] cleaned = new String[raws.length];
+        for (int i = 0; i < raws.length; i++) {
+            cleaned[i] = clean(raws[i]);
+        }
+        return cleaned;
+    }
+
+    /**
+     * Cleans a batch of raw string inputs by applying XSS protection policies.
+     *
+     * @param raws The raw string inputs to be cleaned. Null elements are
+     *             allowed and stay null.
+     * @return A new list holding the cleaned strings in the same order.
+     * @see #cleanAll(String[])
+     */
+    default List<String> cleanAll(List<String> raws) {
+        return Arrays.asList(cleanAll(raws.toArray(new String[0])));
+    }
+
+    /**
+     * Cleans a raw string input and reports whether cleaning changed it. When
+     * nothing changed, the result holds the original input instance.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned value and whether it differs from the input.
+     */
+    default CleanResult cleanTracked(String raw) {
+        if (raw == null) {
+            return CleanResult.unchanged(null);
+        }
+        String cleaned = clean(raw);
+        return raw.equals(cleaned) ? CleanResult.unchanged(raw) : CleanResult.changed(cleaned);
+    }
+
+    /**
+     * Cleans a batch of raw string inputs and reports for each of them whether
+     * cleaning changed it, with the same semantics as
+     * {@link #cleanTracked(String)}.
+     *
+     * @param raws The raw string inputs to be cleaned. Null elements are
+     *             allowed and stay null.
+     * @return A new array holding the results in the same order.
+     */
+    default CleanResult[] cleanAllTracked(String[] raws) {
+        CleanResult[] results = new CleanResult[raws.length];
+        for (int i = 0; i < raws.length; i++) {
+            results[i] = cleanTracked(raws[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Cleans a character stream by applying XSS protection policies and writes
+     * the cleaned result to the given output. The input is processed in chunks
+     * split by {@link HtmlChunkReader}, so memory use depends on the chunk size
+     * rather than on the size of the document.
+     *
+     * @param input  The raw character stream to be cleaned.
+     * @param output The destination of the cleaned content.
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    default void clean(Reader input, Appendable output) throws IOException {
+        HtmlChunkReader chunks = new HtmlChunkReader(input);
+        String chunk;
+        while ((chunk = chunks.next()) != null) {
+            output.append(clean(chunk));
+        }
+    }
+
+    /**
+     * Checks if the given input would pass through cleaning unchanged, i.e. if
+     * {@code clean(input.toString()).equals(input.toString())} holds.
+     * Implementations stop at the first difference and do not need to build
+     * the cleaned output.
+     *
+     * @param input The input to check.
+     * @return True if the input is safe as-is, false if cleaning would change
+     *         it. A null input is considered safe.
+     */
+    default boolean isSafe(CharSequence input) {
+        if (input == null) {
+            return true;
+        }
+        String raw = input.toString();
+        return raw.equals(clean(raw));
+    }
+
     /**
      * Cleans an object by applying XSS protection policies to its fields.
      *
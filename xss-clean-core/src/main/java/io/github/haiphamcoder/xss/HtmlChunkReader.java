@@ -0,0 +1,286 @@
+package io.github.haiphamcoder.xss;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The HtmlChunkReader class splits an HTML character stream into chunks that
+ * can be sanitized one after another with bounded memory.
+ * <p>
+ * Chunks are only cut in plain text, either right before a tag or right after
+ * a whitespace character, never inside a tag, a comment, an entity reference
+ * or the content of a raw text element such as {@code script} or
+ * {@code style}. A chunk is therefore about {@code chunkSize} characters long,
+ * unless a single construct is larger, in which case the buffer grows to hold
+ * it, up to four times the chunk size or 1024 characters, whichever is
+ * larger. A construct that is still open at that point, such as an
+ * unterminated comment or attribute value, is cut where the buffer ends.
+ * Every chunk still goes through the full sanitizer, so an unexpected cut can
+ * only affect the formatting of the output, never its safety.
+ */
+public final class HtmlChunkReader {
+
+    /**
+     * The default number of characters per chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    /**
+     * Elements whose content is not parsed as markup until the matching end tag.
+     */
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style", "textarea", "title", "xmp",
+            "iframe", "noembed", "noframes", "noscript", "plaintext");
+
+    /**
+     * The maximum size of the buffer, as a multiple of the chunk size.
+     */
+    static final int MAX_CARRY_FACTOR = 4;
+
+    /**
+     * The minimum size the buffer may grow to, for small chunk sizes.
+     */
+    static final int MIN_CARRY_LENGTH = 1024;
+
+    private static final int MAX_TAG_NAME_LENGTH = 16;
+
+    private enum State {
+        TEXT, TAG_OPEN, TAG_NAME, IN_TAG, DOUBLE_QUOTED, SINGLE_QUOTED, END_TAG, DECLARATION, COMMENT,
+        BOGUS_COMMENT, RAW_TEXT
+    }
+
+    private final Reader reader;
+
+    private final int chunkSize;
+
+    private final int maxLength;
+
+    private char[] buffer;
+
+    private int length;
+
+    private boolean eof;
+
+    private State state;
+
+    private final StringBuilder tagName = new StringBuilder(MAX_TAG_NAME_LENGTH);
+
+    private String rawTextEnd;
+
+    private int matched;
+
+    /**
+     * Constructs a new HtmlChunkReader with the default chunk size.
+     *
+     * @param reader The reader to split.
+     */
+    public HtmlChunkReader(Reader reader) {
+        this(reader, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a new HtmlChunkReader.
+     *
+     * @param reader    The reader to split.
+     * @param chunkSize The preferred number of characters per chunk.
+     */
+    public HtmlChunkReader(Reader reader, int chunkSize) {
+        if (reader == null) {
+            throw new IllegalArgumentException("reader must not be null");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.reader = reader;
+        this.chunkSize = chunkSize;
+        this.maxLength = (int) Math.min(Math.max((long) chunkSize * MAX_CARRY_FACTOR, MIN_CARRY_LENGTH),
+                Integer.MAX_VALUE - 8);
+        this.buffer = new char[chunkSize];
+    }
+
+    /**
+     * Reads the next chunk.
+     *
+     * @return The next chunk, or null when the stream is exhausted.
+     * @throws IOException If reading from the underlying reader fails.
+     */
+    public String next() throws IOException {
+        while (true) {
+            fill();
+            if (length == 0) {
+                return null;
+            }
+            if (eof) {
+                return take(length);
+            }
+            int cut = lastSafeCut();
+            if (cut > 0) {
+                return take(cut);
+            }
+            if (buffer.length >= maxLength) {
+                // A single construct exceeds the limit, cut it where the buffer ends
+                return take(length);
+            }
+            // A single construct spans the whole buffer, make room for more of it
+            buffer = Arrays.copyOf(buffer, (int) Math.min(buffer.length * 2L, maxLength));
+        }
+    }
+
+    /**
+     * Reads from the underlying reader until the buffer is full or the stream
+     * is exhausted.
+     *
+     * @throws IOException If reading from the underlying reader fails.
+     */
+    private void fill() throws IOException {
+        while (!eof && length < buffer.length) {
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                eof = true;
+            } else {
+                length += read;
+            }
+        }
+    }
+
+    /**
+     * Removes the given number of characters from the front of the buffer.
+     *
+     * @param count The number of characters to remove.
+     * @return The removed characters.
+     */
+    private String take(int count) {
+        String chunk = new String(buffer, 0, count);
+        System.arraycopy(buffer, count, buffer, 0, length - count);
+        length -= count;
+        if (buffer.length > chunkSize && length <= chunkSize) {
+            buffer = Arrays.copyOf(buffer, chunkSize);
+        }
+        return chunk;
+    }
+
+    /**
+     * Scans the buffer and finds the last position where it can be cut.
+     *
+     * @return The last safe cut position, or 0 if there is none.
+     */
+    private int lastSafeCut() {
+        state = State.TEXT;
+        int cut = 0;
+        for (int i = 0; i < length; i++) {
+            char c = buffer[i];
+            switch (state) {
+                case TEXT:
+                    if (c == '<') {
+                        cut = i;
+                        state = State.TAG_OPEN;
+                    } else if (Character.isWhitespace(c)) {
+                        cut = i + 1;
+                    }
+                    break;
+                case TAG_OPEN:
+                    if (isAsciiLetter(c)) {
+                        tagName.setLength(0);
+                        tagName.append(c);
+                        state = State.TAG_NAME;
+                    } else if (c == '/') {
+                        state = State.END_TAG;
+                    } else if (c == '!') {
+                        matched = 0;
+                        state = State.DECLARATION;
+                    } else if (c == '?') {
+                        state = State.BOGUS_COMMENT;
+                    } else {
+                        state = State.TEXT;
+                        i--;
+                    }
+                    break;
+                case TAG_NAME:
+                    if (c == '>') {
+                        endStartTag();
+                    } else if (Character.isWhitespace(c) || c == '/') {
+                        state = State.IN_TAG;
+                    } else if (tagName.length() < MAX_TAG_NAME_LENGTH) {
+                        tagName.append(c);
+                    }
+                    break;
+                case IN_TAG:
+                    if (c == '>') {
+                        endStartTag();
+                    } else if (c == '"') {
+                        state = State.DOUBLE_QUOTED;
+                    } else if (c == '\'') {
+                        state = State.SINGLE_QUOTED;
+                    }
+                    break;
+                case DOUBLE_QUOTED:
+                    if (c == '"') {
+                        state = State.IN_TAG;
+                    }
+                    break;
+                case SINGLE_QUOTED:
+                    if (c == '\'') {
+                        state = State.IN_TAG;
+                    }
+                    break;
+                case END_TAG, BOGUS_COMMENT:
+                    if (c == '>') {
+                        state = State.TEXT;
+                    }
+                    break;
+                case DECLARATION:
+                    if (c == '-' && matched < 2) {
+                        matched++;
+                        if (matched == 2) {
+                            matched = 0;
+                            state = State.COMMENT;
+                        }
+                    } else {
+                        state = c == '>' ? State.TEXT : State.BOGUS_COMMENT;
+                    }
+                    break;
+                case COMMENT:
+                    if (c == '-') {
+                        matched++;
+                    } else if (c == '>' && matched >= 2) {
+                        state = State.TEXT;
+                    } else {
+                        matched = 0;
+                    }
+                    break;
+                case RAW_TEXT:
+                    if (Character.toLowerCase(c) == rawTextEnd.charAt(matched)) {
+                        matched++;
+                        if (matched == rawTextEnd.length()) {
+                            state = State.END_TAG;
+                        }
+                    } else {
+                        matched = c == '<' ? 1 : 0;
+                    }
+                    break;
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * Handles the end of a start tag, entering raw text mode if needed.
+     */
+    private void endStartTag() {
+        String name = tagName.toString().toLowerCase(Locale.ROOT);
+        if (RAW_TEXT_ELEMENTS.contains(name)) {
+            rawTextEnd = "</" + name;
+            matched = 0;
+            state = State.RAW_TEXT;
+        } else {
+            state = State.TEXT;
+        }
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+}
@@ -0,0 +1,159 @@
+package io.github.haiphamcoder.xss;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * The IdentityTable class maps objects, compared by identity, to values. It is
+ * the set of visited objects of a {@link ReflectionCleaner} walk, holding for
+ * each object the copy that replaces it, or the object itself.
+ * <p>
+ * Keys and values are stored next to each other in one array probed linearly,
+ * so a lookup touches a single cache line in the common case and no entry
+ * objects are allocated. Entries are never removed. A table is reused by the
+ * next walk on the same thread through {@link #acquire()} and
+ * {@link #release()}, unless it grew beyond {@link #MAX_RETAINED_CAPACITY}.
+ */
+final class IdentityTable {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private static final int MAX_RETAINED_CAPACITY = 4096;
+
+    private static final ThreadLocal<IdentityTable> CACHE = new ThreadLocal<>();
+
+    private Object[] table = new Object[2 * INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Gets an empty table, reusing the table released last by this thread.
+     *
+     * @return The table.
+     */
+    static IdentityTable acquire() {
+        IdentityTable cached = CACHE.get();
+        if (cached == null) {
+            return new IdentityTable();
+        }
+        CACHE.set(null);
+        return cached;
+    }
+
+    /**
+     * Empties the table and keeps it for the next walk on this thread. The
+     * table must not be used afterwards.
+     */
+    void release() {
+        if (table.length > 2 * MAX_RETAINED_CAPACITY) {
+            return;
+        }
+        if (size > 0) {
+            Arrays.fill(table, null);
+            size = 0;
+        }
+        CACHE.set(this);
+    }
+
+    /**
+     * Maps the given key to the given value, unless it is already mapped.
+     *
+     * @param key   The key, not null.
+     * @param value The value, not null.
+     * @return The current value of the key, or null if it was not mapped.
+     */
+    Object putIfAbsent(Object key, Object value) {
+        int index = indexOf(key);
+        Object current = table[index + 1];
+        if (current != null) {
+            return current;
+        }
+        insert(index, key, value);
+        return null;
+    }
+
+    /**
+     * Maps the given key to the given value.
+     *
+     * @param key   The key, not null.
+     * @param value The value, not null.
+     */
+    void put(Object key, Object value) {
+        int index = indexOf(key);
+        if (table[index] == key) {
+            table[index + 1] = value;
+        } else {
+            insert(index, key, value);
+        }
+    }
+
+    /**
+     * Gets the number of mapped keys.
+     *
+     * @return The size.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Passes every mapped key and its value to the given action.
+     *
+     * @param action The action.
+     */
+    void forEach(BiConsumer<Object, Object> action) {
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != null) {
+                action.accept(table[i], table[i + 1]);
+            }
+        }
+    }
+
+    private void insert(int index, Object key, Object value) {
+        table[index] = key;
+        table[index + 1] = value;
+        // Keep the load factor at or below 2/3
+        if (++size * 3 > table.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Finds the slot of the given key.
+     *
+     * @param key The key.
+     * @return The index of the key in the array, or of the free slot where it
+     *         belongs.
+     */
+    private int indexOf(Object key) {
+        int mask = table.length - 1;
+        int index = hash(key, table.length);
+        while (true) {
+            Object item = table[index];
+            if (item == key || item == null) {
+                return index;
+            }
+            index = (index + 2) & mask;
+        }
+    }
+
+    private void resize() {
+        Object[] old = table;
+        table = new Object[old.length * 2];
+        for (int i = 0; i < old.length; i += 2) {
+            Object key = old[i];
+            if (key != null) {
+                int index = indexOf(key);
+                table[index] = key;
+                table[index + 1] = old[i + 1];
+            }
+        }
+    }
+
+    private static int hash(Object key, int length) {
+        int h = System.identityHashCode(key);
+        // Spread the bits and keep the index even
+        return ((h << 1) - (h << 8)) & (length - 1);
+    }
+
+}
@@ -0,0 +1,189 @@
+package io.github.haiphamcoder.xss;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The ParallelCleanerService class decorates another CleanerService and
+ * cleans large object graphs on several threads. {@link #cleanObject(Object)}
+ * splits the elements of each array and collection of at least
+ * {@code threshold} elements into fork-join tasks, so a request body holding
+ * a long list is not sanitized on a single thread. Smaller containers, and
+ * all other methods, are handled by the delegate on the calling thread.
+ * <p>
+ * The tasks run in a dedicated pool when a parallelism is given, and in the
+ * common pool otherwise. The delegate must be safe for use by several
+ * threads, which holds for the cleaners of this library.
+ * <p>
+ * This decorator is experimental: no speedup over the delegate has been
+ * measured yet, so it should only be used where a benchmark of the actual
+ * payloads shows one.
+ */
+public class ParallelCleanerService implements CleanerService, AutoCloseable {
+
+    private final CleanerService delegate;
+
+    private final int threshold;
+
+    private final ForkJoinPool pool;
+
+    private final boolean dedicated;
+
+    /**
+     * Constructs a new ParallelCleanerService.
+     *
+     * @param delegate    The cleaner applied to the values.
+     * @param threshold   The minimum number of elements of an array or
+     *                    collection cleaned in parallel, at least 2.
+     * @param parallelism The number of threads of a dedicated pool, or 0 to
+     *                    use the common pool.
+     */
+    public ParallelCleanerService(CleanerService delegate, int threshold, int parallelism) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be at least 2");
+        }
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("parallelism must not be negative");
+        }
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.dedicated = parallelism > 0;
+        this.pool = dedicated ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Cleans a raw string input with the delegate.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned string.
+     */
+    @Override
+    public String clean(String raw) {
+        return delegate.clean(raw);
+    }
+
+    /**
+     * Cleans a batch of raw string inputs with the delegate.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new array holding the cleaned strings in the same order.
+     */
+    @Override
+    public String[] cleanAll(String[] raws) {
+        return delegate.cleanAll(raws);
+    }
+
+    /**
+     * Cleans a batch of raw string inputs with the delegate.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new list holding the cleaned strings in the same order.
+     */
+    @Override
+    public List<String> cleanAll(List<String> raws) {
+        return delegate.cleanAll(raws);
+    }
+
+    /**
+     * Cleans a raw string input with the delegate and reports whether it
+     * changed.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned value and whether it differs from the input.
+     */
+    @Override
+    public CleanResult cleanTracked(String raw) {
+        return delegate.cleanTracked(raw);
+    }
+
+    /**
+     * Cleans a batch of raw string inputs with the delegate and reports for
+     * each of them whether it changed.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new array holding the results in the same order.
+     */
+    @Override
+    public CleanResult[] cleanAllTracked(String[] raws) {
+        return delegate.cleanAllTracked(raws);
+    }
+
+    /**
+     * Cleans a character stream with the delegate.
+     *
+     * @param input  The raw character stream to be cleaned.
+     * @param output The destination of the cleaned content.
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    @Override
+    public void clean(Reader input, Appendable output) throws IOException {
+        delegate.clean(input, output);
+    }
+
+    /**
+     * Checks with the delegate if the given input would pass through cleaning
+     * unchanged.
+     *
+     * @param input The input to check.
+     * @return True if the input is safe as-is, false if cleaning would change
+     *         it.
+     */
+    @Override
+    public boolean isSafe(CharSequence input) {
+        return delegate.isSafe(input);
+    }
+
+    /**
+     * Cleans an object by applying the delegate to its fields, cleaning large
+     * arrays and collections in parallel.
+     *
+     * @param object The object to be cleaned.
+     */
+    @Override
+    public void cleanObject(Object object) {
+        ReflectionCleaner.clean(object, delegate, pool, threshold);
+    }
+
+    /**
+     * Gets the cleaner applied to the values.
+     *
+     * @return The delegate cleaner.
+     */
+    public CleanerService getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Gets the minimum number of elements of a container cleaned in parallel.
+     *
+     * @return The threshold.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Gets the pool running the tasks.
+     *
+     * @return The pool.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Shuts down the dedicated pool, if any. The common pool is left running.
+     */
+    @Override
+    public void close() {
+        if (dedicated) {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package io.github.haiphamcoder.xss;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The PolicyRegistry class holds the named cleaners selected with
+ * {@link io.github.haiphamcoder.xss.annotation.XssPolicy}. The Spring
+ * auto-configuration registers a cleaner for each configured profile.
+ */
+public final class PolicyRegistry {
+
+    private static final Map<String, CleanerService> POLICIES = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private PolicyRegistry() {
+    }
+
+    /**
+     * Registers a cleaner under the given name, replacing any cleaner
+     * registered under the same name.
+     *
+     * @param name    The name of the policy.
+     * @param cleaner The cleaner applying the policy.
+     * @throws IllegalArgumentException If the name or the cleaner is null.
+     */
+    public static void register(String name, CleanerService cleaner) {
+        if (name == null || cleaner == null) {
+            throw new IllegalArgumentException("Name and cleaner must not be null");
+        }
+        POLICIES.put(name, cleaner);
+    }
+
+    /**
+     * Removes the cleaner registered under the given name.
+     *
+     * @param name The name of the policy.
+     */
+    public static void unregister(String name) {
+        if (name != null) {
+            POLICIES.remove(name);
+        }
+    }
+
+    /**
+     * Gets the cleaner registered under the given name.
+     *
+     * @param name The name of the policy.
+     * @return The cleaner, or null if no cleaner has the name.
+     */
+    public static CleanerService find(String name) {
+        return name == null ? null : POLICIES.get(name);
+    }
+
+}
@@ -1,17 +1,22 @@
 package io.github.haiphamcoder.xss;
 
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.UnaryOperator;
 
 /**
@@ -19,6 +24,8 @@ import java.util.function.UnaryOperator;
  * reflection.
  * It allows cleaning of objects by applying XSS protection policies to their
  * fields.
+ * Objects of a class with a {@link Cleaner} in {@link CleanerRegistry} are
+ * cleaned by that cleaner instead of by reflection.
  */
 public class ReflectionCleaner {
 
@@ -37,48 +44,168 @@ public class ReflectionCleaner {
      * @param sanitizer The sanitizer to be applied to the object.
      */
     public static void clean(Object object, UnaryOperator<String> sanitizer) {
-        if (object == null) {
-            return;
-        }
+        clean(object, new Walk(sanitizer, values -> {
+            String[] cleaned = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                cleaned[i] = sanitizer.apply(values[i]);
+            }
+            return cleaned;
+        }));
+    }
 
-        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
-        cleanRecursive(object, sanitizer, visited);
+    /**
+     * Cleans the given object with the given cleaner. The String elements of
+     * each array, collection and map are cleaned as one batch through
+     * {@link CleanerService#cleanAll(String[])}.
+     *
+     * @param object  The object to be cleaned.
+     * @param cleaner The cleaner to be applied to the object.
+     */
+    public static void clean(Object object, CleanerService cleaner) {
+        clean(object, new Walk(cleaner::clean, cleaner::cleanAll));
     }
 
     /**
-     * Cleans the given object by applying the given sanitizer to its fields.
+     * Cleans the given object with the given cleaner, splitting the elements
+     * of arrays and collections of at least {@code threshold} elements into
+     * tasks run by the given pool. Objects reachable from several tasks are
+     * still cleaned once.
      *
      * @param object    The object to be cleaned.
-     * @param sanitizer The sanitizer to be applied to the object.
-     * @param visited   The set of visited objects.
+     * @param cleaner   The cleaner to be applied to the object, which must be
+     *                  safe for use by several threads.
+     * @param pool      The pool running the tasks.
+     * @param threshold The minimum number of elements of a container cleaned
+     *                  in parallel.
+     */
+    public static void clean(Object object, CleanerService cleaner, ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be at least 2");
+        }
+        Walk walk = new Walk(cleaner::clean, cleaner::cleanAll, pool, threshold);
+        clean(object, walk);
+        if (walk.revisited && !walk.replacements.isEmpty()) {
+            // A task may have seen a container while another task was copying
+            // it; store the copies in the references that were left behind
+            Walk fixup = new Walk(UnaryOperator.identity(), UnaryOperator.identity());
+            walk.replacements.forEach(fixup::replace);
+            clean(object, fixup);
+        }
+    }
+
+    /**
+     * Cleans the given object with the given walk.
+     *
+     * @param object The object to be cleaned.
+     * @param walk   The walk holding the sanitizer and the visited objects.
      */
-    private static void cleanRecursive(Object object, UnaryOperator<String> sanitizer, Set<Object> visited) {
-        if (object == null || visited.contains(object)) {
+    private static void clean(Object object, Walk walk) {
+        if (object == null) {
             return;
         }
 
-        visited.add(object);
+        try {
+            cleanRecursive(object, walk);
+        } finally {
+            walk.release();
+        }
+    }
 
+    /**
+     * Cleans the given object by applying the given sanitizer to its fields.
+     * Objects whose class cannot contain a String are skipped without being
+     * recorded as visited. A bean whose plan is flat is not recorded either
+     * when it is the first object of the walk, as nothing else can refer to
+     * it.
+     *
+     * @param object The object to be cleaned.
+     * @param walk   The walk holding the sanitizer and the visited objects.
+     * @return The object itself, or a cleaned copy of an unmodifiable
+     *         collection or map to be stored in its place.
+     */
+    private static Object cleanRecursive(Object object, Walk walk) {
+        if (object == null || !StringReachability.canReach(object.getClass())) {
+            return object;
+        }
         Class<?> clazz = object.getClass();
-
-        if (clazz.isArray()) {
-            cleanArray(object, sanitizer, visited);
-            return;
+        if (clazz.isArray() || object instanceof Collection<?> || object instanceof Map<?, ?>
+                || isJavaType(clazz)) {
+            Object seen = walk.visit(object, false);
+            if (seen != null) {
+                return seen;
+            }
+            if (clazz.isArray()) {
+                cleanArray(object, walk);
+                return object;
+            }
+            if (object instanceof Collection<?> collection) {
+                return replaced(object, cleanCollection(collection, walk), walk);
+            }
+            if (object instanceof Map<?, ?> map) {
+                return replaced(object, cleanMap(map, walk), walk);
+            }
+            return object;
         }
 
-        if (object instanceof Collection<?> collection) {
-            cleanCollection(collection, sanitizer, visited);
-            return;
+        CleanPlan plan = CleanPlan.of(clazz);
+        if (plan.isIgnored()) {
+            return object;
         }
-
-        if (object instanceof Map<?, ?> map) {
-            cleanMap(map, sanitizer, visited);
-            return;
+        Object seen = walk.visit(object, plan.isFlat());
+        if (seen != null) {
+            return seen;
+        }
+        @SuppressWarnings("unchecked")
+        Cleaner<Object> cleaner = (Cleaner<Object>) CleanerRegistry.find(clazz);
+        Walk target = plan.getPolicy() == null ? walk : walk.withPolicy(plan.getPolicy());
+        if (cleaner != null) {
+            cleaner.clean(object, target);
+        } else {
+            plan.clean(object, target);
         }
+        return object;
+    }
 
-        if (!isJavaType(clazz)) {
-            cleanBean(object, clazz, sanitizer, visited);
+    /**
+     * Records the replacement of an object, so that other references to the
+     * object are replaced by the same copy.
+     *
+     * @param object      The object.
+     * @param replacement The object itself or its cleaned copy.
+     * @param walk        The walk holding the visited objects.
+     * @return The replacement.
+     */
+    private static Object replaced(Object object, Object replacement, Walk walk) {
+        if (replacement != object) {
+            walk.replace(object, replacement);
         }
+        return replacement;
+    }
+
+    /**
+     * Checks if a value of the given declared type may hold a String cleaned
+     * by the walk. The check is conservative: a type that is not final may
+     * hold a subclass with more fields, so it is assumed to hold one.
+     *
+     * @param type The declared type, possibly generic.
+     * @return False if values of the type can be skipped.
+     */
+    public static boolean canHoldString(Type type) {
+        return StringReachability.canHold(type);
+    }
+
+    /**
+     * Checks if an instance of exactly the given class may contain a String
+     * cleaned by the walk. The result is cached per class.
+     *
+     * @param type The runtime class of the object.
+     * @return False if instances of exactly this class can be skipped.
+     */
+    public static boolean canReachString(Class<?> type) {
+        return StringReachability.canReach(type);
     }
 
     /**
@@ -87,143 +214,504 @@ public class ReflectionCleaner {
      * @param clazz The class to check.
      * @return True if the class is a Java type, false otherwise.
      */
-    private static boolean isJavaType(Class<?> clazz) {
+    static boolean isJavaType(Class<?> clazz) {
         return clazz.isPrimitive() || clazz.getName().startsWith(JAVA_PREFIX);
     }
 
     /**
      * Cleans the given array by applying the given sanitizer to its elements.
+     * Only the elements that changed are written.
      *
      * @param arrayObject The array to be cleaned.
-     * @param sanitizer   The sanitizer to be applied to the array.
-     * @param visited     The set of visited objects.
-     */
-    private static void cleanArray(Object arrayObject, UnaryOperator<String> sanitizer, Set<Object> visited) {
-        int length = Array.getLength(arrayObject);
-        for (int i = 0; i < length; i++) {
-            Object element = Array.get(arrayObject, i);
-            if (element instanceof String string) {
-                Array.set(arrayObject, i, sanitizer.apply(string));
-            } else {
-                cleanRecursive(element, sanitizer, visited);
+     * @param walk        The walk holding the sanitizer and the visited objects.
+     */
+    private static void cleanArray(Object arrayObject, Walk walk) {
+        // Arrays of primitives hold no strings
+        if (arrayObject instanceof Object[] array) {
+            Object[] cleaned = array.clone();
+            if (cleanElements(cleaned, walk) != null) {
+                for (int i = 0; i < array.length; i++) {
+                    if (cleaned[i] != array[i]) {
+                        array[i] = cleaned[i];
+                    }
+                }
             }
         }
     }
 
     /**
-     * Cleans the given collection by applying the given sanitizer to its elements.
+     * Cleans the given collection in place. A list is updated through its
+     * list iterator and a set by replacing the changed members only; other
+     * collections are refilled. A collection that nothing changed is not
+     * written, and one that cannot be modified is copied.
      *
      * @param collection The collection to be cleaned.
-     * @param sanitizer  The sanitizer to be applied to the collection.
-     * @param visited    The set of visited objects.
-     */
-    private static void cleanCollection(Collection<?> collection, UnaryOperator<String> sanitizer,
-            Set<Object> visited) {
-        List<Object> list = new ArrayList<>();
-        for (Object element : collection) {
-            if (element instanceof String string) {
-                list.add(sanitizer.apply(string));
-            } else {
-                cleanRecursive(element, sanitizer, visited);
-                list.add(element);
-            }
+     * @param walk       The walk holding the sanitizer and the visited objects.
+     * @return The collection, or an unmodifiable cleaned copy of it.
+     */
+    private static Collection<?> cleanCollection(Collection<?> collection, Walk walk) {
+        Object[] elements = collection.toArray();
+        Object[] previous = cleanElements(elements, walk);
+        if (previous == null) {
+            return collection;
         }
+
         @SuppressWarnings("unchecked")
         Collection<Object> target = (Collection<Object>) collection;
-        target.clear();
-        target.addAll(list);
+        try {
+            if (target instanceof List<Object> list) {
+                ListIterator<Object> iterator = list.listIterator();
+                for (int i = 0; i < elements.length && iterator.hasNext(); i++) {
+                    iterator.next();
+                    if (elements[i] != previous[i] && previous[i] != null) {
+                        iterator.set(elements[i]);
+                    }
+                }
+            } else if (target instanceof Set<Object> set) {
+                for (int i = 0; i < elements.length; i++) {
+                    if (previous[i] != null && elements[i] != previous[i]) {
+                        set.remove(previous[i]);
+                    }
+                }
+                for (int i = 0; i < elements.length; i++) {
+                    if (previous[i] != null && elements[i] != previous[i]) {
+                        set.add(elements[i]);
+                    }
+                }
+            } else {
+                target.clear();
+                target.addAll(Arrays.asList(elements));
+            }
+            return collection;
+        } catch (UnsupportedOperationException e) {
+            if (collection instanceof List<?>) {
+                return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(elements)));
+            }
+            if (collection instanceof Set<?>) {
+                return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(elements)));
+            }
+            return Collections.unmodifiableCollection(new ArrayList<>(Arrays.asList(elements)));
+        }
+    }
+
+    /**
+     * Cleans the given elements in place. String elements are cleaned as one
+     * batch, other elements are cleaned recursively and replaced by their
+     * copy when they cannot be modified.
+     *
+     * @param elements The elements to be cleaned.
+     * @param walk     The walk holding the sanitizer and the visited objects.
+     * @return The previous values of the elements, non-null at the positions
+     *         that changed only, or null if no element changed.
+     */
+    private static Object[] cleanElements(Object[] elements, Walk walk) {
+        if (walk.pool == null || elements.length < walk.threshold) {
+            return cleanElements(elements, 0, elements.length, null, walk);
+        }
+
+        walk.share();
+        Object[] previous = new Object[elements.length];
+        int chunk = Math.max(walk.threshold / 2, elements.length / (walk.pool.getParallelism() * 4));
+        ElementsTask task = new ElementsTask(elements, previous, 0, elements.length, chunk, walk);
+        boolean changed = ForkJoinTask.getPool() == walk.pool ? task.invoke() : walk.pool.invoke(task);
+        return changed ? previous : null;
+    }
+
+    /**
+     * Cleans a range of the given elements in place.
+     *
+     * @param elements The elements to be cleaned.
+     * @param from     The index of the first element, inclusive.
+     * @param to       The index of the last element, exclusive.
+     * @param previous The previous values of the elements, or null to
+     *                 allocate them on the first change.
+     * @param walk     The walk holding the sanitizer and the visited objects.
+     * @return The previous values of the elements, non-null at the positions
+     *         that changed only, or null if no element changed.
+     */
+    private static Object[] cleanElements(Object[] elements, int from, int to, Object[] previous, Walk walk) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            Object element = elements[i];
+            if (element instanceof String) {
+                count++;
+            } else {
+                Object cleaned = cleanRecursive(element, walk);
+                if (cleaned != element) {
+                    if (previous == null) {
+                        previous = new Object[elements.length];
+                    }
+                    previous[i] = element;
+                    elements[i] = cleaned;
+                }
+            }
+        }
+        if (count == 0) {
+            return previous;
+        }
+
+        String[] batch = new String[count];
+        int[] positions = new int[count];
+        int k = 0;
+        for (int i = from; i < to && k < count; i++) {
+            if (elements[i] instanceof String string) {
+                batch[k] = string;
+                positions[k++] = i;
+            }
+        }
+        String[] cleaned = walk.applyAll(batch);
+        for (int j = 0; j < k; j++) {
+            int position = positions[j];
+            if (!batch[j].equals(cleaned[j])) {
+                if (previous == null) {
+                    previous = new Object[elements.length];
+                }
+                previous[position] = batch[j];
+                elements[position] = cleaned[j];
+            }
+        }
+        return previous;
     }
 
     /**
      * Cleans the given map by applying the given sanitizer to its values.
+     * String values are cleaned as one batch, and only the entries whose
+     * value changed are written. A map that cannot be modified is copied.
      *
-     * @param map       The map to be cleaned.
-     * @param sanitizer The sanitizer to be applied to the map.
-     * @param visited   The set of visited objects.
+     * @param map  The map to be cleaned.
+     * @param walk The walk holding the sanitizer and the visited objects.
+     * @return The map, or an unmodifiable cleaned copy of it.
      */
-    private static void cleanMap(Map<?, ?> map, UnaryOperator<String> sanitizer, Set<Object> visited) {
+    private static Map<?, ?> cleanMap(Map<?, ?> map, Walk walk) {
         @SuppressWarnings("unchecked")
         Map<Object, Object> writable = (Map<Object, Object>) map;
+        List<Map.Entry<Object, Object>> changed = new ArrayList<>();
+        List<Object> replacements = new ArrayList<>();
+        List<Map.Entry<Object, Object>> entries = new ArrayList<>();
+        List<String> values = new ArrayList<>();
         for (Map.Entry<Object, Object> entry : writable.entrySet()) {
             Object value = entry.getValue();
             if (value instanceof String string) {
-                entry.setValue(sanitizer.apply(string));
+                entries.add(entry);
+                values.add(string);
             } else {
-                cleanRecursive(value, sanitizer, visited);
+                Object cleaned = cleanRecursive(value, walk);
+                if (cleaned != value) {
+                    changed.add(entry);
+                    replacements.add(cleaned);
+                }
             }
         }
-    }
+        if (!entries.isEmpty()) {
+            String[] batch = values.toArray(new String[0]);
+            String[] cleaned = walk.applyAll(batch);
+            for (int i = 0; i < cleaned.length; i++) {
+                if (!batch[i].equals(cleaned[i])) {
+                    changed.add(entries.get(i));
+                    replacements.add(cleaned[i]);
+                }
+            }
+        }
+        if (changed.isEmpty()) {
+            return map;
+        }
 
-    /**
-     * Cleans the given bean by applying the given sanitizer to its fields.
-     *
-     * @param object    The bean to be cleaned.
-     * @param clazz     The class of the bean.
-     * @param sanitizer The sanitizer to be applied to the bean.
-     * @param visited   The set of visited objects.
-     */
-    private static void cleanBean(Object object, Class<?> clazz, UnaryOperator<String> sanitizer,
-            Set<Object> visited) {
-        cleanBeanProperties(object, clazz, sanitizer, visited);
-        cleanBeanFields(object, clazz, sanitizer, visited);
+        try {
+            for (int i = 0; i < changed.size(); i++) {
+                changed.get(i).setValue(replacements.get(i));
+            }
+            return map;
+        } catch (UnsupportedOperationException e) {
+            Map<Object, Object> copy = new LinkedHashMap<>(writable);
+            for (int i = 0; i < changed.size(); i++) {
+                copy.put(changed.get(i).getKey(), replacements.get(i));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
     }
 
     /**
-     * Cleans the given bean by applying the given sanitizer to its properties.
-     *
-     * @param object    The bean to be cleaned.
-     * @param clazz     The class of the bean.
-     * @param sanitizer The sanitizer to be applied to the bean.
-     * @param visited   The set of visited objects.
+     * The state of one clean call: the sanitizer applied to single values and
+     * to batches of values, and the objects visited so far with the copies
+     * that replace them. It is the visitor
+     * of the bean members and the context of registered cleaners.
      */
-    private static void cleanBeanProperties(Object object, Class<?> clazz, UnaryOperator<String> sanitizer,
-            Set<Object> visited) {
-        try {
-            for (PropertyDescriptor pd : Introspector.getBeanInfo(clazz, Object.class).getPropertyDescriptors()) {
-                var getter = pd.getReadMethod();
-                var setter = pd.getWriteMethod();
-                if (getter == null || setter == null || !Modifier.isPublic(getter.getModifiers())
-                        || !Modifier.isPublic(setter.getModifiers())) {
-                    continue;
+    private static final class Walk implements CleanPlan.Visitor, Cleaner.Context {
+
+        private static final int STRIPES = 64;
+
+        private final Walk root;
+
+        private final UnaryOperator<String> single;
+
+        private final UnaryOperator<String[]> batch;
+
+        private final ForkJoinPool pool;
+
+        private final int threshold;
+
+        private Map<Object, Object>[] stripes;
+
+        private Map<Object, Object> replacements;
+
+        private Map<String, Walk> policies;
+
+        private IdentityTable visited;
+
+        private volatile boolean revisited;
+
+        /**
+         * Constructs a walk run by the calling thread.
+         *
+         * @param single The sanitizer for a single value.
+         * @param batch  The sanitizer for a batch of values, returning a new
+         *               array.
+         */
+        Walk(UnaryOperator<String> single, UnaryOperator<String[]> batch) {
+            this(single, batch, null, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Constructs a walk.
+         *
+         * @param single    The sanitizer for a single value.
+         * @param batch     The sanitizer for a batch of values, returning a
+         *                  new array.
+         * @param pool      The pool cleaning large containers in parallel, or
+         *                  null to walk on the calling thread only.
+         * @param threshold The minimum number of elements of a container
+         *                  cleaned in parallel.
+         */
+        Walk(UnaryOperator<String> single, UnaryOperator<String[]> batch, ForkJoinPool pool, int threshold) {
+            this.root = this;
+            this.single = single;
+            this.batch = batch;
+            this.pool = pool;
+            this.threshold = threshold;
+            // Serial walks allocate the policy walks on first use
+            this.policies = pool == null ? null : new ConcurrentHashMap<>();
+        }
+
+        /**
+         * Constructs a walk applying a named policy, which shares the visited
+         * objects of the given walk.
+         *
+         * @param root    The walk started by the clean call.
+         * @param cleaner The cleaner of the policy.
+         */
+        private Walk(Walk root, CleanerService cleaner) {
+            this.root = root;
+            this.single = cleaner::clean;
+            this.batch = cleaner::cleanAll;
+            this.pool = root.pool;
+            this.threshold = root.threshold;
+        }
+
+        /**
+         * Prepares the walk for several threads before the elements of a
+         * container are split into tasks: the visited objects move from the
+         * table of the calling thread into locked stripes, and replacements
+         * are recorded from then on. A walk that never splits a container
+         * keeps the table.
+         */
+        @SuppressWarnings("unchecked")
+        void share() {
+            if (root.stripes != null) {
+                return;
+            }
+            Map<Object, Object>[] shared = new Map[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                shared[i] = new IdentityHashMap<>();
+            }
+            if (root.visited != null) {
+                root.visited.forEach((object, seen) -> shared[stripe(object)].put(object, seen));
+                root.visited.release();
+                root.visited = null;
+            }
+            root.replacements = new IdentityHashMap<>();
+            // Published to the tasks when they are forked
+            root.stripes = shared;
+        }
+
+        private static int stripe(Object object) {
+            return System.identityHashCode(object) & (STRIPES - 1);
+        }
+
+        /**
+         * Records the given object as visited. A flat bean walked before any
+         * other object is not recorded.
+         *
+         * @param object The object.
+         * @param flat   Whether the object is a bean with a flat plan.
+         * @return Null if the object was not visited yet, otherwise the object
+         *         itself or its cleaned copy.
+         */
+        Object visit(Object object, boolean flat) {
+            Map<Object, Object>[] stripes = root.stripes;
+            if (stripes == null) {
+                if (flat && root.visited == null) {
+                    return null;
                 }
-                Object value = getter.invoke(object);
-                if (value instanceof String string) {
-                    setter.invoke(object, sanitizer.apply(string));
-                } else {
-                    cleanRecursive(value, sanitizer, visited);
-                    setter.invoke(object, value);
+                if (root.visited == null) {
+                    root.visited = IdentityTable.acquire();
                 }
+                return root.visited.putIfAbsent(object, object);
+            }
+            Map<Object, Object> stripe = stripes[stripe(object)];
+            Object seen;
+            synchronized (stripe) {
+                seen = stripe.putIfAbsent(object, object);
+            }
+            if (seen == object && (object instanceof Collection<?> || object instanceof Map<?, ?>)) {
+                root.revisited = true;
+            }
+            return seen;
+        }
+
+        /**
+         * Records the cleaned copy of a visited object.
+         *
+         * @param object      The object.
+         * @param replacement The copy.
+         */
+        void replace(Object object, Object replacement) {
+            Map<Object, Object>[] stripes = root.stripes;
+            if (stripes == null) {
+                if (root.visited == null) {
+                    root.visited = IdentityTable.acquire();
+                }
+                root.visited.put(object, replacement);
+                return;
+            }
+            Map<Object, Object> stripe = stripes[stripe(object)];
+            synchronized (stripe) {
+                stripe.put(object, replacement);
+            }
+            synchronized (root.replacements) {
+                root.replacements.put(object, replacement);
             }
-        } catch (Exception ignore) {
-            // Ignore
+        }
+
+        /**
+         * Hands the table of visited objects back for reuse by the next walk
+         * on this thread.
+         */
+        void release() {
+            if (root.visited != null) {
+                root.visited.release();
+                root.visited = null;
+            }
+        }
+
+        /**
+         * Gets the walk applying the given policy, which falls back to this
+         * walk when no cleaner is registered under the name.
+         *
+         * @param policy The name of the policy.
+         * @return The walk.
+         */
+        @Override
+        public Walk withPolicy(String policy) {
+            if (root.policies == null) {
+                root.policies = new HashMap<>();
+            }
+            Walk walk = root.policies.get(policy);
+            if (walk != null) {
+                return walk;
+            }
+            CleanerService cleaner = PolicyRegistry.find(policy);
+            if (cleaner == null) {
+                return this;
+            }
+            walk = new Walk(root, cleaner);
+            root.policies.put(policy, walk);
+            return walk;
+        }
+
+        String[] applyAll(String[] values) {
+            return batch.apply(values);
+        }
+
+        @Override
+        public Object apply(Object value) {
+            return value instanceof String string ? single.apply(string) : cleanRecursive(value, this);
+        }
+
+        @Override
+        public void accept(Object value) {
+            if (!(value instanceof String)) {
+                cleanRecursive(value, this);
+            }
+        }
+
+        @Override
+        public String clean(String value) {
+            return value == null ? null : single.apply(value);
+        }
+
+        @Override
+        public Object cleanNested(Object value) {
+            return value instanceof String ? value : cleanRecursive(value, this);
         }
     }
 
     /**
-     * Cleans the given bean by applying the given sanitizer to its fields.
-     *
-     * @param object    The bean to be cleaned.
-     * @param clazz     The class of the bean.
-     * @param sanitizer The sanitizer to be applied to the bean.
-     * @param visited   The set of visited objects.
+     * A task cleaning a range of elements, split in halves until a range has
+     * at most {@code chunk} elements.
      */
-    private static void cleanBeanFields(Object object, Class<?> clazz, UnaryOperator<String> sanitizer,
-            Set<Object> visited) {
-        try {
-            for (Field field : clazz.getDeclaredFields()) {
-                int modifiers = field.getModifiers();
-                if (Modifier.isStatic(modifiers)) {
-                    continue;
-                }
-                Object value = field.get(object);
-                if (value instanceof String string) {
-                    field.set(object, sanitizer.apply(string));
-                } else {
-                    cleanRecursive(value, sanitizer, visited);
+    private static final class ElementsTask extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Object[] elements;
+
+        private final transient Object[] previous;
+
+        private final int from;
+
+        private final int to;
+
+        private final int chunk;
+
+        private final transient Walk walk;
+
+        /**
+         * Constructs a task.
+         *
+         * @param elements The elements to be cleaned.
+         * @param previous The previous values of the elements, filled at the
+         *                 positions that change.
+         * @param from     The index of the first element, inclusive.
+         * @param to       The index of the last element, exclusive.
+         * @param chunk    The maximum number of elements cleaned by one task.
+         * @param walk     The walk holding the sanitizer and the visited
+         *                 objects.
+         */
+        ElementsTask(Object[] elements, Object[] previous, int from, int to, int chunk, Walk walk) {
+            this.elements = elements;
+            this.previous = previous;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.walk = walk;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (to - from <= chunk) {
+                cleanElements(elements, from, to, previous, walk);
+                for (int i = from; i < to; i++) {
+                    if (previous[i] != null) {
+                        return true;
+                    }
                 }
+                return false;
             }
-        } catch (Exception ignore) {
-            // Ignore
+            int middle = (from + to) >>> 1;
+            ElementsTask left = new ElementsTask(elements, previous, from, middle, chunk, walk);
+            left.fork();
+            boolean right = new ElementsTask(elements, previous, middle, to, chunk, walk).compute();
+            return left.join() | right;
         }
     }
 
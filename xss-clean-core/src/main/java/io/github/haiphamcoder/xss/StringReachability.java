@@ -0,0 +1,238 @@
+package io.github.haiphamcoder.xss;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The StringReachability class tells whether {@link ReflectionCleaner} can
+ * find a String inside an object, so that subtrees holding only numbers,
+ * dates, primitive arrays and the like are not walked.
+ * <p>
+ * The analysis follows the declared types of the fields of a class, resolving
+ * the element type of collections and the value type of maps from their
+ * generic type arguments. It is conservative: a slot whose declared type is
+ * not final may hold a subclass with more fields, so only final classes,
+ * records, primitives and arrays of these are followed, and anything else is
+ * assumed to reach a String. The result for a runtime class is exact for that
+ * class and cached in a {@link ClassValue}.
+ */
+final class StringReachability {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<Boolean> REACHABLE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return reaches(type, new HashSet<>());
+        }
+    };
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private StringReachability() {
+    }
+
+    /**
+     * Checks if an instance of exactly the given class may contain a String
+     * cleaned by the walker.
+     *
+     * @param type The runtime class of the object.
+     * @return False if the object can be skipped.
+     */
+    static boolean canReach(Class<?> type) {
+        return REACHABLE.get(type);
+    }
+
+    /**
+     * Checks if a slot of the given declared type may hold a String, or an
+     * object containing one.
+     *
+     * @param type The declared type of the slot.
+     * @return False if the slot can be skipped.
+     */
+    static boolean canHold(Type type) {
+        return holds(type, new HashSet<>());
+    }
+
+    /**
+     * Checks if an instance of exactly the given class may contain a String.
+     *
+     * @param type       The class.
+     * @param inProgress The classes being analyzed, which are assumed not to
+     *                   reach a String again through a cycle.
+     * @return False if the object can be skipped.
+     */
+    private static boolean reaches(Class<?> type, Set<Class<?>> inProgress) {
+        if (type.isPrimitive() || type == String.class) {
+            return false;
+        }
+        if (type.isArray()) {
+            return holds(type.getComponentType(), inProgress);
+        }
+        if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+            return true;
+        }
+        if (ReflectionCleaner.isJavaType(type)) {
+            return false;
+        }
+        if (!inProgress.add(type)) {
+            return false;
+        }
+        try {
+            for (Class<?> c = type; c != null && c != Object.class && !ReflectionCleaner.isJavaType(c);
+                    c = c.getSuperclass()) {
+                if (isClosed(c)) {
+                    // Bean properties are walked instead of the fields
+                    return true;
+                }
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && holds(field.getGenericType(), inProgress)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            inProgress.remove(type);
+        }
+    }
+
+    /**
+     * Checks if a slot of the given declared type may hold a String, or an
+     * object containing one.
+     *
+     * @param type       The declared type.
+     * @param inProgress The classes being analyzed.
+     * @return False if the slot can be skipped.
+     */
+    private static boolean holds(Type type, Set<Class<?>> inProgress) {
+        if (type instanceof Class<?> c) {
+            if (c.isPrimitive()) {
+                return false;
+            }
+            if (c.isAssignableFrom(String.class)) {
+                return true;
+            }
+            if (c.isArray()) {
+                return holds(c.getComponentType(), inProgress);
+            }
+            if (Collection.class.isAssignableFrom(c) || Map.class.isAssignableFrom(c)) {
+                return containedType(c, inProgress);
+            }
+            // A slot may hold a subclass of its type
+            return !Modifier.isFinal(c.getModifiers()) || reaches(c, inProgress);
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            if (Collection.class.isAssignableFrom(raw) || Map.class.isAssignableFrom(raw)) {
+                return containedType(parameterized, inProgress);
+            }
+            return holds(raw, inProgress);
+        }
+        if (type instanceof GenericArrayType array) {
+            return holds(array.getGenericComponentType(), inProgress);
+        }
+        if (type instanceof WildcardType wildcard) {
+            return wildcard.getLowerBounds().length > 0 || holds(wildcard.getUpperBounds()[0], inProgress);
+        }
+        if (type instanceof TypeVariable<?> variable) {
+            return holds(variable.getBounds()[0], inProgress);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the elements of a collection, or the values of a map, of the
+     * given declared type may hold a String. Map keys are not cleaned.
+     *
+     * @param type       The declared type of the collection or map.
+     * @param inProgress The classes being analyzed.
+     * @return False if the collection or map can be skipped.
+     */
+    private static boolean containedType(Type type, Set<Class<?>> inProgress) {
+        Type element = Map.class.isAssignableFrom(rawClass(type)) ? typeArgument(type, Map.class, 1)
+                : typeArgument(type, Collection.class, 0);
+        return element == null || holds(element, inProgress);
+    }
+
+    /**
+     * Resolves a type argument of a generic supertype.
+     *
+     * @param type   The type, e.g. {@code ArrayList<Integer>}.
+     * @param target The generic supertype, e.g. {@code Collection}.
+     * @param index  The index of the type parameter of the supertype.
+     * @return The type argument, or null if it cannot be resolved.
+     */
+    static Type typeArgument(Type type, Class<?> target, int index) {
+        return search(type, target, index, new HashMap<>());
+    }
+
+    private static Type search(Type type, Class<?> target, int index, Map<TypeVariable<?>, Type> bindings) {
+        Class<?> raw = rawClass(type);
+        if (raw == null || !target.isAssignableFrom(raw)) {
+            return null;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            Type[] arguments = parameterized.getActualTypeArguments();
+            TypeVariable<?>[] variables = raw.getTypeParameters();
+            Map<TypeVariable<?>, Type> resolved = new HashMap<>();
+            for (int i = 0; i < variables.length && i < arguments.length; i++) {
+                Type argument = arguments[i];
+                resolved.put(variables[i], argument instanceof TypeVariable<?> v && bindings.containsKey(v)
+                        ? bindings.get(v) : argument);
+            }
+            bindings = resolved;
+        } else {
+            bindings = Map.of();
+        }
+        if (raw == target) {
+            return bindings.get(target.getTypeParameters()[index]);
+        }
+        Type superclass = raw.getGenericSuperclass();
+        if (superclass != null) {
+            Type found = search(superclass, target, index, bindings);
+            if (found != null) {
+                return found;
+            }
+        }
+        for (Type superinterface : raw.getGenericInterfaces()) {
+            Type found = search(superinterface, target, index, bindings);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class<?> c) {
+            return c;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            return (Class<?>) parameterized.getRawType();
+        }
+        return null;
+    }
+
+    private static boolean isClosed(Class<?> type) {
+        try {
+            MethodHandles.privateLookupIn(type, LOOKUP);
+            return false;
+        } catch (IllegalAccessException e) {
+            return true;
+        }
+    }
+
+}
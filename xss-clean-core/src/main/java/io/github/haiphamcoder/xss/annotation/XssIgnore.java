@@ -0,0 +1,23 @@
+package io.github.haiphamcoder.xss.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Excludes a member, or all instances of a class, from cleaning by
+ * {@link io.github.haiphamcoder.xss.ReflectionCleaner}. Use it for values that
+ * must be kept byte for byte, such as base64 blobs, signed tokens or markdown
+ * sources. An ignored member is neither read nor walked. On a bean property,
+ * the annotation may be placed on the field or on the getter. On a handler
+ * method parameter, it leaves the bound value as-is.
+ */
+@Target({ ElementType.FIELD, ElementType.METHOD, ElementType.TYPE, ElementType.PARAMETER })
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface XssIgnore {
+}
@@ -0,0 +1,33 @@
+package io.github.haiphamcoder.xss.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cleans a member, or all members of a class, with a named policy instead of
+ * the cleaner passed to {@link io.github.haiphamcoder.xss.ReflectionCleaner}.
+ * The policy applies to the Strings of the member and of the collections,
+ * maps and objects reached from it, unless a nested member names another
+ * policy. Policies are looked up in
+ * {@link io.github.haiphamcoder.xss.PolicyRegistry}; a name that is not
+ * registered falls back to the cleaner of the walk. On a bean property, the
+ * annotation may be placed on the field or on the getter. On a handler method
+ * parameter, it selects the policy of the bound value.
+ */
+@Target({ ElementType.FIELD, ElementType.METHOD, ElementType.TYPE, ElementType.PARAMETER })
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface XssPolicy {
+
+    /**
+     * The name of the policy.
+     *
+     * @return The name under which the policy is registered.
+     */
+    String value();
+}
@@ -0,0 +1,21 @@
+package io.github.haiphamcoder.xss.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a DTO class for which the {@code xss-clean-processor} annotation
+ * processor generates a {@link io.github.haiphamcoder.xss.Cleaner} at compile
+ * time. The generated cleaner visits the String, collection, map, array and
+ * nested object members of the class through its getters and setters, or its
+ * non-private fields, and is used by
+ * {@link io.github.haiphamcoder.xss.ReflectionCleaner} instead of reflection.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+@Documented
+public @interface XssSanitized {
+}
@@ -0,0 +1,128 @@
+package io.github.haiphamcoder.xss.policy;
+
+/**
+ * The ComparingAppendable class receives sanitizer output and compares it
+ * character by character with the original input instead of storing it.
+ * <p>
+ * In detecting mode the first difference aborts the sanitizer with a
+ * {@link Mismatch}, so checking unsafe input never builds the cleaned string.
+ * In tracking mode the output is only materialized from the first difference
+ * on, so unchanged input is recognized without a copy or a second comparison.
+ */
+final class ComparingAppendable implements Appendable {
+
+    private static final Mismatch MISMATCH = new Mismatch();
+
+    private final CharSequence expected;
+
+    private final boolean trimmed;
+
+    private final boolean tracking;
+
+    private int position;
+
+    private StringBuilder leading;
+
+    private StringBuilder trailing;
+
+    private StringBuilder output;
+
+    /**
+     * Constructs a new ComparingAppendable.
+     *
+     * @param expected The input the output is expected to equal.
+     * @param trimmed  Whether the engine trims its output, in which case
+     *                 whitespace before and after the expected content is
+     *                 ignored. The expected input must then neither start nor
+     *                 end with whitespace.
+     * @param tracking Whether to keep building the output after the first
+     *                 difference instead of aborting.
+     */
+    ComparingAppendable(CharSequence expected, boolean trimmed, boolean tracking) {
+        this.expected = expected;
+        this.trimmed = trimmed;
+        this.tracking = tracking;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+        if (output != null) {
+            output.append(csq, start, end);
+            return this;
+        }
+        for (int i = start; i < end; i++) {
+            append(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+        if (output != null) {
+            output.append(c);
+        } else if (position < expected.length() && expected.charAt(position) == c) {
+            position++;
+        } else if (trimmed && c <= ' ' && position == 0) {
+            leading = appendTo(leading, c);
+        } else if (trimmed && c <= ' ' && position == expected.length()) {
+            trailing = appendTo(trailing, c);
+        } else if (tracking) {
+            output = new StringBuilder(expected.length() + 16);
+            if (leading != null) {
+                output.append(leading);
+            }
+            output.append(expected, 0, position);
+            if (trailing != null) {
+                output.append(trailing);
+            }
+            output.append(c);
+        } else {
+            throw MISMATCH;
+        }
+        return this;
+    }
+
+    /**
+     * Checks if the output equals the expected input.
+     *
+     * @return True if the output equals the expected input.
+     */
+    boolean matchedAll() {
+        return output == null && position == expected.length();
+    }
+
+    /**
+     * Gets the output received so far, trimmed if the engine trims its output.
+     *
+     * @return The output.
+     */
+    @Override
+    public String toString() {
+        String result = output != null ? output.toString() : expected.subSequence(0, position).toString();
+        return trimmed ? result.trim() : result;
+    }
+
+    private static StringBuilder appendTo(StringBuilder sb, char c) {
+        return (sb == null ? new StringBuilder() : sb).append(c);
+    }
+
+    /**
+     * Signals the first difference between the output and the expected input.
+     * A single instance without stack trace is reused, as it is only used to
+     * stop the sanitizer early.
+     */
+    static final class Mismatch extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private Mismatch() {
+            super("output differs from input", null, false, false);
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package io.github.haiphamcoder.xss.policy;
+
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.ReflectionCleaner;
+
+/**
+ * The EscapeCleanerService class implements the CleanerService interface by
+ * encoding input instead of removing markup. The characters {@code < > & " '}
+ * are replaced by character references, so the output is inert both in
+ * element content and in quoted attribute values, and markup in the input is
+ * displayed rather than interpreted.
+ * <p>
+ * Code points that cannot appear in HTML are removed: control characters other
+ * than tab, line feed and carriage return, unpaired surrogates and the
+ * non-characters U+FFFE and U+FFFF. The line and paragraph separators U+2028
+ * and U+2029, which terminate lines in JavaScript, are encoded as well.
+ * <p>
+ * Input is encoded in a single pass. Nothing is copied until the first
+ * character that needs encoding, and input without such characters is
+ * returned as the same instance.
+ */
+public class EscapeCleanerService implements CleanerService {
+
+    /**
+     * Encodes a raw string input.
+     *
+     * @param raw The raw string input to be encoded.
+     * @return The encoded string, or the input itself if nothing needed
+     *         encoding.
+     */
+    @Override
+    public String clean(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        int n = raw.length();
+        int i = 0;
+        while (i < n && !needsEncoding(raw, i)) {
+            i++;
+        }
+        if (i == n) {
+            return raw;
+        }
+
+        char[] out = new char[n + 16];
+        raw.getChars(0, i, out, 0);
+        int size = i;
+        for (; i < n; i++) {
+            char c = raw.charAt(i);
+            if (out.length - size < 8) {
+                out = grow(out, size + 8);
+            }
+            switch (c) {
+                case '<':
+                    size = append(out, size, "&lt;");
+                    break;
+                case '>':
+                    size = append(out, size, "&gt;");
+                    break;
+                case '&':
+                    size = append(out, size, "&amp;");
+                    break;
+                case '"':
+                    size = append(out, size, "&#34;");
+                    break;
+                case '\'':
+                    size = append(out, size, "&#39;");
+                    break;
+                case '\u2028':
+                    size = append(out, size, "&#x2028;");
+                    break;
+                case '\u2029':
+                    size = append(out, size, "&#x2029;");
+                    break;
+                default:
+                    if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(raw.charAt(i + 1))) {
+                        out[size++] = c;
+                        out[size++] = raw.charAt(++i);
+                    } else if (!isRemoved(c)) {
+                        out[size++] = c;
+                    }
+                    break;
+            }
+        }
+        return new String(out, 0, size);
+    }
+
+    /**
+     * Encodes a raw string input and reports whether it changed.
+     *
+     * @param raw The raw string input to be encoded.
+     * @return The encoded value and whether it differs from the input.
+     */
+    @Override
+    public CleanResult cleanTracked(String raw) {
+        String cleaned = clean(raw);
+        return cleaned == raw ? CleanResult.unchanged(raw) : CleanResult.changed(cleaned);
+    }
+
+    /**
+     * Checks if the given input contains no character that needs encoding.
+     * The input is scanned without being copied.
+     *
+     * @param input The input to check.
+     * @return True if the input is safe as-is, false if encoding would change
+     *         it.
+     */
+    @Override
+    public boolean isSafe(CharSequence input) {
+        if (input == null) {
+            return true;
+        }
+        for (int i = 0; i < input.length(); i++) {
+            if (needsEncoding(input, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cleans an object by encoding its String fields.
+     *
+     * @param object The object to be cleaned.
+     */
+    @Override
+    public void cleanObject(Object object) {
+        ReflectionCleaner.clean(object, this);
+    }
+
+    /**
+     * Checks if the character at the given index is encoded or removed.
+     */
+    private static boolean needsEncoding(CharSequence s, int i) {
+        char c = s.charAt(i);
+        if (c >= 'A') {
+            if (c < Character.MIN_SURROGATE) {
+                return c == '\u2028' || c == '\u2029' || (c >= 0x7F && c <= 0x9F);
+            }
+            if (Character.isHighSurrogate(c)) {
+                return i + 1 == s.length() || !Character.isLowSurrogate(s.charAt(i + 1));
+            }
+            if (Character.isLowSurrogate(c)) {
+                return i == 0 || !Character.isHighSurrogate(s.charAt(i - 1));
+            }
+            return c >= 0xFFFE;
+        }
+        return c == '<' || c == '>' || c == '&' || c == '"' || c == '\'' || isRemoved(c);
+    }
+
+    /**
+     * Checks if a character is removed rather than encoded. Surrogates are
+     * only passed here when they are unpaired.
+     */
+    private static boolean isRemoved(char c) {
+        if (c < ' ') {
+            return c != '\t' && c != '\n' && c != '\r';
+        }
+        return (c >= 0x7F && c <= 0x9F) || Character.isSurrogate(c) || c >= 0xFFFE;
+    }
+
+    private static int append(char[] out, int size, String reference) {
+        reference.getChars(0, reference.length(), out, size);
+        return size + reference.length();
+    }
+
+    private static char[] grow(char[] out, int minCapacity) {
+        char[] grown = new char[Math.max(minCapacity, out.length * 2)];
+        System.arraycopy(out, 0, grown, 0, out.length);
+        return grown;
+    }
+
+}
@@ -1,9 +1,18 @@
 package io.github.haiphamcoder.xss.policy;
 
+import java.io.IOException;
+import java.io.Reader;
+
 import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.safety.Cleaner;
 import org.jsoup.safety.Safelist;
 
+import io.github.haiphamcoder.xss.CleanResult;
 import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.HtmlChunkReader;
 import io.github.haiphamcoder.xss.ReflectionCleaner;
 
 /**
@@ -33,6 +42,8 @@ public class JsoupCleanerService implements CleanerService {
 
     /**
      * Cleans a raw string input by applying the JSoup library.
+     * Inputs containing no character the library would rewrite are returned
+     * as-is without being parsed.
      *
      * @param raw The raw string input to be cleaned.
      * @return The cleaned string.
@@ -42,9 +53,215 @@ public class JsoupCleanerService implements CleanerService {
         if (raw == null) {
             return null;
         }
+        if (PlainTextScanner.JSOUP.isPlainText(raw)) {
+            return raw;
+        }
         return Jsoup.clean(raw, safelist);
     }
 
+    /**
+     * Cleans a batch of raw string inputs by applying the JSoup library. A
+     * single parser, cleaner and output buffer are set up for the batch and
+     * reused for every value that is not plain text.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new array holding the cleaned strings in the same order.
+     */
+    @Override
+    public String[] cleanAll(String[] raws) {
+        if (usesPlaceholderUri()) {
+            return CleanerService.super.cleanAll(raws);
+        }
+
+        String[] cleaned = new String[raws.length];
+        Parser parser = null;
+        Cleaner cleaner = null;
+        StringBuilder buffer = null;
+        for (int i = 0; i < raws.length; i++) {
+            String raw = raws[i];
+            if (raw == null || PlainTextScanner.JSOUP.isPlainText(raw)) {
+                cleaned[i] = raw;
+                continue;
+            }
+            if (parser == null) {
+                parser = Parser.htmlParser();
+                cleaner = new Cleaner(safelist);
+                buffer = new StringBuilder(raw.length());
+            }
+            cleaned[i] = cleanFragment(raw, parser, cleaner, buffer);
+        }
+        return cleaned;
+    }
+
+    /**
+     * Cleans a batch of raw string inputs by applying the JSoup library and
+     * reports for each of them whether it changed. As with
+     * {@link #cleanAll(String[])}, a single parser, cleaner and output buffer
+     * are reused for every value that is not plain text.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new array holding the results in the same order.
+     */
+    @Override
+    public CleanResult[] cleanAllTracked(String[] raws) {
+        if (usesPlaceholderUri()) {
+            return CleanerService.super.cleanAllTracked(raws);
+        }
+
+        CleanResult[] results = new CleanResult[raws.length];
+        Parser parser = null;
+        Cleaner cleaner = null;
+        StringBuilder buffer = null;
+        for (int i = 0; i < raws.length; i++) {
+            String raw = raws[i];
+            if (raw == null || PlainTextScanner.JSOUP.isPlainText(raw)) {
+                results[i] = CleanResult.unchanged(raw);
+                continue;
+            }
+            if (parser == null) {
+                parser = Parser.htmlParser();
+                cleaner = new Cleaner(safelist);
+                buffer = new StringBuilder(raw.length());
+            }
+            String cleaned = cleanFragment(raw, parser, cleaner, buffer);
+            // Input with outer whitespace is always changed by the trim
+            results[i] = !hasOuterWhitespace(raw) && raw.equals(cleaned) ? CleanResult.unchanged(raw)
+                    : CleanResult.changed(cleaned);
+        }
+        return results;
+    }
+
+    /**
+     * Parses and cleans the given input with the same steps as
+     * {@code Jsoup.clean}, reusing the given parser, cleaner and buffer.
+     *
+     * @param raw     The raw string input to be cleaned.
+     * @param parser  The parser to reuse.
+     * @param cleaner The cleaner to reuse.
+     * @param buffer  The buffer to serialize the cleaned body into.
+     * @return The cleaned string.
+     */
+    private static String cleanFragment(String raw, Parser parser, Cleaner cleaner, StringBuilder buffer) {
+        Document dirty = Document.createShell("");
+        Element body = dirty.body();
+        body.appendChildren(parser.parseFragmentInput(raw, body, ""));
+        buffer.setLength(0);
+        cleaner.clean(dirty).body().html(buffer);
+        return buffer.toString().trim();
+    }
+
+    /**
+     * Checks if the given input would pass through the JSoup library
+     * unchanged. The cleaned document is serialized into a comparison with the
+     * input instead of a string, and serializing stops at the first
+     * difference.
+     *
+     * @param input The input to check.
+     * @return True if the input is safe as-is, false if cleaning would change
+     *         it.
+     */
+    @Override
+    public boolean isSafe(CharSequence input) {
+        if (input == null || PlainTextScanner.JSOUP.isPlainText(input)) {
+            return true;
+        }
+        if (usesPlaceholderUri()) {
+            String raw = input.toString();
+            return raw.equals(clean(raw));
+        }
+        if (hasOuterWhitespace(input)) {
+            return false;
+        }
+
+        ComparingAppendable comparison = new ComparingAppendable(input, true, false);
+        try {
+            cleanDocument(input.toString()).body().html(comparison);
+        } catch (ComparingAppendable.Mismatch e) {
+            return false;
+        }
+        return comparison.matchedAll();
+    }
+
+    /**
+     * Cleans a raw string input by applying the JSoup library and reports
+     * whether it changed. The cleaned document is compared with the input
+     * while it is serialized and only copied from the first difference on.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned value and whether it differs from the input.
+     */
+    @Override
+    public CleanResult cleanTracked(String raw) {
+        if (raw == null || PlainTextScanner.JSOUP.isPlainText(raw)) {
+            return CleanResult.unchanged(raw);
+        }
+        if (usesPlaceholderUri()) {
+            return CleanerService.super.cleanTracked(raw);
+        }
+        if (hasOuterWhitespace(raw)) {
+            return CleanResult.changed(clean(raw));
+        }
+
+        ComparingAppendable tracker = new ComparingAppendable(raw, true, true);
+        cleanDocument(raw).body().html(tracker);
+        return tracker.matchedAll() ? CleanResult.unchanged(raw) : CleanResult.changed(tracker.toString());
+    }
+
+    /**
+     * Parses and cleans the given input the same way {@code Jsoup.clean} does.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned document.
+     */
+    private Document cleanDocument(String raw) {
+        return new Cleaner(safelist).clean(Jsoup.parseBodyFragment(raw, ""));
+    }
+
+    /**
+     * Checks if {@code Jsoup.clean} resolves relative links against an
+     * internal placeholder URI, which only its own code path can reproduce.
+     *
+     * @return True if the safelist preserves relative links.
+     */
+    private boolean usesPlaceholderUri() {
+        return safelist.preserveRelativeLinks();
+    }
+
+    /**
+     * Checks if the input starts or ends with whitespace. {@code Jsoup.clean}
+     * trims its output, so such input is always changed.
+     *
+     * @param input The input to check.
+     * @return True if the input starts or ends with whitespace.
+     */
+    private static boolean hasOuterWhitespace(CharSequence input) {
+        return input.length() > 0 && (input.charAt(0) <= ' ' || input.charAt(input.length() - 1) <= ' ');
+    }
+
+    /**
+     * Cleans a character stream by applying the JSoup library. Each chunk is
+     * parsed and cleaned on its own and written without pretty printing, so
+     * whitespace between chunks is preserved. Elements spanning a chunk
+     * boundary are closed at the end of the chunk.
+     *
+     * @param input  The raw character stream to be cleaned.
+     * @param output The destination of the cleaned content.
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    @Override
+    public void clean(Reader input, Appendable output) throws IOException {
+        Document.OutputSettings outputSettings = new Document.OutputSettings().prettyPrint(false);
+        HtmlChunkReader chunks = new HtmlChunkReader(input);
+        String chunk;
+        while ((chunk = chunks.next()) != null) {
+            if (PlainTextScanner.JSOUP.isPlainText(chunk)) {
+                output.append(chunk);
+            } else {
+                output.append(Jsoup.clean(chunk, "", safelist, outputSettings));
+            }
+        }
+    }
+
     /**
      * Cleans an object by applying the JSoup library to its fields.
      *
@@ -52,7 +269,7 @@ public class JsoupCleanerService implements CleanerService {
      */
     @Override
     public void cleanObject(Object object) {
-        ReflectionCleaner.clean(object, this::clean);
+        ReflectionCleaner.clean(object, this);
     }
 
 }
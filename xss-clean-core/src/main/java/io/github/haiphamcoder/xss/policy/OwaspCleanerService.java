@@ -1,18 +1,38 @@
 package io.github.haiphamcoder.xss.policy;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+import org.owasp.html.Handler;
 import org.owasp.html.HtmlPolicyBuilder;
+import org.owasp.html.HtmlSanitizer;
+import org.owasp.html.HtmlStreamEventReceiver;
+import org.owasp.html.HtmlStreamRenderer;
 import org.owasp.html.PolicyFactory;
+import org.owasp.html.TagBalancingHtmlStreamEventReceiver;
 
+import io.github.haiphamcoder.xss.CleanResult;
 import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.HtmlChunkReader;
 import io.github.haiphamcoder.xss.ReflectionCleaner;
 
 /**
  * The OwaspCleanerService class implements the CleanerService interface and
  * provides methods for cleaning and sanitizing input data using the OWASP Java
  * HTML Sanitizer library.
+ * <p>
+ * Apart from {@link #clean(String)}, the methods render through
+ * {@link PolicyFactory#apply} directly, which does not run pre-processors
+ * registered with {@code HtmlPolicyBuilder.withPreprocessor}.
  */
 public class OwaspCleanerService implements CleanerService {
 
+    /**
+     * The element nesting limit HtmlSanitizer applies to a whole document.
+     */
+    private static final int NESTING_LIMIT = 256;
+
     private final PolicyFactory policy;
 
     /**
@@ -33,6 +53,8 @@ public class OwaspCleanerService implements CleanerService {
 
     /**
      * Cleans a raw string input by applying the OWASP Java HTML Sanitizer library.
+     * Inputs containing no character the library would rewrite are returned
+     * as-is without being parsed.
      *
      * @param raw The raw string input to be cleaned.
      * @return The cleaned string.
@@ -42,9 +64,168 @@ public class OwaspCleanerService implements CleanerService {
         if (raw == null) {
             return null;
         }
+        if (PlainTextScanner.OWASP.isPlainText(raw)) {
+            return raw;
+        }
         return policy.sanitize(raw);
     }
 
+    /**
+     * Cleans a batch of raw string inputs by applying the OWASP Java HTML
+     * Sanitizer library. A single renderer, policy and output buffer are set
+     * up for the batch and reused for every value that is not plain text.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new array holding the cleaned strings in the same order.
+     */
+    @Override
+    public String[] cleanAll(String[] raws) {
+        String[] cleaned = new String[raws.length];
+        StringBuilder buffer = null;
+        HtmlSanitizer.Policy batchPolicy = null;
+        for (int i = 0; i < raws.length; i++) {
+            String raw = raws[i];
+            if (raw == null || PlainTextScanner.OWASP.isPlainText(raw)) {
+                cleaned[i] = raw;
+                continue;
+            }
+            if (buffer == null) {
+                buffer = new StringBuilder(raw.length());
+                batchPolicy = policy.apply(HtmlStreamRenderer.create(buffer, Handler.DO_NOTHING));
+            }
+            buffer.setLength(0);
+            HtmlSanitizer.sanitize(raw, batchPolicy);
+            cleaned[i] = buffer.toString();
+        }
+        return cleaned;
+    }
+
+    /**
+     * Cleans a batch of raw string inputs by applying the OWASP Java HTML
+     * Sanitizer library and reports for each of them whether it changed. As
+     * with {@link #cleanAll(String[])}, a single renderer, policy and output
+     * buffer are reused for every value that is not plain text.
+     *
+     * @param raws The raw string inputs to be cleaned.
+     * @return A new array holding the results in the same order.
+     */
+    @Override
+    public CleanResult[] cleanAllTracked(String[] raws) {
+        CleanResult[] results = new CleanResult[raws.length];
+        StringBuilder buffer = null;
+        HtmlSanitizer.Policy batchPolicy = null;
+        for (int i = 0; i < raws.length; i++) {
+            String raw = raws[i];
+            if (raw == null || PlainTextScanner.OWASP.isPlainText(raw)) {
+                results[i] = CleanResult.unchanged(raw);
+                continue;
+            }
+            if (buffer == null) {
+                buffer = new StringBuilder(raw.length());
+                batchPolicy = policy.apply(HtmlStreamRenderer.create(buffer, Handler.DO_NOTHING));
+            }
+            buffer.setLength(0);
+            HtmlSanitizer.sanitize(raw, batchPolicy);
+            results[i] = raw.contentEquals(buffer) ? CleanResult.unchanged(raw)
+                    : CleanResult.changed(buffer.toString());
+        }
+        return results;
+    }
+
+    /**
+     * Checks if the given input would pass through the OWASP Java HTML
+     * Sanitizer library unchanged. The sanitizer output is compared with the
+     * input as it is rendered, and sanitizing stops at the first difference.
+     *
+     * @param input The input to check.
+     * @return True if the input is safe as-is, false if cleaning would change
+     *         it.
+     */
+    @Override
+    public boolean isSafe(CharSequence input) {
+        if (input == null || PlainTextScanner.OWASP.isPlainText(input)) {
+            return true;
+        }
+        ComparingAppendable comparison = new ComparingAppendable(input, false, false);
+        try {
+            render(input.toString(), comparison);
+        } catch (ComparingAppendable.Mismatch e) {
+            return false;
+        }
+        return comparison.matchedAll();
+    }
+
+    /**
+     * Cleans a raw string input by applying the OWASP Java HTML Sanitizer
+     * library and reports whether it changed. The output is compared with the
+     * input while it is rendered and only copied from the first difference
+     * on.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned value and whether it differs from the input.
+     */
+    @Override
+    public CleanResult cleanTracked(String raw) {
+        if (raw == null || PlainTextScanner.OWASP.isPlainText(raw)) {
+            return CleanResult.unchanged(raw);
+        }
+        ComparingAppendable tracker = new ComparingAppendable(raw, false, true);
+        render(raw, tracker);
+        return tracker.matchedAll() ? CleanResult.unchanged(raw) : CleanResult.changed(tracker.toString());
+    }
+
+    /**
+     * Sanitizes the given input and renders the result to the given output.
+     *
+     * @param raw    The raw string input to be cleaned.
+     * @param output The destination of the cleaned content.
+     */
+    private void render(String raw, Appendable output) {
+        HtmlStreamRenderer renderer = HtmlStreamRenderer.create(output, Handler.DO_NOTHING, Handler.DO_NOTHING);
+        HtmlSanitizer.sanitize(raw, policy.apply(renderer));
+    }
+
+    /**
+     * Cleans a character stream by applying the OWASP Java HTML Sanitizer
+     * library. The input is lexed chunk by chunk, while a single tag balancer,
+     * policy and renderer are kept for the whole document, so the output is
+     * the same as for {@link #clean(String)} and is written straight to the
+     * given Appendable.
+     *
+     * @param input  The raw character stream to be cleaned.
+     * @param output The destination of the cleaned content.
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    @Override
+    public void clean(Reader input, Appendable output) throws IOException {
+        IOException[] failure = new IOException[1];
+        HtmlStreamRenderer renderer = HtmlStreamRenderer.create(output, e -> {
+            if (failure[0] == null) {
+                failure[0] = e;
+            }
+        }, Handler.DO_NOTHING);
+        HtmlSanitizer.Policy documentPolicy = policy.apply(renderer);
+        TagBalancingHtmlStreamEventReceiver balancer = new TagBalancingHtmlStreamEventReceiver(documentPolicy);
+        balancer.setNestingLimit(NESTING_LIMIT);
+        // Route the lexer events of every chunk to the document-wide balancer
+        // instead of the one HtmlSanitizer creates per call
+        HtmlStreamEventReceiver chunkReceiver = new ChunkReceiver(balancer);
+
+        balancer.openDocument();
+        HtmlChunkReader chunks = new HtmlChunkReader(input);
+        String chunk;
+        while ((chunk = chunks.next()) != null) {
+            HtmlSanitizer.sanitize(chunk, documentPolicy, perCallBalancer -> chunkReceiver);
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        balancer.closeDocument();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
     /**
      * Cleans an object by applying the OWASP Java HTML Sanitizer library to its
      * fields.
@@ -53,7 +234,45 @@ public class OwaspCleanerService implements CleanerService {
      */
     @Override
     public void cleanObject(Object object) {
-        ReflectionCleaner.clean(object, this::clean);
+        ReflectionCleaner.clean(object, this);
+    }
+
+    /**
+     * A receiver that forwards the events of a single chunk, but keeps the
+     * document open between chunks.
+     */
+    private static final class ChunkReceiver implements HtmlStreamEventReceiver {
+
+        private final HtmlStreamEventReceiver delegate;
+
+        ChunkReceiver(HtmlStreamEventReceiver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void openDocument() {
+            // The document is opened once before the first chunk
+        }
+
+        @Override
+        public void closeDocument() {
+            // The document is closed once after the last chunk
+        }
+
+        @Override
+        public void openTag(String elementName, List<String> attrs) {
+            delegate.openTag(elementName, attrs);
+        }
+
+        @Override
+        public void closeTag(String elementName) {
+            delegate.closeTag(elementName);
+        }
+
+        @Override
+        public void text(String textChunk) {
+            delegate.text(textChunk);
+        }
     }
 
 }
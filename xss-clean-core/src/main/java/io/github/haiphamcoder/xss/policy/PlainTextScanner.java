@@ -0,0 +1,86 @@
+package io.github.haiphamcoder.xss.policy;
+
+/**
+ * The PlainTextScanner class decides whether an input is plain text for a
+ * given sanitizer engine, i.e. whether it contains none of the characters the
+ * engine would rewrite. Plain text can be returned as-is without running the
+ * HTML parser, because the engine would produce an identical string.
+ */
+final class PlainTextScanner {
+
+    private static final int ASCII_LIMIT = 128;
+
+    /**
+     * Everything from the start of the surrogate range upwards is left to the
+     * engines: they re-encode supplementary code points, drop unpaired
+     * surrogates and rewrite several of the specials and fullwidth forms.
+     */
+    private static final char SURROGATE_START = '\uD800';
+
+    /**
+     * Scanner matching the output of the OWASP Java HTML Sanitizer, which
+     * encodes {@code " & ' + < = > @ `}, breaks up {@code {{} sequences and
+     * drops control characters other than tab, line feed and carriage return.
+     */
+    static final PlainTextScanner OWASP = new PlainTextScanner("\"&'+<=>@`{", "\t\n\r", '\u1FEF', false);
+
+    /**
+     * Scanner matching the output of {@code Jsoup.clean}, which escapes
+     * {@code & < >} and the no-break space, and normalizes every run of
+     * whitespace including leading and trailing spaces.
+     */
+    static final PlainTextScanner JSOUP = new PlainTextScanner("&<>", "", '\u00A0', true);
+
+    private final boolean[] significant = new boolean[ASCII_LIMIT];
+
+    private final char significantNonAscii;
+
+    private final boolean normalizesSpaces;
+
+    /**
+     * Constructs a new PlainTextScanner.
+     *
+     * @param specials            The printable ASCII characters the engine rewrites.
+     * @param allowedControls     The control characters the engine keeps as-is.
+     * @param significantNonAscii The single non-ASCII character below the
+     *                            surrogate range the engine rewrites.
+     * @param normalizesSpaces    Whether the engine collapses and trims spaces.
+     */
+    private PlainTextScanner(String specials, String allowedControls, char significantNonAscii,
+            boolean normalizesSpaces) {
+        for (char c = 0; c < ' '; c++) {
+            significant[c] = allowedControls.indexOf(c) < 0;
+        }
+        significant[0x7F] = true;
+        for (int i = 0; i < specials.length(); i++) {
+            significant[specials.charAt(i)] = true;
+        }
+        this.significantNonAscii = significantNonAscii;
+        this.normalizesSpaces = normalizesSpaces;
+    }
+
+    /**
+     * Checks if the given input contains no character the engine would rewrite.
+     *
+     * @param input The input to scan.
+     * @return True if the engine would return the input unchanged, false if the
+     *         input has to go through the engine.
+     */
+    boolean isPlainText(CharSequence input) {
+        int length = input.length();
+        char previous = ' ';
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (c < ASCII_LIMIT) {
+                if (significant[c] || (normalizesSpaces && c == ' ' && previous == ' ')) {
+                    return false;
+                }
+            } else if (c >= SURROGATE_START || c == significantNonAscii) {
+                return false;
+            }
+            previous = c;
+        }
+        return !normalizesSpaces || previous != ' ' || length == 0;
+    }
+
+}
@@ -13,5 +13,15 @@ public enum SanitizerStrategy {
     /**
      * The JSOUP strategy uses the JSoup library to sanitize input data.
      */
-    JSOUP
+    JSOUP,
+    /**
+     * The STRIP_TAGS strategy removes all markup with a single-pass engine,
+     * producing the same output as the OWASP strategy with the NONE policy.
+     */
+    STRIP_TAGS,
+    /**
+     * The ESCAPE strategy encodes markup-significant characters instead of
+     * removing markup.
+     */
+    ESCAPE
 }
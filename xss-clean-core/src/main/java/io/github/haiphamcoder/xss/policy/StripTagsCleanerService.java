@@ -0,0 +1,572 @@
+package io.github.haiphamcoder.xss.policy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.ReflectionCleaner;
+
+/**
+ * The StripTagsCleanerService class implements the CleanerService interface
+ * with a hand-written single-pass engine that removes all markup. Its output
+ * is the same as that of an {@link OwaspCleanerService} with the empty
+ * {@code new HtmlPolicyBuilder().toFactory()} policy: tags, comments and
+ * declarations are dropped, entities are decoded, and text is encoded the
+ * way the OWASP renderer encodes it.
+ * <p>
+ * The engine compares its output with the input while it is produced and only
+ * starts writing, into a per-thread reusable buffer, from the first
+ * difference on. Input with nothing to strip is returned as the same
+ * instance. Constructs whose handling depends on the full OWASP lexer or
+ * tag balancer, such as raw text elements, table and list structures, unusual
+ * entity references or unterminated markup, are handed to the OWASP engine
+ * instead.
+ */
+public class StripTagsCleanerService implements CleanerService {
+
+    /**
+     * Elements whose content the OWASP engine drops or does not parse as
+     * markup, and containers in which it drops whitespace depending on the
+     * element structure, indexed by name length. Input containing them is
+     * left to the OWASP engine.
+     */
+    private static final String[][] SPECIAL_ELEMENTS = byLength("script", "style", "title", "iframe", "noembed",
+            "noframes", "noscript", "nostyle", "object", "comment", "textarea", "xmp", "listing", "plaintext",
+            "html", "head", "frameset", "frame", "table", "caption", "thead", "tbody", "tfoot", "tr", "td", "th",
+            "colgroup", "col", "ul", "ol", "li", "select", "option", "template", "bgsound");
+
+    /**
+     * Buffers larger than this are not kept for reuse after a call.
+     */
+    private static final int MAX_RETAINED_BUFFER = 1 << 16;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * ASCII characters the OWASP renderer writes as they are.
+     */
+    private static final boolean[] VERBATIM = new boolean[0x80];
+
+    static {
+        for (char c = ' '; c < 0x80; c++) {
+            VERBATIM[c] = "\"&'+<=>@`{".indexOf(c) < 0;
+        }
+        VERBATIM['\t'] = true;
+        VERBATIM['\n'] = true;
+        VERBATIM['\r'] = true;
+    }
+
+    private static final ThreadLocal<Stripper> STRIPPER = ThreadLocal.withInitial(Stripper::new);
+
+    private final OwaspCleanerService fallback = new OwaspCleanerService();
+
+    /**
+     * Cleans a raw string input by removing all markup.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned string, or the input itself if nothing was removed
+     *         or encoded.
+     */
+    @Override
+    public String clean(String raw) {
+        if (raw == null || PlainTextScanner.OWASP.isPlainText(raw)) {
+            return raw;
+        }
+        String cleaned = STRIPPER.get().strip(raw);
+        return cleaned != null ? cleaned : fallback.clean(raw);
+    }
+
+    /**
+     * Cleans a raw string input by removing all markup and reports whether it
+     * changed.
+     *
+     * @param raw The raw string input to be cleaned.
+     * @return The cleaned value and whether it differs from the input.
+     */
+    @Override
+    public CleanResult cleanTracked(String raw) {
+        if (raw == null || PlainTextScanner.OWASP.isPlainText(raw)) {
+            return CleanResult.unchanged(raw);
+        }
+        String cleaned = STRIPPER.get().strip(raw);
+        if (cleaned == null) {
+            return fallback.cleanTracked(raw);
+        }
+        return cleaned == raw ? CleanResult.unchanged(raw) : CleanResult.changed(cleaned);
+    }
+
+    /**
+     * Checks if the given input contains nothing to strip or encode.
+     *
+     * @param input The input to check.
+     * @return True if the input is safe as-is, false if cleaning would change
+     *         it.
+     */
+    @Override
+    public boolean isSafe(CharSequence input) {
+        if (input == null || PlainTextScanner.OWASP.isPlainText(input)) {
+            return true;
+        }
+        String raw = input.toString();
+        String cleaned = STRIPPER.get().strip(raw);
+        return cleaned != null ? cleaned == raw : fallback.isSafe(raw);
+    }
+
+    /**
+     * Cleans a character stream with the OWASP engine, which keeps track of
+     * elements across chunk boundaries.
+     *
+     * @param input  The raw character stream to be cleaned.
+     * @param output The destination of the cleaned content.
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    @Override
+    public void clean(Reader input, Appendable output) throws IOException {
+        fallback.clean(input, output);
+    }
+
+    /**
+     * Cleans an object by removing all markup from its String fields.
+     *
+     * @param object The object to be cleaned.
+     */
+    @Override
+    public void cleanObject(Object object) {
+        ReflectionCleaner.clean(object, this);
+    }
+
+    private static String[][] byLength(String... names) {
+        int maxLength = 0;
+        for (String name : names) {
+            maxLength = Math.max(maxLength, name.length());
+        }
+        String[][] table = new String[maxLength + 1][0];
+        for (String name : names) {
+            String[] group = table[name.length()];
+            group = Arrays.copyOf(group, group.length + 1);
+            group[group.length - 1] = name;
+            table[name.length()] = group;
+        }
+        return table;
+    }
+
+    private static boolean isVerbatim(char c) {
+        if (c < 0x80) {
+            return VERBATIM[c];
+        }
+        return c < Character.MIN_SURROGATE ? c != '\u1FEF' : c > Character.MAX_SURROGATE && c < 0xFE60;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isTagSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Checks if a character following a {@code '{'} is emitted as ordinary
+     * text. The OWASP renderer breaks up {@code '{'} before another
+     * {@code '{'} and at the end of a text run, which is left to the OWASP
+     * engine.
+     */
+    private static boolean isOrdinaryAfterBrace(char c) {
+        if (c < ' ') {
+            return c == '\t' || c == '\n' || c == '\r';
+        }
+        return c != '{' && c != '<' && c != '&' && c < Character.MIN_SURROGATE;
+    }
+
+    /**
+     * The per-thread state of one stripping pass. Output is compared with the
+     * input until it first differs and only then copied into the buffer.
+     */
+    private static final class Stripper {
+
+        private char[] buffer = new char[256];
+
+        private String input;
+
+        private int matched;
+
+        private int size;
+
+        private boolean diverged;
+
+        /**
+         * Strips all markup from the given input.
+         *
+         * @param raw The input.
+         * @return The stripped string, the input itself if it is unchanged, or
+         *         null if the input must be handled by the OWASP engine.
+         */
+        String strip(String raw) {
+            input = raw;
+            matched = 0;
+            size = 0;
+            diverged = false;
+            try {
+                return run(raw) ? result() : null;
+            } finally {
+                input = null;
+                if (buffer.length > MAX_RETAINED_BUFFER) {
+                    buffer = new char[256];
+                }
+            }
+        }
+
+        private boolean run(String s) {
+            int n = s.length();
+            int i = 0;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (isVerbatim(c)) {
+                    int end = i + 1;
+                    while (end < n && isVerbatim(s.charAt(end))) {
+                        end++;
+                    }
+                    copy(s, i, end);
+                    i = end;
+                } else if (c == '<') {
+                    int end = skipMarkup(s, i);
+                    if (end < 0) {
+                        return false;
+                    }
+                    if (end == i) {
+                        write("&lt;");
+                        i++;
+                    } else {
+                        i = end;
+                    }
+                } else if (c == '&') {
+                    i = decodeReference(s, i);
+                    if (i < 0) {
+                        return false;
+                    }
+                } else if (c == '{') {
+                    if (i + 1 == n || !isOrdinaryAfterBrace(s.charAt(i + 1))) {
+                        return false;
+                    }
+                    write('{');
+                    i++;
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    emit(Character.toCodePoint(c, s.charAt(i + 1)));
+                    i += 2;
+                } else {
+                    emit(c);
+                    i++;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Skips the markup starting at a {@code '<'}.
+         *
+         * @return The index after the markup, the given index if the
+         *         {@code '<'} is text, or -1 if the OWASP engine must decide.
+         */
+        private int skipMarkup(String s, int start) {
+            int n = s.length();
+            if (start + 1 == n) {
+                return start;
+            }
+            char next = s.charAt(start + 1);
+            if (isAsciiLetter(next)) {
+                return skipTag(s, start + 1);
+            }
+            if (next == '/') {
+                if (start + 2 == n) {
+                    return start;
+                }
+                char first = s.charAt(start + 2);
+                if (isAsciiLetter(first)) {
+                    return skipTag(s, start + 2);
+                }
+                return first < 0x80 ? start : -1;
+            }
+            if (next == '!') {
+                if (s.startsWith("--", start + 2)) {
+                    int close = s.indexOf("-->", start + 4);
+                    return close < 0 ? -1 : close + 3;
+                }
+                return start + 2 < n && isAsciiLetter(s.charAt(start + 2)) ? skipDeclaration(s, start + 2) : -1;
+            }
+            if (next == '?') {
+                return skipDeclaration(s, start + 2);
+            }
+            return start;
+        }
+
+        /**
+         * Skips a start or end tag from its name on.
+         */
+        private int skipTag(String s, int nameStart) {
+            int n = s.length();
+            int i = nameStart;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (c == '>' || c == '/' || isTagSpace(c)) {
+                    break;
+                }
+                if (c == '"' || c == '\'' || c == '<') {
+                    return -1;
+                }
+                i++;
+            }
+            if (isSpecialElement(s, nameStart, i)) {
+                return -1;
+            }
+
+            // A quote only opens a value at the start of a token; elsewhere
+            // the OWASP lexer's reading is left to the OWASP engine
+            boolean tokenStart = false;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (c == '>') {
+                    return i + 1;
+                }
+                if (c == '"' || c == '\'') {
+                    if (!tokenStart) {
+                        return -1;
+                    }
+                    int close = s.indexOf(c, i + 1);
+                    if (close < 0) {
+                        return -1;
+                    }
+                    i = close + 1;
+                } else {
+                    tokenStart = c == '=' || isTagSpace(c);
+                    i++;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Skips a declaration or processing instruction up to its {@code '>'}.
+         */
+        private int skipDeclaration(String s, int from) {
+            for (int i = from; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '>') {
+                    return i + 1;
+                }
+                if (c == '"' || c == '\'') {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isSpecialElement(String s, int start, int end) {
+            int length = end - start;
+            if (length >= SPECIAL_ELEMENTS.length) {
+                return false;
+            }
+            for (String name : SPECIAL_ELEMENTS[length]) {
+                if (s.regionMatches(true, start, name, 0, length)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Decodes the character reference starting at an {@code '&'} and
+         * emits its value.
+         *
+         * @return The index after the reference, or -1 if the OWASP engine
+         *         must decode it.
+         */
+        private int decodeReference(String s, int start) {
+            int n = s.length();
+            int i = start + 1;
+            if (i == n) {
+                write("&amp;");
+                return i;
+            }
+            char c = s.charAt(i);
+            if (c == '#') {
+                return decodeNumericReference(s, start);
+            }
+            if (!isAsciiLetter(c)) {
+                write("&amp;");
+                return i;
+            }
+            if (s.startsWith("amp;", i)) {
+                write("&amp;");
+                return i + 4;
+            }
+            if (s.startsWith("lt;", i)) {
+                write("&lt;");
+                return i + 3;
+            }
+            if (s.startsWith("gt;", i)) {
+                write("&gt;");
+                return i + 3;
+            }
+            if (s.startsWith("quot;", i)) {
+                write("&#34;");
+                return i + 5;
+            }
+            if (s.startsWith("apos;", i)) {
+                write("&#39;");
+                return i + 5;
+            }
+            if (s.startsWith("nbsp;", i)) {
+                emit('\u00A0');
+                return i + 5;
+            }
+            return -1;
+        }
+
+        private int decodeNumericReference(String s, int start) {
+            int n = s.length();
+            int i = start + 2;
+            int radix = 10;
+            if (i < n && (s.charAt(i) == 'x' || s.charAt(i) == 'X')) {
+                radix = 16;
+                i++;
+            }
+            int digitsStart = i;
+            int value = 0;
+            while (i < n && Character.digit(s.charAt(i), radix) >= 0 && s.charAt(i) < 0x80) {
+                value = value * radix + Character.digit(s.charAt(i), radix);
+                if (value > Character.MAX_CODE_POINT) {
+                    return -1;
+                }
+                i++;
+            }
+            if (i == digitsStart) {
+                write("&amp;");
+                return start + 1;
+            }
+            if (i == n || s.charAt(i) != ';' || value == '{'
+                    || (value >= Character.MIN_SURROGATE && value <= Character.MAX_SURROGATE)) {
+                return -1;
+            }
+            emit(value);
+            return i + 1;
+        }
+
+        /**
+         * Encodes a code point the way the OWASP renderer does.
+         */
+        private void emit(int c) {
+            switch (c) {
+                case '"':
+                    write("&#34;");
+                    return;
+                case '&':
+                    write("&amp;");
+                    return;
+                case '\'':
+                    write("&#39;");
+                    return;
+                case '+':
+                    write("&#43;");
+                    return;
+                case '<':
+                    write("&lt;");
+                    return;
+                case '=':
+                    write("&#61;");
+                    return;
+                case '>':
+                    write("&gt;");
+                    return;
+                case '@':
+                    write("&#64;");
+                    return;
+                case '`':
+                    write("&#96;");
+                    return;
+                case '\u1FEF':
+                    write("&#8175;");
+                    return;
+                default:
+                    break;
+            }
+            if (c < ' ') {
+                if (c == '\t' || c == '\n' || c == '\r') {
+                    write((char) c);
+                }
+            } else if (c < 0xFE60) {
+                if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+                    write((char) c);
+                }
+            } else if (c != 0xFFFE && c != 0xFFFF) {
+                writeHexReference(c);
+            }
+        }
+
+        private void writeHexReference(int c) {
+            write("&#x");
+            int shift = (31 - Integer.numberOfLeadingZeros(c)) & ~3;
+            for (; shift >= 0; shift -= 4) {
+                write(HEX[(c >>> shift) & 0xF]);
+            }
+            write(';');
+        }
+
+        /**
+         * Writes a range of the input that needs no encoding.
+         */
+        private void copy(String s, int start, int end) {
+            if (!diverged && matched == start) {
+                matched = end;
+            } else if (diverged) {
+                ensureCapacity(size + end - start);
+                s.getChars(start, end, buffer, size);
+                size += end - start;
+            } else {
+                for (int i = start; i < end; i++) {
+                    write(s.charAt(i));
+                }
+            }
+        }
+
+        private void write(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                write(s.charAt(i));
+            }
+        }
+
+        private void write(char c) {
+            if (!diverged) {
+                if (matched < input.length() && input.charAt(matched) == c) {
+                    matched++;
+                    return;
+                }
+                diverged = true;
+                ensureCapacity(Math.max(matched + 16, input.length()));
+                input.getChars(0, matched, buffer, 0);
+                size = matched;
+            }
+            if (size == buffer.length) {
+                ensureCapacity(size + 1);
+            }
+            buffer[size++] = c;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buffer.length) {
+                char[] grown = new char[Math.max(capacity, buffer.length * 2)];
+                System.arraycopy(buffer, 0, grown, 0, size);
+                buffer = grown;
+            }
+        }
+
+        private String result() {
+            if (diverged) {
+                return new String(buffer, 0, size);
+            }
+            return matched == input.length() ? input : input.substring(0, matched);
+        }
+    }
+
+}
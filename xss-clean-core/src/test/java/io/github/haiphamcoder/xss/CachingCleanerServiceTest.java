@@ -0,0 +1,131 @@
+package io.github.haiphamcoder.xss;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingCleanerServiceTest {
+
+    @Test
+    void testCachedResultMatchesDelegate() {
+        CleanerService delegate = new OwaspCleanerService();
+        CachingCleanerService cache = new CachingCleanerService(delegate, 1 << 16, 256);
+
+        String raw = "<script>alert('XSS')</script><b>Hello</b>";
+        String first = cache.clean(raw);
+        String second = cache.clean(raw);
+
+        assertEquals(delegate.clean(raw), first);
+        assertSame(first, second);
+        assertEquals(1, cache.getStats().getHitCount());
+        assertEquals(1, cache.getStats().getMissCount());
+        assertNull(cache.clean(null));
+
+        assertTrue(cache.isSafe("Hello"));
+        assertFalse(cache.isSafe(raw));
+        assertEquals(2, cache.getStats().getHitCount());
+        assertEquals(2, cache.getStats().getMissCount());
+    }
+
+    @Test
+    void testLongInputsBypassCache() {
+        CountingCleaner delegate = new CountingCleaner();
+        CachingCleanerService cache = new CachingCleanerService(delegate, 1 << 16, 8);
+
+        cache.clean("0123456789");
+        cache.clean("0123456789");
+
+        assertEquals(2, delegate.calls.get());
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(0, cache.getStats().getMissCount());
+    }
+
+    @Test
+    void testWeightIsBounded() {
+        CachingCleanerService cache = new CachingCleanerService(new CountingCleaner(), 16 * 100, 256);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.clean("value-" + i);
+        }
+
+        CachingCleanerService.CacheStats stats = cache.getStats();
+        assertTrue(stats.getWeight() <= 16 * 100, stats.toString());
+        assertTrue(stats.getEvictionCount() > 0, stats.toString());
+        assertEquals(10_000, stats.getMissCount());
+    }
+
+    @Test
+    void testFrequentEntriesSurviveScan() {
+        CountingCleaner delegate = new CountingCleaner();
+        CachingCleanerService cache = new CachingCleanerService(delegate, 16 * 200, 256);
+
+        List<String> hot = List.of("en-US", "User-Agent: Mozilla/5.0", "ACTIVE", "vi-VN");
+        for (int round = 0; round < 2; round++) {
+            hot.forEach(cache::clean);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            cache.clean(UUID.randomUUID().toString());
+        }
+
+        int before = delegate.calls.get();
+        hot.forEach(cache::clean);
+        assertEquals(before, delegate.calls.get());
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        CachingCleanerService cache = new CachingCleanerService(new OwaspCleanerService(), 1 << 12, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    Random random = new Random();
+                    for (int i = 0; i < 20_000; i++) {
+                        String raw = "<b>" + random.nextInt(500) + "</b>";
+                        assertEquals(raw.substring(3, raw.length() - 4), cache.clean(raw));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        CachingCleanerService.CacheStats stats = cache.getStats();
+        assertEquals(8 * 20_000, stats.getHitCount() + stats.getMissCount());
+        assertTrue(stats.getWeight() <= 1 << 12);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        CleanerService delegate = new OwaspCleanerService();
+        assertThrows(IllegalArgumentException.class, () -> new CachingCleanerService(null, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> new CachingCleanerService(delegate, -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new CachingCleanerService(delegate, 10, -1));
+    }
+
+    private static class CountingCleaner implements CleanerService {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String clean(String raw) {
+            calls.incrementAndGet();
+            return raw == null ? null : raw.toUpperCase(Locale.ROOT);
+        }
+
+        @Override
+        public void cleanObject(Object object) {
+            ReflectionCleaner.clean(object, this::clean);
+        }
+    }
+}
@@ -5,6 +5,9 @@ import org.owasp.html.PolicyFactory;
 import org.owasp.html.Sanitizers;
 import org.jsoup.safety.Safelist;
 
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+import io.github.haiphamcoder.xss.policy.EscapeCleanerService;
 import io.github.haiphamcoder.xss.policy.JsoupCleanerService;
 import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
 
@@ -161,12 +164,343 @@ class CleanerServiceTest {
         assertTrue(obj2.name.contains("Object2"));
     }
 
+    @Test
+    void testCleanObjectCleansEachContainerAsOneBatch() {
+        List<Integer> batchSizes = new ArrayList<>();
+        CleanerService cleaner = new OwaspCleanerService() {
+            @Override
+            public String[] cleanAll(String[] raws) {
+                batchSizes.add(raws.length);
+                return super.cleanAll(raws);
+            }
+        };
+
+        TestObjectWithCollections testObject = new TestObjectWithCollections();
+        testObject.list = new ArrayList<>(List.of("<b>a</b>", "b", "<i>c</i>"));
+        testObject.map = new HashMap<>(Map.of("k1", "<b>v1</b>", "k2", "v2"));
+
+        cleaner.cleanObject(testObject);
+
+        assertEquals(List.of("a", "b", "c"), testObject.list);
+        assertEquals(Map.of("k1", "v1", "k2", "v2"), testObject.map);
+        assertEquals(List.of(3, 2), batchSizes);
+    }
+
+    @Test
+    void testCleanObjectCoversSuperclassFields() {
+        DerivedObject object = new DerivedObject();
+        object.baseName = "<b>base</b>";
+        object.name = "<i>derived</i>";
+
+        new OwaspCleanerService().cleanObject(object);
+
+        assertEquals("base", object.baseName);
+        assertEquals("derived", object.name);
+    }
+
+    @Test
+    void testCleanObjectSanitizesEachValueOnce() {
+        PropertyObject object = new PropertyObject();
+        object.setValue("value");
+        object.setComputed("computed");
+
+        ReflectionCleaner.clean(object, value -> value + "!");
+
+        assertEquals("value!", object.getValue());
+        assertEquals("computed!", object.getComputed());
+    }
+
+    @Test
+    void testCleanObjectCleansPrivateFields() {
+        PrivateFieldObject object = new PrivateFieldObject("<b>first</b>", "<i>second</i>");
+        object.nested.baseName = "<b>nested</b>";
+
+        new OwaspCleanerService().cleanObject(object);
+
+        assertEquals("first", object.first());
+        assertEquals("<i>second</i>", object.second()); // final fields are not written
+        assertEquals("nested", object.nested.baseName);
+    }
+
+    @Test
+    void testCleanObjectReadsRecordComponents() {
+        BaseObject nested = new BaseObject();
+        nested.baseName = "<b>x</b>";
+        HolderRecord holder = new HolderRecord("<i>kept</i>", nested);
+
+        new OwaspCleanerService().cleanObject(holder);
+
+        assertEquals("<i>kept</i>", holder.label());
+        assertEquals("x", nested.baseName);
+    }
+
+    @Test
+    void testCleanPlanIsComputedOncePerClass() {
+        CleanPlan plan = CleanPlan.of(DerivedObject.class);
+
+        assertSame(plan, CleanPlan.of(DerivedObject.class));
+        assertSame(CleanPlan.of(BaseObject.class), CleanPlan.of(BaseObject.class));
+    }
+
+    @Test
+    void testCleanPlanVisitsPrivateMembers() {
+        PrivateFieldObject object = new PrivateFieldObject("<b>first</b>", "<i>second</i>");
+        object.nested.baseName = "<b>nested</b>";
+        List<Object> walked = new ArrayList<>();
+
+        new CleanPlan(PrivateFieldObject.class).clean(object, new CleanPlan.Visitor() {
+            @Override
+            public Object apply(Object value) {
+                return ((String) value).toUpperCase();
+            }
+
+            @Override
+            public void accept(Object value) {
+                walked.add(value);
+            }
+        });
+
+        assertEquals("<B>FIRST</B>", object.first());
+        assertEquals(List.of("<i>second</i>", object.nested), walked);
+    }
+
+    @Test
+    void testCleanObjectDoesNotWriteUnchangedValues() {
+        CountingObject object = new CountingObject();
+        object.setSafe("safe");
+        object.setUnsafe("<b>unsafe</b>");
+
+        new OwaspCleanerService().cleanObject(object);
+
+        assertEquals("safe", object.getSafe());
+        assertEquals("unsafe", object.getUnsafe());
+        assertEquals(2, object.writes); // fields are written directly, not through the setters
+    }
+
+    @Test
+    void testCleanObjectCleansFieldsBehindCopyingGetters() {
+        CopyingObject object = new CopyingObject();
+        object.setTags(new ArrayList<>(List.of("<b>a</b>", "b")));
+        object.setName("<i>name</i>");
+        BaseObject inner = new BaseObject();
+        inner.baseName = "<b>inner</b>";
+        object.setInner(inner);
+
+        new OwaspCleanerService().cleanObject(object);
+
+        assertEquals(List.of("a", "b"), object.getTags());
+        assertEquals("name", object.getName());
+        assertEquals("inner", object.getInner().baseName);
+    }
+
+    @Test
+    void testCleanObjectRebuildsUnmodifiableContainers() {
+        ContainerObject object = new ContainerObject();
+        object.list = List.of("<b>a</b>", "b");
+        object.shared = object.list;
+        object.set = Set.of("<i>s</i>");
+        object.map = Map.of("k", "<b>v</b>");
+        List<String> safe = List.of("safe");
+        object.safe = safe;
+
+        new OwaspCleanerService().cleanObject(object);
+
+        assertEquals(List.of("a", "b"), object.list);
+        assertSame(object.list, object.shared);
+        assertEquals(Set.of("s"), object.set);
+        assertEquals(Map.of("k", "v"), object.map);
+        assertSame(safe, object.safe);
+    }
+
+    @Test
+    void testCleanObjectUpdatesModifiableContainersInPlace() {
+        ContainerObject object = new ContainerObject();
+        ArrayList<String> list = new ArrayList<>(List.of("<b>a</b>", "b"));
+        object.list = list;
+        LinkedHashSet<String> set = new LinkedHashSet<>(List.of("x", "<i>s</i>", "y"));
+        object.set = set;
+        HashMap<String, String> map = new HashMap<>(Map.of("k", "<b>v</b>", "safe", "w"));
+        object.map = map;
+        List<Object> nested = new ArrayList<>(List.of(List.of("<b>n</b>")));
+        object.nested = nested;
+
+        new OwaspCleanerService().cleanObject(object);
+
+        assertSame(list, object.list);
+        assertEquals(List.of("a", "b"), list);
+        assertSame(set, object.set);
+        assertEquals(Set.of("x", "s", "y"), set);
+        assertSame(map, object.map);
+        assertEquals(Map.of("k", "v", "safe", "w"), map);
+        assertSame(nested, object.nested);
+        assertEquals(List.of(List.of("n")), nested);
+    }
+
+    @Test
+    void testCleanPlanRecordsWhetherTypeOnlyHoldsStrings() {
+        assertTrue(CleanPlan.of(TreeLeaf.class).isFlat());
+        assertTrue(CleanPlan.of(DerivedObject.class).isFlat());
+        assertFalse(CleanPlan.of(TreeObject.class).isFlat());
+        assertFalse(CleanPlan.of(TestObjectWithCollections.class).isFlat());
+        assertFalse(CleanPlan.of(CircularRefObject.class).isFlat());
+        assertFalse(CleanPlan.of(SharedObject.class).isFlat());
+    }
+
+    @Test
+    void testCleanObjectCleansSharedObjectsOnce() {
+        TreeLeaf leaf = new TreeLeaf("Tom & Jerry");
+        List<String> tags = new ArrayList<>(List.of("a<b"));
+        SharedObject object = new SharedObject();
+        object.first = leaf;
+        object.second = leaf;
+        object.tags = tags;
+        object.sameTags = tags;
+
+        new EscapeCleanerService().cleanObject(object);
+
+        assertEquals("Tom &amp; Jerry", leaf.text);
+        assertEquals(List.of("a&lt;b"), tags);
+    }
+
+    @Test
+    void testCleanObjectWalksTree() {
+        TreeObject tree = new TreeObject();
+        tree.name = "<b>root</b>";
+        tree.leaves = new ArrayList<>(List.of(new TreeLeaf("<i>a</i>"), new TreeLeaf("b")));
+        tree.byName = new HashMap<>(Map.of("c", new TreeLeaf("<b>c</b>")));
+        tree.array = new TreeLeaf[] { new TreeLeaf("<i>d</i>") };
+
+        new OwaspCleanerService().cleanObject(tree);
+
+        assertEquals("root", tree.name);
+        assertEquals("a", tree.leaves.get(0).text);
+        assertEquals("b", tree.leaves.get(1).text);
+        assertEquals("c", tree.byName.get("c").text);
+        assertEquals("d", tree.array[0].text);
+    }
+
+    @Test
+    void testCleanObjectHonorsXssIgnore() {
+        AnnotatedObject object = new AnnotatedObject();
+        object.plain = "<b>plain</b>";
+        object.token = "<b>token</b>";
+        object.setBlob("<b>blob</b>");
+        IgnoredObject ignored = new IgnoredObject();
+        ignored.value = "<b>ignored</b>";
+        object.nested = ignored;
+
+        new OwaspCleanerService().cleanObject(object);
+
+        assertEquals("plain", object.plain);
+        assertEquals("<b>token</b>", object.token);
+        assertEquals("<b>blob</b>", object.getBlob());
+        assertEquals("<b>ignored</b>", ignored.value);
+    }
+
+    @Test
+    void testCleanObjectAppliesNamedPolicies() {
+        PolicyRegistry.register("test-formatting", new OwaspCleanerService(Sanitizers.FORMATTING));
+        try {
+            AnnotatedObject object = new AnnotatedObject();
+            object.plain = "<b>plain</b>";
+            object.rich = "<b>rich</b><script>x</script>";
+            object.richList = new ArrayList<>(List.of("<i>item</i>"));
+            object.unknown = "<b>unknown</b>";
+            RichObject nested = new RichObject();
+            nested.value = "<b>nested</b>";
+            object.nested = nested;
+
+            new OwaspCleanerService().cleanObject(object);
+
+            assertEquals("plain", object.plain);
+            assertEquals("<b>rich</b>", object.rich);
+            assertEquals(List.of("<i>item</i>"), object.richList);
+            assertEquals("unknown", object.unknown);
+            assertEquals("<b>nested</b>", nested.value);
+        } finally {
+            PolicyRegistry.unregister("test-formatting");
+        }
+    }
+
+    @Test
+    void testCleanPlanResolvesAnnotations() {
+        assertTrue(CleanPlan.of(IgnoredObject.class).isIgnored());
+        assertFalse(CleanPlan.of(AnnotatedObject.class).isIgnored());
+        assertEquals("test-formatting", CleanPlan.of(RichObject.class).getPolicy());
+        assertNull(CleanPlan.of(AnnotatedObject.class).getPolicy());
+    }
+
     // Test helper classes
     static class TestObjectWithCollections {
         List<String> list;
         Map<String, String> map;
     }
 
+    static class TreeObject {
+        String name;
+        List<TreeLeaf> leaves;
+        Map<String, ? extends TreeLeaf> byName;
+        TreeLeaf[] array;
+        int depth;
+    }
+
+    static class SharedObject {
+        TreeLeaf first;
+        TreeLeaf second;
+        List<String> tags;
+        List<String> sameTags;
+    }
+
+    static final class TreeLeaf {
+        String text;
+
+        TreeLeaf(String text) {
+            this.text = text;
+        }
+    }
+
+    public static class AnnotatedObject {
+        String plain;
+        @XssIgnore
+        String token;
+        private String blob;
+        @XssPolicy("test-formatting")
+        String rich;
+        @XssPolicy("test-formatting")
+        List<String> richList;
+        @XssPolicy("missing")
+        String unknown;
+        Object nested;
+
+        @XssIgnore
+        public String getBlob() {
+            return blob;
+        }
+
+        public void setBlob(String blob) {
+            this.blob = blob;
+        }
+    }
+
+    @XssIgnore
+    static class IgnoredObject {
+        String value;
+    }
+
+    @XssPolicy("test-formatting")
+    static class RichObject {
+        String value;
+    }
+
+    static class ContainerObject {
+        List<String> list;
+        List<String> shared;
+        List<String> safe;
+        Set<String> set;
+        Map<String, String> map;
+        List<Object> nested;
+    }
+
     static class TestObjectWithArray {
         String[] array;
     }
@@ -175,4 +509,112 @@ class CleanerServiceTest {
         String name;
         CircularRefObject ref;
     }
+
+    static class BaseObject {
+        String baseName;
+        int count;
+    }
+
+    static class DerivedObject extends BaseObject {
+        String name;
+    }
+
+    public static class PropertyObject {
+        private String value;
+        private String[] parts = new String[1];
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public String getComputed() {
+            return parts[0];
+        }
+
+        public void setComputed(String computed) {
+            parts[0] = computed;
+        }
+    }
+
+    static class PrivateFieldObject {
+        private String first;
+        private final String second;
+        private final BaseObject nested = new BaseObject();
+
+        PrivateFieldObject(String first, String second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        String first() {
+            return first;
+        }
+
+        String second() {
+            return second;
+        }
+    }
+
+    record HolderRecord(String label, BaseObject nested) {
+    }
+
+    public static class CopyingObject {
+        private List<String> tags;
+        private String name;
+        private BaseObject inner;
+
+        public List<String> getTags() {
+            return new ArrayList<>(tags);
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BaseObject getInner() {
+            BaseObject copy = new BaseObject();
+            copy.baseName = inner.baseName;
+            return copy;
+        }
+
+        public void setInner(BaseObject inner) {
+            this.inner = inner;
+        }
+    }
+
+    public static class CountingObject {
+        private String safe;
+        private String unsafe;
+        int writes;
+
+        public String getSafe() {
+            return safe;
+        }
+
+        public void setSafe(String safe) {
+            this.safe = safe;
+            writes++;
+        }
+
+        public String getUnsafe() {
+            return unsafe;
+        }
+
+        public void setUnsafe(String unsafe) {
+            this.unsafe = unsafe;
+            writes++;
+        }
+    }
 }
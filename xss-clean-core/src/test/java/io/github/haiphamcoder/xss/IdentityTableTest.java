@@ -0,0 +1,72 @@
+package io.github.haiphamcoder.xss;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class IdentityTableTest {
+
+    @Test
+    void testKeysAreComparedByIdentity() {
+        IdentityTable table = new IdentityTable();
+        String first = new String("key");
+        String second = new String("key");
+
+        assertNull(table.putIfAbsent(first, first));
+        assertNull(table.putIfAbsent(second, second));
+        assertSame(first, table.putIfAbsent(first, "other"));
+        table.put(second, "copy");
+        assertEquals("copy", table.putIfAbsent(second, second));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void testGrowsBeyondInitialCapacity() {
+        IdentityTable table = new IdentityTable();
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Object key = new Object();
+            keys.add(key);
+            assertNull(table.putIfAbsent(key, key));
+        }
+
+        assertEquals(10_000, table.size());
+        for (Object key : keys) {
+            assertSame(key, table.putIfAbsent(key, "other"));
+        }
+    }
+
+    @Test
+    void testReleasedTableIsReusedEmpty() {
+        IdentityTable table = IdentityTable.acquire();
+        Object key = new Object();
+        table.putIfAbsent(key, key);
+        table.release();
+
+        IdentityTable reused = IdentityTable.acquire();
+        assertSame(table, reused);
+        assertEquals(0, reused.size());
+        assertNull(reused.putIfAbsent(key, key));
+        assertNotSame(reused, IdentityTable.acquire());
+        reused.release();
+    }
+
+    @Test
+    void testLargeTableIsNotRetained() {
+        IdentityTable table = IdentityTable.acquire();
+        for (int i = 0; i < 10_000; i++) {
+            Object key = new Object();
+            table.putIfAbsent(key, key);
+        }
+        table.release();
+
+        assertNotSame(table, IdentityTable.acquire());
+    }
+
+}
@@ -0,0 +1,180 @@
+package io.github.haiphamcoder.xss;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCleanerServiceTest {
+
+    @Test
+    void testLargeListIsCleanedInParallel() {
+        Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+        CleanerService delegate = new BracketCleaner() {
+            @Override
+            public String clean(String raw) {
+                threads.add(Thread.currentThread().getName());
+                return super.clean(raw);
+            }
+        };
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            items.add(new Item("v" + i));
+        }
+
+        try (ParallelCleanerService cleaner = new ParallelCleanerService(delegate, 64, 4)) {
+            cleaner.cleanObject(items);
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals("[v" + i + "]", items.get(i).value);
+        }
+        assertTrue(threads.size() > 1, threads::toString);
+    }
+
+    @Test
+    void testSharedObjectsAreCleanedOnce() {
+        BracketCleaner delegate = new BracketCleaner();
+        Item shared = new Item("shared");
+        List<String> unmodifiable = List.of("a", "b");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Item item = new Item("v" + i);
+            item.self = item;
+            item.shared = shared;
+            item.tags = unmodifiable;
+            items.add(item);
+        }
+        items.add(shared);
+
+        try (ParallelCleanerService cleaner = new ParallelCleanerService(delegate, 16, 4)) {
+            cleaner.cleanObject(items);
+        }
+
+        assertEquals("[shared]", shared.value);
+        assertEquals(2_000 + 1 + 2, delegate.calls.get());
+        List<String> copy = items.get(0).tags;
+        assertEquals(List.of("[a]", "[b]"), copy);
+        for (Item item : items.subList(0, 2_000)) {
+            assertSame(copy, item.tags);
+        }
+    }
+
+    @Test
+    void testObjectsVisitedBeforeSplitAreCleanedOnce() {
+        BracketCleaner delegate = new BracketCleaner();
+        Item shared = new Item("shared");
+        shared.tags = List.of("a", "b");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Item item = new Item("v" + i);
+            item.shared = shared;
+            item.tags = shared.tags;
+            items.add(item);
+        }
+        // The small outer list is walked on the calling thread, so the shared
+        // item and its copied tags are recorded before the large list is split
+        List<Object> outer = new ArrayList<>(List.of(shared, items));
+
+        try (ParallelCleanerService cleaner = new ParallelCleanerService(delegate, 16, 4)) {
+            cleaner.cleanObject(outer);
+        }
+
+        assertEquals("[shared]", shared.value);
+        assertEquals(1 + 2 + 2_000, delegate.calls.get());
+        assertEquals(List.of("[a]", "[b]"), shared.tags);
+        for (Item item : items) {
+            assertSame(shared.tags, item.tags);
+        }
+    }
+
+    @Test
+    void testMatchesSequentialCleaning() {
+        CleanerService delegate = new OwaspCleanerService();
+        String[] parallel = new String[1_000];
+        String[] sequential = new String[1_000];
+        for (int i = 0; i < parallel.length; i++) {
+            parallel[i] = sequential[i] = "<script>alert(" + i + ")</script><b>" + i + "</b>";
+        }
+
+        try (ParallelCleanerService cleaner = new ParallelCleanerService(delegate, 100, 0)) {
+            cleaner.cleanObject(parallel);
+        }
+        delegate.cleanObject(sequential);
+
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test
+    void testSmallContainersStayOnCallingThread() {
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+        CleanerService delegate = new BracketCleaner() {
+            @Override
+            public String[] cleanAll(String[] raws) {
+                threads.add(Thread.currentThread());
+                return super.cleanAll(raws);
+            }
+        };
+        List<String> values = new ArrayList<>(List.of("a", "b", "c"));
+
+        try (ParallelCleanerService cleaner = new ParallelCleanerService(delegate, 4, 2)) {
+            cleaner.cleanObject(values);
+        }
+
+        assertEquals(List.of("[a]", "[b]", "[c]"), values);
+        assertEquals(Set.of(Thread.currentThread()), threads);
+    }
+
+    @Test
+    void testCloseShutsDownDedicatedPoolOnly() {
+        ParallelCleanerService dedicated = new ParallelCleanerService(new BracketCleaner(), 2, 2);
+        ParallelCleanerService common = new ParallelCleanerService(new BracketCleaner(), 2, 0);
+
+        dedicated.close();
+        common.close();
+
+        assertTrue(dedicated.getPool().isShutdown());
+        assertFalse(common.getPool().isShutdown());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        CleanerService delegate = new BracketCleaner();
+        assertThrows(IllegalArgumentException.class, () -> new ParallelCleanerService(null, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelCleanerService(delegate, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelCleanerService(delegate, 2, -1));
+    }
+
+    static class Item {
+        String value;
+        Item self;
+        Item shared;
+        List<String> tags;
+
+        Item(String value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * A cleaner that is not idempotent, so a value cleaned twice is visible.
+     */
+    static class BracketCleaner implements CleanerService {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String clean(String raw) {
+            calls.incrementAndGet();
+            return raw == null ? null : "[" + raw + "]";
+        }
+
+        @Override
+        public void cleanObject(Object object) {
+            ReflectionCleaner.clean(object, this);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package io.github.haiphamcoder.xss;
+
+import org.junit.jupiter.api.Test;
+import org.owasp.html.PolicyFactory;
+import org.owasp.html.Sanitizers;
+import org.jsoup.safety.Safelist;
+
+import io.github.haiphamcoder.xss.policy.JsoupCleanerService;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCleanTest {
+
+    private static final String ARTICLE_BLOCK = "<p>Hello <b>world</b> &amp; friends "
+            + "<a href=\"http://example.com\" onclick=\"alert(1)\">link</a></p>\n"
+            + "<script>var s = '</p><b>not markup</b>';</script><!-- a <b>comment</b> -->"
+            + "<img src=x onerror=alert(1)><table><tr><td>cell</td></tr></table>\n";
+
+    @Test
+    void testChunksConcatenateToInput() throws IOException {
+        String document = ARTICLE_BLOCK.repeat(50);
+        for (int chunkSize : new int[] { 1, 7, 64, 1000 }) {
+            HtmlChunkReader chunks = new HtmlChunkReader(new StringReader(document), chunkSize);
+            StringBuilder joined = new StringBuilder();
+            String chunk;
+            while ((chunk = chunks.next()) != null) {
+                assertFalse(chunk.isEmpty());
+                assertCutInText(chunk);
+                joined.append(chunk);
+            }
+            assertEquals(document, joined.toString());
+        }
+    }
+
+    @Test
+    void testUnterminatedConstructsAreCutAtTheLimit() throws IOException {
+        int chunkSize = 512;
+        for (String open : List.of("<!--", "<a title=\"", "<script>", "<x")) {
+            String document = "<p>a</p> " + open + "x".repeat(10_000);
+            HtmlChunkReader chunks = new HtmlChunkReader(new StringReader(document), chunkSize);
+            StringBuilder joined = new StringBuilder();
+            String chunk;
+            while ((chunk = chunks.next()) != null) {
+                assertTrue(chunk.length() <= chunkSize * HtmlChunkReader.MAX_CARRY_FACTOR, open);
+                joined.append(chunk);
+            }
+            assertEquals(document, joined.toString());
+        }
+    }
+
+    @Test
+    void testOwaspStreamingMatchesStringClean() throws IOException {
+        PolicyFactory policy = Sanitizers.FORMATTING.and(Sanitizers.LINKS).and(Sanitizers.BLOCKS)
+                .and(Sanitizers.TABLES);
+        for (CleanerService cleaner : List.of(new OwaspCleanerService(), new OwaspCleanerService(policy))) {
+            String document = "<div>" + ARTICLE_BLOCK.repeat(500) + "</div>";
+            StringBuilder output = new StringBuilder();
+            cleaner.clean(new StringReader(document), output);
+
+            assertEquals(cleaner.clean(document), output.toString());
+        }
+    }
+
+    @Test
+    void testJsoupStreamingRemovesUnsafeContent() throws IOException {
+        CleanerService cleaner = new JsoupCleanerService(Safelist.basic());
+        String document = ARTICLE_BLOCK.repeat(500);
+        StringBuilder output = new StringBuilder();
+        cleaner.clean(new StringReader(document), output);
+
+        String cleaned = output.toString();
+        assertFalse(cleaned.contains("<script"));
+        assertFalse(cleaned.contains("onerror"));
+        assertFalse(cleaned.contains("onclick"));
+        assertFalse(cleaned.contains("comment"));
+        assertTrue(cleaned.contains("<b>world</b> &amp; friends"));
+    }
+
+    @Test
+    void testDefaultStreamingUsesStringClean() throws IOException {
+        CleanerService cleaner = new CleanerService() {
+            @Override
+            public String clean(String raw) {
+                return raw.toUpperCase(Locale.ROOT);
+            }
+
+            @Override
+            public void cleanObject(Object object) {
+                ReflectionCleaner.clean(object, this::clean);
+            }
+        };
+        StringBuilder output = new StringBuilder();
+        cleaner.clean(new StringReader("<p>abc</p> def"), output);
+
+        assertEquals("<P>ABC</P> DEF", output.toString());
+    }
+
+    @Test
+    void testLargeDocumentWithSmallHeap() throws Exception {
+        for (String engine : List.of("owasp", "jsoup")) {
+            runLargeDocument(engine, "article", 32L * 1024 * 1024);
+        }
+    }
+
+    @Test
+    void testUnterminatedCommentWithSmallHeap() throws Exception {
+        for (String engine : List.of("owasp", "jsoup")) {
+            runLargeDocument(engine, "comment", 32L * 1024 * 1024);
+        }
+    }
+
+    private static void runLargeDocument(String engine, String document, long size) throws Exception {
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(java.toString(), "-Xmx32m", "-cp",
+                System.getProperty("java.class.path"), LargeDocument.class.getName(), engine, document,
+                String.valueOf(size))
+                .redirectErrorStream(true)
+                .start();
+        String log = new String(process.getInputStream().readAllBytes());
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES), engine);
+        assertEquals(0, process.exitValue(), engine + " " + document + ": " + log);
+    }
+
+    private static void assertCutInText(String chunk) {
+        int lastOpen = chunk.lastIndexOf('<');
+        assertTrue(lastOpen < 0 || chunk.indexOf('>', lastOpen) > 0 || chunk.endsWith("<"),
+                () -> "chunk ends inside a tag: " + chunk);
+        assertEquals(count(chunk, "<script"), count(chunk, "</script"), () -> "chunk splits a script: " + chunk);
+        assertEquals(count(chunk, "<!--"), count(chunk, "-->"), () -> "chunk splits a comment: " + chunk);
+    }
+
+    private static int count(String haystack, String needle) {
+        int count = 0;
+        for (int i = haystack.indexOf(needle); i >= 0; i = haystack.indexOf(needle, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Sanitizes a generated document that is far larger than the heap of the
+     * JVM it runs in. The comment document opens a comment that is never
+     * closed.
+     */
+    static final class LargeDocument {
+
+        public static void main(String[] args) throws IOException {
+            CleanerService cleaner = "jsoup".equals(args[0]) ? new JsoupCleanerService(Safelist.basic())
+                    : new OwaspCleanerService(Sanitizers.FORMATTING.and(Sanitizers.LINKS));
+            boolean comment = "comment".equals(args[1]);
+            long size = Long.parseLong(args[2]);
+            CountingAppendable output = new CountingAppendable();
+
+            cleaner.clean(new RepeatingReader(comment ? "<!-- <p>x</p> " : ARTICLE_BLOCK, size), output);
+
+            if ((!comment && output.length == 0) || output.length >= size) {
+                throw new IllegalStateException("unexpected output length " + output.length);
+            }
+        }
+    }
+
+    /**
+     * A reader producing the given block over and over up to a total size.
+     */
+    private static final class RepeatingReader extends Reader {
+
+        private final String block;
+
+        private long remaining;
+
+        private int position;
+
+        RepeatingReader(String block, long size) {
+            this.block = block;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = (int) Math.min(Math.min(len, remaining), block.length() - position);
+            block.getChars(position, position + count, cbuf, off);
+            position = (position + count) % block.length();
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+    }
+
+    /**
+     * An Appendable that discards its content and only counts characters.
+     */
+    private static final class CountingAppendable implements Appendable {
+
+        private long length;
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            length += csq.length();
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            length += end - start;
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            length++;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.haiphamcoder.xss;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class StringReachabilityTest {
+
+    @Test
+    void testNumericAndTemporalTypesAreNotReachable() {
+        assertFalse(StringReachability.canReach(Integer.class));
+        assertFalse(StringReachability.canReach(LocalDate.class));
+        assertFalse(StringReachability.canReach(byte[].class));
+        assertFalse(StringReachability.canReach(double[][].class));
+        assertFalse(StringReachability.canReach(Long[][].class));
+        assertFalse(StringReachability.canReach(GeoPoint.class));
+        assertFalse(StringReachability.canReach(Matrix.class));
+        assertFalse(StringReachability.canReach(Polygon.class));
+    }
+
+    @Test
+    void testTypesHoldingStringsAreReachable() {
+        assertTrue(StringReachability.canReach(Object[].class));
+        assertTrue(StringReachability.canReach(ArrayList.class));
+        assertTrue(StringReachability.canReach(Place.class));
+        assertTrue(StringReachability.canReach(Node.class));
+        // The declared types are not final, so a subclass may hold a String
+        assertTrue(StringReachability.canReach(Amount.class));
+        assertTrue(StringReachability.canHold(Shape.class));
+        assertFalse(StringReachability.canReach(Shape.class));
+    }
+
+    @Test
+    void testCollectionElementTypesAreResolved() throws NoSuchFieldException {
+        assertFalse(StringReachability.canHold(Fields.class.getDeclaredField("numbers").getGenericType()));
+        assertFalse(StringReachability.canHold(Fields.class.getDeclaredField("byName").getGenericType()));
+        assertFalse(StringReachability.canHold(Fields.class.getDeclaredField("points").getGenericType()));
+        assertFalse(StringReachability.canHold(Fields.class.getDeclaredField("bounded").getGenericType()));
+        assertTrue(StringReachability.canHold(Fields.class.getDeclaredField("names").getGenericType()));
+        assertTrue(StringReachability.canHold(Fields.class.getDeclaredField("raw").getGenericType()));
+        assertTrue(StringReachability.canHold(Fields.class.getDeclaredField("unknown").getGenericType()));
+    }
+
+    @Test
+    void testCleanObjectSkipsSubtreesWithoutStrings() {
+        Place place = new Place();
+        place.name = "<b>Home</b>";
+        place.shape = new GeoShape();
+        List<Object> visited = new ArrayList<>();
+
+        new CleanPlan(Place.class).clean(place, new CleanPlan.Visitor() {
+            @Override
+            public Object apply(Object value) {
+                return value;
+            }
+
+            @Override
+            public void accept(Object value) {
+                visited.add(value);
+            }
+        });
+
+        // The polygon field is pruned, the shape may be a subclass holding strings
+        assertEquals(List.of(place.shape), visited);
+    }
+
+    record GeoPoint(double latitude, double longitude) {
+    }
+
+    static final class Matrix {
+        double[][] cells;
+        List<List<Double>> rows;
+        Map<String, Double[]> columns;
+        LocalDate date;
+    }
+
+    static final class Polygon {
+        List<GeoPoint> points;
+        Matrix bounds;
+        Points more;
+    }
+
+    static final class Points extends ArrayList<GeoPoint> {
+    }
+
+    static class Shape {
+        int sides;
+    }
+
+    static class GeoShape extends Shape {
+        String label;
+    }
+
+    static final class Place {
+        String name;
+        Polygon polygon;
+        Shape shape;
+    }
+
+    static final class Node {
+        Node next;
+        String value;
+    }
+
+    static final class Amount {
+        BigDecimal value;
+    }
+
+    static class Fields<T extends Number> {
+        List<Integer> numbers;
+        Map<String, Long> byName;
+        Points points;
+        List<? extends GeoPoint> bounded;
+        List<String> names;
+        @SuppressWarnings("rawtypes")
+        List raw;
+        List<T> unknown;
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.haiphamcoder.xss.policy;
+
+import org.jsoup.safety.Safelist;
+import org.junit.jupiter.api.Test;
+import org.owasp.html.PolicyFactory;
+import org.owasp.html.Sanitizers;
+
+import io.github.haiphamcoder.xss.CachingCleanerService;
+import io.github.haiphamcoder.xss.CleanerService;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests checking that {@link CleanerService#cleanAll(String[])}
+ * agrees with {@link CleanerService#clean(String)} applied to each value,
+ * while the engines reuse their state across the batch.
+ */
+class CleanAllTest {
+
+    private static final String[] TOKENS = {
+            "text", " ", "  ", "\n", "\t", "&", "&amp;", "&lt;", "<", ">", "\"", "'", "=", "@", "{",
+            "<b>", "</b>", "<i>", "</i>", "<p>", "</p>", "<br>", "<br />", "<script>", "</script>", "alert(1)",
+            "<a href=\"http://example.com\">", "<a href=\"javascript:alert(1)\">", "</a>", "<img src=x onerror=y>",
+            "<a href=\"/relative\">", "<!-- c -->", "<table>", "<tr>", "<td>", "</td>", "<textarea>", "<style>",
+            "\u00A0", "\u00E9", "\uD83D\uDE00"
+    };
+
+    @Test
+    void testOwaspAgreesWithClean() {
+        PolicyFactory richPolicy = Sanitizers.FORMATTING.and(Sanitizers.LINKS).and(Sanitizers.BLOCKS)
+                .and(Sanitizers.TABLES);
+        assertAgreesWithClean(new OwaspCleanerService());
+        assertAgreesWithClean(new OwaspCleanerService(richPolicy));
+    }
+
+    @Test
+    void testJsoupAgreesWithClean() {
+        assertAgreesWithClean(new JsoupCleanerService());
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.basic()));
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.relaxed()));
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.relaxed().preserveRelativeLinks(true)));
+    }
+
+    @Test
+    void testOtherStrategiesAgreeWithClean() {
+        assertAgreesWithClean(new StripTagsCleanerService());
+        assertAgreesWithClean(new EscapeCleanerService());
+    }
+
+    @Test
+    void testCacheAgreesWithClean() {
+        CachingCleanerService cached = new CachingCleanerService(new OwaspCleanerService(Sanitizers.FORMATTING),
+                4096, 64);
+        assertAgreesWithClean(cached);
+        assertAgreesWithClean(cached);
+        assertTrue(cached.getStats().getHitCount() > 0);
+    }
+
+    @Test
+    void testKeepsNullsAndUnchangedInstances() {
+        String plain = "plain text";
+        String[] raws = { null, plain, "<b>x</b>", null };
+
+        String[] cleaned = new OwaspCleanerService().cleanAll(raws);
+
+        assertArrayEquals(new String[] { null, plain, "x", null }, cleaned);
+        assertSame(plain, cleaned[1]);
+        assertNotSame(raws, cleaned);
+        assertEquals(0, new JsoupCleanerService().cleanAll(new String[0]).length);
+    }
+
+    @Test
+    void testCleanAllList() {
+        List<String> cleaned = new JsoupCleanerService().cleanAll(Arrays.asList("<i>a</i>", null, "b"));
+
+        assertEquals(Arrays.asList("a", null, "b"), cleaned);
+    }
+
+    private static void assertAgreesWithClean(CleanerService service) {
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            String[] raws = new String[random.nextInt(12)];
+            for (int j = 0; j < raws.length; j++) {
+                if (random.nextInt(10) == 0) {
+                    continue;
+                }
+                StringBuilder sb = new StringBuilder();
+                int count = random.nextInt(6);
+                for (int k = 0; k < count; k++) {
+                    sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+                }
+                raws[j] = sb.toString();
+            }
+
+            String[] cleaned = service.cleanAll(raws);
+
+            assertEquals(raws.length, cleaned.length);
+            for (int j = 0; j < raws.length; j++) {
+                String raw = raws[j];
+                assertEquals(service.clean(raw), cleaned[j], () -> "input: " + raw);
+            }
+        }
+    }
+}
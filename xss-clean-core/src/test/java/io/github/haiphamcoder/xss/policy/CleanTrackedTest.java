@@ -0,0 +1,113 @@
+package io.github.haiphamcoder.xss.policy;
+
+import org.jsoup.safety.Safelist;
+import org.junit.jupiter.api.Test;
+import org.owasp.html.PolicyFactory;
+import org.owasp.html.Sanitizers;
+
+import io.github.haiphamcoder.xss.CachingCleanerService;
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.CleanerService;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests checking that {@link CleanerService#cleanTracked(String)}
+ * agrees with {@link CleanerService#clean(String)} and returns the original
+ * instance for unchanged input.
+ */
+class CleanTrackedTest {
+
+    private static final String[] TOKENS = {
+            "text", " ", "  ", "\n", "\t", "&", "&amp;", "&lt;", "<", ">", "\"", "'", "=", "@", "{",
+            "<b>", "</b>", "<i>", "</i>", "<p>", "</p>", "<br>", "<br />", "<script>", "</script>", "alert(1)",
+            "<a href=\"http://example.com\">", "<a href=\"javascript:alert(1)\">", "</a>", "<img src=x onerror=y>",
+            "<!-- c -->", "<table>", "<tr>", "<td>", "</td>", "\u00A0", "\u00E9", "\uD83D\uDE00"
+    };
+
+    @Test
+    void testOwaspAgreesWithClean() {
+        PolicyFactory richPolicy = Sanitizers.FORMATTING.and(Sanitizers.LINKS).and(Sanitizers.BLOCKS)
+                .and(Sanitizers.TABLES);
+        assertAgreesWithClean(new OwaspCleanerService());
+        assertAgreesWithClean(new OwaspCleanerService(richPolicy));
+    }
+
+    @Test
+    void testJsoupAgreesWithClean() {
+        assertAgreesWithClean(new JsoupCleanerService());
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.basic()));
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.relaxed()));
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.relaxed().preserveRelativeLinks(true)));
+    }
+
+    @Test
+    void testCacheAgreesWithClean() {
+        CleanerService cached = new CachingCleanerService(new OwaspCleanerService(Sanitizers.FORMATTING), 4096, 64);
+        assertAgreesWithClean(cached);
+        assertAgreesWithClean(cached);
+    }
+
+    @Test
+    void testBatchAgreesWithCleanTracked() {
+        CleanerService cached = new CachingCleanerService(new OwaspCleanerService(Sanitizers.FORMATTING), 4096, 64);
+        List<CleanerService> services = List.of(new OwaspCleanerService(),
+                new OwaspCleanerService(Sanitizers.FORMATTING.and(Sanitizers.LINKS)), new JsoupCleanerService(),
+                new JsoupCleanerService(Safelist.basic()), cached);
+        for (CleanerService service : services) {
+            Random random = new Random(13);
+            String[] inputs = new String[500];
+            for (int i = 0; i < inputs.length; i++) {
+                StringBuilder sb = new StringBuilder();
+                int count = random.nextInt(4);
+                for (int j = 0; j < count; j++) {
+                    sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+                }
+                inputs[i] = i % 50 == 0 ? null : sb.toString();
+            }
+            for (int round = 0; round < 2; round++) {
+                CleanResult[] results = service.cleanAllTracked(inputs);
+                for (int i = 0; i < inputs.length; i++) {
+                    String input = inputs[i];
+                    CleanResult expected = service.cleanTracked(input);
+                    assertEquals(expected.getValue(), results[i].getValue(), () -> "input: " + input);
+                    assertEquals(expected.isChanged(), results[i].isChanged(), () -> "input: " + input);
+                    if (!results[i].isChanged()) {
+                        assertSame(input, results[i].getValue(), () -> "input: " + input);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testNullInput() {
+        CleanResult result = new OwaspCleanerService().cleanTracked(null);
+
+        assertNull(result.getValue());
+        assertFalse(result.isChanged());
+        assertNull(new JsoupCleanerService().cleanTracked(null).getValue());
+    }
+
+    private static void assertAgreesWithClean(CleanerService service) {
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(6);
+            for (int j = 0; j < count; j++) {
+                sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            String input = sb.toString();
+            String cleaned = service.clean(input);
+            CleanResult result = service.cleanTracked(input);
+
+            assertEquals(cleaned, result.getValue(), () -> "input: " + input);
+            assertEquals(!input.equals(cleaned), result.isChanged(), () -> "input: " + input);
+            if (!result.isChanged()) {
+                assertSame(input, result.getValue(), () -> "input: " + input);
+            }
+        }
+    }
+}
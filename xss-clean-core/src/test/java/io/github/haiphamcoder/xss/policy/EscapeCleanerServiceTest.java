@@ -0,0 +1,101 @@
+package io.github.haiphamcoder.xss.policy;
+
+import org.jsoup.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.CleanerService;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EscapeCleanerService}.
+ */
+class EscapeCleanerServiceTest {
+
+    private final CleanerService escaper = new EscapeCleanerService();
+
+    @Test
+    void testEncodesMarkupCharacters() {
+        assertEquals("&lt;script&gt;alert(&#34;x&#39;)&lt;/script&gt;",
+                escaper.clean("<script>alert(\"x')</script>"));
+        assertEquals("Tom &amp; Jerry", escaper.clean("Tom & Jerry"));
+        assertEquals("&amp;lt;", escaper.clean("&lt;"));
+        assertEquals("a&#x2028;b&#x2029;c", escaper.clean("a\u2028b\u2029c"));
+    }
+
+    @Test
+    void testRemovesInvalidCodePoints() {
+        assertEquals("ab\t\n\r", escaper.clean("a\u0000\u0001b\t\n\r"));
+        assertEquals("ab", escaper.clean("a\u007F\u0085\u009Fb"));
+        assertEquals("ab", escaper.clean("a\uFFFE\uFFFFb"));
+        assertEquals("ab", escaper.clean("a\uD83Db"));
+        assertEquals("ab", escaper.clean("a\uDE00b"));
+        assertEquals("", escaper.clean("\uDE00\uD83D"));
+        assertEquals("&lt;\uD83D\uDE00", escaper.clean("<\uD83D\uDE00"));
+    }
+
+    @Test
+    void testReturnsInputInstanceWhenUnchanged() {
+        String plain = "Hello, world = 5 + 10% {x} @you `code` \u00E9\u00A0\uD83D\uDE00\uFFFD";
+
+        assertSame(plain, escaper.clean(plain));
+        assertSame(plain, escaper.cleanTracked(plain).getValue());
+        assertFalse(escaper.cleanTracked(plain).isChanged());
+        assertTrue(escaper.isSafe(plain));
+        assertNull(escaper.clean(null));
+        assertTrue(escaper.isSafe(null));
+    }
+
+    @Test
+    void testEveryCharacter() {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            assertConsistent("x" + (char) c + "y");
+            assertConsistent("" + (char) c);
+        }
+    }
+
+    @Test
+    void testEncodingRoundTrips() {
+        String alphabet = "ab <>&\"'=;#x\t\n\u00E9\u2028\u2029\uFFFD";
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(12);
+            for (int j = 0; j < count; j++) {
+                if (random.nextInt(8) == 0) {
+                    sb.appendCodePoint(0x10000 + random.nextInt(0x100000));
+                } else {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            String input = sb.toString();
+            String escaped = assertConsistent(input);
+            assertEquals(input, Parser.unescapeEntities(escaped, false), input);
+        }
+    }
+
+    @Test
+    void testLongInputsGrowTheBuffer() {
+        String input = "<>".repeat(10_000);
+        assertEquals("&lt;&gt;".repeat(10_000), escaper.clean(input));
+    }
+
+    private String assertConsistent(String input) {
+        String escaped = escaper.clean(input);
+        CleanResult result = escaper.cleanTracked(input);
+        assertEquals(escaped, result.getValue());
+        assertEquals(!input.equals(escaped), result.isChanged());
+        assertEquals(input.equals(escaped), escaper.isSafe(input));
+        if (input.equals(escaped)) {
+            assertSame(input, escaped);
+        }
+        for (int i = 0; i < escaped.length(); i++) {
+            char c = escaped.charAt(i);
+            assertTrue(c != '<' && c != '>' && c != '"' && c != '\'');
+        }
+        return escaped;
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.haiphamcoder.xss.policy;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.junit.jupiter.api.Test;
+import org.owasp.html.HtmlPolicyBuilder;
+import org.owasp.html.PolicyFactory;
+import org.owasp.html.Sanitizers;
+
+import io.github.haiphamcoder.xss.CleanerService;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests checking that the plain text fast path returns exactly
+ * what the underlying engine would return.
+ */
+class PlainTextScannerTest {
+
+    private static final String ALPHABET = "aZ09 -_.:/,;!?#$%()*[]^|~\\{}\"&'+<=>@`\t\n\r\u0000\u0007\u007F"
+            + "\u00A0\u00E9\u1EA1\u1FEF\u2028\u3000\u4E2D\uD83D\uDE00\uD800\uFEFF\uFFFD\uFFFF";
+
+    private static final String[] PLAIN_TOKENS = {
+            "550e8400-e29b-41d4-a716-446655440000", "12345", "-42.5e10", "en-US", "ACTIVE",
+            "Nguy\u1EC5n V\u0103n A", "\u4E2D\u6587\u5B57\u7B26", "path/to/resource.json", "a b c"
+    };
+
+    @Test
+    void testOwaspMatchesEngine() {
+        PolicyFactory defaultPolicy = new HtmlPolicyBuilder().toFactory();
+        PolicyFactory richPolicy = Sanitizers.FORMATTING.and(Sanitizers.LINKS).and(Sanitizers.BLOCKS)
+                .and(Sanitizers.STYLES).and(Sanitizers.TABLES).and(Sanitizers.IMAGES);
+
+        assertMatchesEngine(new OwaspCleanerService(), defaultPolicy::sanitize);
+        assertMatchesEngine(new OwaspCleanerService(richPolicy), richPolicy::sanitize);
+    }
+
+    @Test
+    void testJsoupMatchesEngine() {
+        for (Safelist safelist : List.of(Safelist.none(), Safelist.basic(), Safelist.relaxed())) {
+            assertMatchesEngine(new JsoupCleanerService(safelist), raw -> Jsoup.clean(raw, safelist));
+        }
+    }
+
+    @Test
+    void testPlainTokensReturnSameInstance() {
+        CleanerService owasp = new OwaspCleanerService();
+        CleanerService jsoup = new JsoupCleanerService();
+        for (String token : PLAIN_TOKENS) {
+            assertSame(token, owasp.clean(token), token);
+            assertSame(token, jsoup.clean(token), token);
+        }
+
+        String email = "alice@example.com";
+        assertSame(email, jsoup.clean(email));
+        assertEquals("alice&#64;example.com", owasp.clean(email));
+    }
+
+    @Test
+    void testJsoupWhitespaceIsNotPlainText() {
+        assertFalse(PlainTextScanner.JSOUP.isPlainText(" a"));
+        assertFalse(PlainTextScanner.JSOUP.isPlainText("a "));
+        assertFalse(PlainTextScanner.JSOUP.isPlainText("a  b"));
+        assertFalse(PlainTextScanner.JSOUP.isPlainText(" "));
+        assertTrue(PlainTextScanner.JSOUP.isPlainText(""));
+        assertTrue(PlainTextScanner.OWASP.isPlainText(" a  b "));
+    }
+
+    private static void assertMatchesEngine(CleanerService service, UnaryOperator<String> engine) {
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            for (String input : new String[] { String.valueOf(c), "a" + c + "b", " " + c + c + " " }) {
+                assertEquals(engine.apply(input), service.clean(input), () -> describe(input));
+            }
+        }
+
+        for (char first = 0; first < 128; first++) {
+            for (char second = 0; second < 128; second++) {
+                String input = "x" + first + second;
+                assertEquals(engine.apply(input), service.clean(input), () -> describe(input));
+            }
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            String input = randomString(random);
+            assertEquals(engine.apply(input), service.clean(input), () -> describe(input));
+        }
+    }
+
+    private static String randomString(Random random) {
+        int length = random.nextInt(12);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String describe(String input) {
+        StringBuilder sb = new StringBuilder("input: ");
+        input.chars().forEach(c -> sb.append(String.format("\\u%04X", c)));
+        return sb.toString();
+    }
+}
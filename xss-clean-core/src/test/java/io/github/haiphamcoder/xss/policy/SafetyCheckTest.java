@@ -0,0 +1,68 @@
+package io.github.haiphamcoder.xss.policy;
+
+import org.jsoup.safety.Safelist;
+import org.junit.jupiter.api.Test;
+import org.owasp.html.PolicyFactory;
+import org.owasp.html.Sanitizers;
+
+import io.github.haiphamcoder.xss.CleanerService;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests checking that {@link CleanerService#isSafe(CharSequence)}
+ * agrees with comparing the cleaned output to the input.
+ */
+class SafetyCheckTest {
+
+    private static final String[] TOKENS = {
+            "text", " ", "  ", "\n", "\t", "&", "&amp;", "&lt;", "<", ">", "\"", "'", "=", "@", "{", "{{",
+            "<b>", "</b>", "<i>", "</i>", "<p>", "</p>", "<br>", "<br />", "<script>", "</script>", "alert(1)",
+            "<a href=\"http://example.com\">", "<a href=\"javascript:alert(1)\">", "</a>", "<img src=x onerror=y>",
+            "<!-- c -->", "<table>", "<tr>", "<td>", "</td>", "\u00A0", "\u00E9", "\uD83D\uDE00"
+    };
+
+    @Test
+    void testOwaspAgreesWithClean() {
+        PolicyFactory richPolicy = Sanitizers.FORMATTING.and(Sanitizers.LINKS).and(Sanitizers.BLOCKS)
+                .and(Sanitizers.TABLES);
+        assertAgreesWithClean(new OwaspCleanerService());
+        assertAgreesWithClean(new OwaspCleanerService(richPolicy));
+    }
+
+    @Test
+    void testJsoupAgreesWithClean() {
+        assertAgreesWithClean(new JsoupCleanerService());
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.basic()));
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.relaxed()));
+        assertAgreesWithClean(new JsoupCleanerService(Safelist.relaxed().preserveRelativeLinks(true)));
+    }
+
+    @Test
+    void testAllowedMarkupIsSafe() {
+        CleanerService owasp = new OwaspCleanerService(Sanitizers.FORMATTING);
+        CleanerService jsoup = new JsoupCleanerService(Safelist.basic());
+
+        assertTrue(owasp.isSafe("<b>Hello</b> world"));
+        assertTrue(jsoup.isSafe("<b>Hello</b> world"));
+        assertFalse(owasp.isSafe("<b>Hello</b><script>alert(1)</script>"));
+        assertFalse(jsoup.isSafe("<b>Hello</b><script>alert(1)</script>"));
+        assertTrue(owasp.isSafe(null));
+        assertTrue(jsoup.isSafe(new StringBuilder("plain")));
+    }
+
+    private static void assertAgreesWithClean(CleanerService service) {
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(6);
+            for (int j = 0; j < count; j++) {
+                sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            String input = sb.toString();
+            assertEquals(input.equals(service.clean(input)), service.isSafe(input), () -> "input: " + input);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.haiphamcoder.xss.policy;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.CleanerService;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests checking that {@link StripTagsCleanerService} produces
+ * the same output as {@link OwaspCleanerService} with the empty policy.
+ */
+class StripTagsCleanerServiceTest {
+
+    private static final String[] TOKENS = {
+            "text", "Hello world", " ", "  ", "\n", "\r\n", "\t", "\f", "\u0000", "\u0001", "\u007F", "\u0085",
+            "&", "&amp;", "&AMP;", "&amp", "&ampx", "&lt;", "&gt;", "&quot;", "&apos;", "&nbsp;", "&nbsp",
+            "&eacute;", "&notin;", "&notit;", "&#39;", "&#123;", "&#x41;", "&#X41;", "&#65", "&#0;", "&#1;",
+            "&#xD800;", "&#xFFFE;", "&#x1F600;", "&#1114112;", "&#;", "&#x;", "&#xZ;", "&;", "& ",
+            "<", ">", "</", "<<", "\"", "'", "+", "=", "@", "`", "{", "}", "{{", "?", "!", "-", "--", "/", "a=b",
+            "<b>", "</b>", "<B>", "</B>", "<i>", "</i>", "<p>", "</p>", "<br>", "<br/>", "<br />", "<hr>",
+            "<div class=\"x\">", "</div>", "<span style='color:red'>", "</span>", "<a href=\"http://example.com\">",
+            "<a href=\"javascript:alert(1)\">", "<a href=x>", "</a>", "<img src=x onerror=alert(1)>",
+            "<img src=\"a>b\">", "<b a='x\"y'>", "<b a=x\"y>", "<b \"a>b\">", "<b a=\"x\"\"y\">", "<b a=`x>y`>",
+            "<b/a>", "<b<i>", "<b =x>", "<b", "<b a=\"", "</b x=\">\">", "</b\">", "</1>", "</ >", "</>",
+            "<1", "< b", "<\u00E9>", "<a\u00E9>", "<a:b>", "<x-y>", "<svg>", "</svg>", "<math>", "<template>",
+            "<table>", "<tr>", "<td>", "</td>", "<select>", "<option>",
+            "<script>", "</script>", "<SCRIPT>", "<style>", "</style>", "<title>", "<textarea>", "</textarea>",
+            "<xmp>", "<noscript>", "<object>", "</object>", "<iframe>", "<plaintext>", "<noembed>",
+            "<!-- c -->", "<!---->", "<!--->", "<!-->", "<!--", "-->", "<!-- a -- b -->", "<!doctype html>",
+            "<!x>", "<!>", "<!-x>", "<![CDATA[x]]>", "<?xml x?>", "<?>", "<?",
+            "alert(1)", "\u00A0", "\u00E9", "\u1FEF", "\u2028", "\uFDD0", "\uFE60", "\uFEFF", "\uFFFD", "\uFFFE",
+            "\uFFFF", "\uD83D\uDE00", "\uD83D", "\uDE00", "\uDBBF\uDFFE"
+    };
+
+    private final CleanerService reference = new OwaspCleanerService();
+
+    private final CleanerService stripper = new StripTagsCleanerService();
+
+    @Test
+    void testMatchesOwaspOnRandomTokens() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(8);
+            for (int j = 0; j < count; j++) {
+                sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            assertMatchesOwasp(sb.toString());
+        }
+    }
+
+    @Test
+    void testMatchesOwaspOnRandomCharacters() {
+        String alphabet = "ab <>/!-?&#;x1\"'=`{}@+\n\t\r\f\u0000\u00A0\u1FEF\uFFFE\uD83D\uDE00ptdlium";
+        String[] fragments = { "<b>", "</b>", "<p>", "</p>", "<li>", "<a href='", "\">", "&amp;", "&#", "&lt",
+                "<!--", "-->", "<!", "<?", "</", "<br/>", "<img ", " src=", "&nbsp;", "&#x", "9;", "<td", "<svg>",
+                "<style", "<scr", "ipt>" };
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(10);
+            for (int j = 0; j < count; j++) {
+                if (random.nextBoolean()) {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                } else {
+                    sb.append(fragments[random.nextInt(fragments.length)]);
+                }
+            }
+            assertMatchesOwasp(sb.toString());
+        }
+    }
+
+    @Test
+    void testMatchesOwaspOnElementSoup() {
+        String[] names = ("a abbr address area article aside audio b base bdi bdo big blink blockquote body br "
+                + "button canvas caption center cite code col colgroup data datalist dd del details dfn dialog dir "
+                + "div dl dt em embed fieldset figcaption figure font footer form frame frameset h1 h2 h3 h4 h5 h6 "
+                + "head header hgroup hr html i iframe img input ins kbd label legend li link main map mark "
+                + "marquee math menu meta meter nav nobr noscript object ol optgroup option output p param "
+                + "picture pre progress q rp rt ruby s samp script section select small source span strike strong "
+                + "style sub summary sup svg table tbody td template textarea tfoot th thead time title tr track tt "
+                + "u ul var video wbr xmp foo x-y").split(" ");
+        String[] text = { " ", "\n", "\r\n", "\t ", "x", " y ", "&amp;", "{x", " " };
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(8);
+            for (int j = 0; j < count; j++) {
+                String name = names[random.nextInt(names.length)];
+                switch (random.nextInt(3)) {
+                    case 0 -> sb.append('<').append(name).append('>');
+                    case 1 -> sb.append("</").append(name).append('>');
+                    default -> sb.append(text[random.nextInt(text.length)]);
+                }
+            }
+            assertMatchesOwasp(sb.toString());
+        }
+    }
+
+    @Test
+    void testMatchesOwaspOnEveryCharacter() {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            assertMatchesOwasp("x" + (char) c + "y");
+            assertMatchesOwasp("&#" + c + ";");
+        }
+    }
+
+    @Test
+    void testReturnsInputInstanceWhenUnchanged() {
+        String plain = "Hello, world. It costs $5 - or 10% off!";
+        String entity = "Fish &amp; chips &lt;3";
+
+        assertSame(plain, stripper.clean(plain));
+        assertSame(entity, stripper.clean(entity));
+        assertSame(plain, stripper.cleanTracked(plain).getValue());
+        assertTrue(stripper.isSafe(entity));
+        assertNull(stripper.clean(null));
+    }
+
+    @Test
+    void testStripsMarkup() {
+        assertEquals("Hello world", stripper.clean("<p>Hello <b class=\"x\">world</b></p><!-- note -->"));
+        assertEquals("&lt;script&gt;", stripper.clean("<b>&lt;script&gt;</b>"));
+        assertEquals("", stripper.clean("<script>alert(1)</script>"));
+        assertFalse(stripper.isSafe("<i>x</i>"));
+        assertTrue(stripper.cleanTracked("<i>x</i>").isChanged());
+    }
+
+    @Test
+    void testLargeInputsReuseTheBuffer() {
+        String large = "<b>x</b>".repeat(100_000);
+        assertEquals("x".repeat(100_000), stripper.clean(large));
+        assertEquals("y", stripper.clean("<i>y</i>"));
+    }
+
+    private void assertMatchesOwasp(String input) {
+        String expected = reference.clean(input);
+        String actual = stripper.clean(input);
+        assertEquals(expected, actual, () -> "input: " + escape(input));
+
+        CleanResult result = stripper.cleanTracked(input);
+        assertEquals(expected, result.getValue(), () -> "input: " + escape(input));
+        assertEquals(!input.equals(expected), result.isChanged(), () -> "input: " + escape(input));
+        assertEquals(input.equals(expected), stripper.isSafe(input), () -> "input: " + escape(input));
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            if (c < ' ' || c > '~') {
+                sb.append(String.format("\\u%04X", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,540 @@
+package io.github.haiphamcoder.xss.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * The XssSanitizedProcessor class generates a {@code Cleaner} for each class
+ * annotated with {@code @XssSanitized}, and lists the generated cleaners in
+ * {@code META-INF/services/io.github.haiphamcoder.xss.Cleaner} so that
+ * {@code CleanerRegistry} finds them at runtime.
+ * <p>
+ * The generated cleaner visits the non-static fields of the class and its
+ * superclasses, reading and writing the field itself when it is accessible
+ * from the package of the class, and going through its getter and setter
+ * otherwise. String values are sanitized and written back when they changed;
+ * collections, maps, arrays and objects of non-JDK classes are passed to the
+ * context to be cleaned as nested values. As a getter may return a copy, a
+ * nested value read through a getter is always written back through the
+ * setter, while one read from the field is only replaced by the copy of an
+ * unmodifiable collection or map. Primitives, enums and other JDK types are
+ * skipped. Fields annotated with {@code @XssIgnore}, on the field or on its
+ * getter, are skipped, and fields annotated with {@code @XssPolicy} are
+ * cleaned through the context of the named policy. A warning is reported for
+ * a member that cannot be read or written from the generated code.
+ */
+@SupportedAnnotationTypes(XssSanitizedProcessor.ANNOTATION)
+public class XssSanitizedProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "io.github.haiphamcoder.xss.annotation.XssSanitized";
+
+    static final String SERVICE_FILE = "META-INF/services/io.github.haiphamcoder.xss.Cleaner";
+
+    private static final String CLEANER = "io.github.haiphamcoder.xss.Cleaner";
+
+    private static final String SUFFIX = "_XssCleaner";
+
+    private static final String IGNORE = "io.github.haiphamcoder.xss.annotation.XssIgnore";
+
+    private static final String POLICY = "io.github.haiphamcoder.xss.annotation.XssPolicy";
+
+    private final Set<String> cleaners = new TreeSet<>();
+
+    /**
+     * How the generated code handles the value of a member.
+     */
+    private enum Kind {
+        /** A String, sanitized and written back. */
+        STRING,
+        /** A type that can hold a String or another value, e.g. Object. */
+        ANY,
+        /**
+         * A JDK collection or map, cleaned by the context and replaced by its
+         * copy when it cannot be modified.
+         */
+        CONTAINER,
+        /** A collection, map, array or object cleaned by the context. */
+        NESTED,
+        /** A value holding no String. */
+        SKIPPED
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null) {
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD) {
+                error(element, "@XssSanitized can only be applied to classes and records");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (!isAccessibleFromPackage(type)) {
+                error(type, "@XssSanitized classes must be top-level or nested classes that are not private");
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                error(type, "Cannot write the cleaner of " + type.getQualifiedName() + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the cleaner of the given class.
+     *
+     * @param type The annotated class.
+     * @throws IOException If the source file cannot be written.
+     */
+    private void generate(TypeElement type) throws IOException {
+        String packageName = packageOf(type).getQualifiedName().toString();
+        String simpleName = flatName(type) + SUFFIX;
+        String cleanerName = packageName.isEmpty() ? simpleName : packageName + '.' + simpleName;
+        String typeName = type.getQualifiedName().toString();
+
+        StringBuilder body = new StringBuilder();
+        DeclaredType declared = (DeclaredType) processingEnv.getTypeUtils().erasure(type.asType());
+        for (TypeElement c = type; c != null && !isJdkType(c); c = superclassOf(c)) {
+            for (VariableElement field : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)) {
+                    visit(body, type, declared, field);
+                }
+            }
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Cleans {@link ").append(typeName).append("} instances without reflection.\n")
+                .append(" */\n")
+                .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("@SuppressWarnings({ \"rawtypes\", \"unchecked\" })\n")
+                .append("public final class ").append(simpleName).append(" implements ")
+                .append(CLEANER).append('<').append(typeName).append("> {\n\n")
+                .append("    @Override\n")
+                .append("    public Class<").append(typeName).append("> getType() {\n")
+                .append("        return ").append(typeName).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void clean(").append(typeName).append(" object, ")
+                .append(CLEANER).append(".Context context) {\n")
+                .append(body)
+                .append("    }\n")
+                .append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(cleanerName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+        cleaners.add(cleanerName);
+    }
+
+    /**
+     * Appends the code visiting the given field.
+     *
+     * @param body     The body of the clean method.
+     * @param type     The annotated class.
+     * @param declared The type of the annotated class.
+     * @param field    The field.
+     */
+    private void visit(StringBuilder body, TypeElement type, DeclaredType declared, VariableElement field) {
+        TypeMirror fieldType = processingEnv.getTypeUtils().asMemberOf(declared, field);
+        Kind kind = kindOf(fieldType);
+        ExecutableElement getter = getterOf(type, declared, field, fieldType);
+        if (kind == Kind.SKIPPED || annotation(field, getter, IGNORE) != null) {
+            return;
+        }
+        AnnotationMirror policy = annotation(field, getter, POLICY);
+        String context = policy == null ? "context"
+                : "context.withPolicy(" + processingEnv.getElementUtils().getConstantExpression(policyName(policy))
+                        + ")";
+        String name = field.getSimpleName().toString();
+        boolean direct = isAccessible(type, field);
+        String read;
+        if (direct) {
+            read = fieldOwner(type, field) + '.' + name;
+        } else {
+            read = getter != null && isAccessible(type, getter) ? "object." + getter.getSimpleName() + "()" : null;
+        }
+        if (read == null) {
+            warning(field, "Field " + name + " is not readable from the cleaner of " + type.getQualifiedName()
+                    + " and is not cleaned; add an accessible getter");
+            return;
+        }
+        String write;
+        if (direct) {
+            // A nested object read from the field is cleaned in place
+            write = kind == Kind.NESTED || field.getModifiers().contains(Modifier.FINAL) ? null
+                    : fieldOwner(type, field) + '.' + name + " = cleaned";
+        } else {
+            write = setter(type, declared, field, fieldType);
+        }
+        if (write == null) {
+            if (kind == Kind.STRING && !field.getModifiers().contains(Modifier.FINAL)) {
+                warning(field, "Field " + name + " is not writable from the cleaner of " + type.getQualifiedName()
+                        + " and is not cleaned; add an accessible setter");
+            }
+            if (kind != Kind.STRING) {
+                body.append("        ").append(context).append(".cleanNested(").append(read).append(");\n");
+            }
+            return;
+        }
+
+        String erasure = processingEnv.getTypeUtils().erasure(fieldType).toString();
+        body.append("        {\n");
+        if (kind == Kind.STRING) {
+            body.append("            String value = ").append(read).append(";\n")
+                    .append("            String cleaned = ").append(context).append(".clean(value);\n")
+                    .append("            if (cleaned != value) {\n")
+                    .append("                ").append(write).append(";\n")
+                    .append("            }\n");
+        } else if (kind == Kind.CONTAINER || kind == Kind.NESTED) {
+            body.append("            Object value = ").append(read).append(";\n")
+                    .append("            Object replaced = ").append(context).append(".cleanNested(value);\n");
+            replace(body, "            ", erasure, write, !direct);
+        } else {
+            body.append("            Object value = ").append(read).append(";\n")
+                    .append("            if (value instanceof String) {\n")
+                    .append("                String cleaned = ").append(context).append(".clean((String) value);\n")
+                    .append("                if (cleaned != value) {\n")
+                    .append("                    ").append(write).append(";\n")
+                    .append("                }\n")
+                    .append("            } else {\n")
+                    .append("                Object replaced = ").append(context).append(".cleanNested(value);\n");
+            replace(body, "                ", erasure, write, !direct);
+            body.append("            }\n");
+        }
+        body.append("        }\n");
+    }
+
+    /**
+     * Gets the annotation of the given name on a field, or on its getter when
+     * the field does not have it.
+     *
+     * @param field  The field.
+     * @param getter The getter of the field, or null.
+     * @param name   The qualified name of the annotation.
+     * @return The annotation, or null if neither the field nor its getter has
+     *         it.
+     */
+    private static AnnotationMirror annotation(VariableElement field, ExecutableElement getter, String name) {
+        AnnotationMirror annotation = annotation(field, name);
+        return annotation == null && getter != null ? annotation(getter, name) : annotation;
+    }
+
+    /**
+     * Gets the annotation of the given name on an element.
+     *
+     * @param element The element.
+     * @param name    The qualified name of the annotation.
+     * @return The annotation, or null if the element does not have it.
+     */
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the policy name of an {@code @XssPolicy} annotation.
+     *
+     * @param policy The annotation.
+     * @return The name of the policy.
+     */
+    private static String policyName(AnnotationMirror policy) {
+        for (var entry : policy.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Appends the code writing back the nested value returned by the context,
+     * held in a variable named {@code replaced}.
+     *
+     * @param body    The body of the clean method.
+     * @param indent  The indentation of the code.
+     * @param erasure The erasure of the type of the member.
+     * @param write   The statement writing a variable named {@code cleaned}.
+     * @param always  Whether the value is written back even when the context
+     *                returned it unchanged, as it may be a copy returned by a
+     *                getter.
+     */
+    private static void replace(StringBuilder body, String indent, String erasure, String write, boolean always) {
+        body.append(indent).append(always ? "if (" : "if (replaced != value && ")
+                .append("replaced instanceof ").append(erasure).append(") {\n")
+                .append(indent).append("    ").append(erasure).append(" cleaned = (").append(erasure)
+                .append(") replaced;\n")
+                .append(indent).append("    ").append(write).append(";\n")
+                .append(indent).append("}\n");
+    }
+
+    /**
+     * Gets the getter of the given field, whether or not the generated cleaner
+     * can call it.
+     *
+     * @param type      The annotated class.
+     * @param declared  The type of the annotated class.
+     * @param field     The field.
+     * @param fieldType The type of the field as a member of the class.
+     * @return The getter, or null if the field has none.
+     */
+    private ExecutableElement getterOf(TypeElement type, DeclaredType declared, VariableElement field,
+            TypeMirror fieldType) {
+        String name = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            String methodName = method.getSimpleName().toString();
+            boolean named = methodName.equals("get" + capitalized)
+                    || type.getKind() == ElementKind.RECORD && methodName.equals(name);
+            if (named && !method.getModifiers().contains(Modifier.STATIC) && method.getParameters().isEmpty()
+                    && processingEnv.getTypeUtils().isSameType(returnType(declared, method), fieldType)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the statement writing the variable {@code cleaned} to the given
+     * field through its setter.
+     *
+     * @param type      The annotated class.
+     * @param declared  The type of the annotated class.
+     * @param field     The field.
+     * @param fieldType The type of the field as a member of the class.
+     * @return The statement, or null if the field has no accessible setter.
+     */
+    private String setter(TypeElement type, DeclaredType declared, VariableElement field, TypeMirror fieldType) {
+        String name = field.getSimpleName().toString();
+        String setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : accessibleMethods(type)) {
+            if (method.getSimpleName().contentEquals(setter) && method.getParameters().size() == 1) {
+                TypeMirror parameter = ((ExecutableType) processingEnv.getTypeUtils()
+                        .asMemberOf(declared, method)).getParameterTypes().get(0);
+                if (processingEnv.getTypeUtils().isSameType(parameter, fieldType)) {
+                    return "object." + setter + "(cleaned)";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Classifies the type of a member.
+     *
+     * @param type The type.
+     * @return How the generated code handles values of the type.
+     */
+    private Kind kindOf(TypeMirror type) {
+        var types = processingEnv.getTypeUtils();
+        var elements = processingEnv.getElementUtils();
+        if (type.getKind().isPrimitive()) {
+            return Kind.SKIPPED;
+        }
+        TypeMirror string = elements.getTypeElement("java.lang.String").asType();
+        if (types.isSameType(type, string)) {
+            return Kind.STRING;
+        }
+        if (types.isAssignable(string, type)) {
+            return Kind.ANY;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return ((ArrayType) type).getComponentType().getKind().isPrimitive() ? Kind.SKIPPED : Kind.NESTED;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return Kind.NESTED;
+        }
+        TypeMirror erased = types.erasure(type);
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        if (types.isAssignable(erased, types.erasure(elements.getTypeElement("java.util.Collection").asType()))
+                || types.isAssignable(erased, types.erasure(elements.getTypeElement("java.util.Map").asType()))) {
+            return isJdkType(element) ? Kind.CONTAINER : Kind.NESTED;
+        }
+        if (element.getKind() == ElementKind.ENUM || isJdkType(element)) {
+            return Kind.SKIPPED;
+        }
+        return Kind.NESTED;
+    }
+
+    /**
+     * Gets the expression referencing the object for an access to the given
+     * field, cast to the declaring class when a subclass could hide it.
+     *
+     * @param type  The annotated class.
+     * @param field The field.
+     * @return The expression.
+     */
+    private String fieldOwner(TypeElement type, VariableElement field) {
+        TypeElement owner = (TypeElement) field.getEnclosingElement();
+        return owner.equals(type) ? "object" : "((" + owner.getQualifiedName() + ") object)";
+    }
+
+    private TypeMirror returnType(DeclaredType declared, ExecutableElement method) {
+        return ((ExecutableType) processingEnv.getTypeUtils().asMemberOf(declared, method))
+                .getReturnType();
+    }
+
+    /**
+     * Gets the instance methods of the given class that the generated cleaner
+     * can call.
+     *
+     * @param type The annotated class.
+     * @return The methods.
+     */
+    private Iterable<ExecutableElement> accessibleMethods(TypeElement type) {
+        return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type)).stream()
+                .filter(method -> !method.getModifiers().contains(Modifier.STATIC) && isAccessible(type, method))
+                .toList();
+    }
+
+    /**
+     * Checks if a member is accessible from a class in the package of the
+     * annotated class, through a reference of the annotated class.
+     *
+     * @param type   The annotated class.
+     * @param member The member.
+     * @return True if the member is accessible.
+     */
+    private boolean isAccessible(TypeElement type, Element member) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE)
+                && packageOf(member).getQualifiedName().contentEquals(packageOf(type).getQualifiedName());
+    }
+
+    private boolean isAccessibleFromPackage(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement t; e = e.getEnclosingElement()) {
+            if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS
+                    || t.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement()
+                : null;
+    }
+
+    private boolean isJdkType(TypeElement type) {
+        String name = packageOf(type).getQualifiedName().toString();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.equals("java");
+    }
+
+    private PackageElement packageOf(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+
+    /**
+     * Gets the name of a class relative to its package, with nested class
+     * names joined by underscores.
+     *
+     * @param type The class.
+     * @return The name.
+     */
+    private String flatName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+        Element enclosing = type.getEnclosingElement();
+        return enclosing instanceof TypeElement outer ? flatName(outer) + '_' + name : name;
+    }
+
+    /**
+     * Writes the service file listing the generated cleaners, keeping the
+     * entries of a previous compilation for incremental builds.
+     */
+    private void writeServiceFile() {
+        if (cleaners.isEmpty()) {
+            return;
+        }
+        Set<String> entries = new TreeSet<>(cleaners);
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                    SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        entries.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // No previous service file
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void warning(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+}
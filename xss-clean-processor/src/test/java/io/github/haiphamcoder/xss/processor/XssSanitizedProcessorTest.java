@@ -0,0 +1,332 @@
+package io.github.haiphamcoder.xss.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.haiphamcoder.xss.Cleaner;
+import io.github.haiphamcoder.xss.CleanerRegistry;
+import io.github.haiphamcoder.xss.ReflectionCleaner;
+
+class XssSanitizedProcessorTest {
+
+    private static final String ORDER = """
+            package com.example;
+
+            import io.github.haiphamcoder.xss.annotation.XssSanitized;
+            import java.util.*;
+
+            @XssSanitized
+            public class Order extends Base {
+                private String customer;
+                public String note;
+                private final String id;
+                private int quantity;
+                private Status status = Status.NEW;
+                private List<String> tags = new ArrayList<>();
+                private Map<String, String> attributes = new HashMap<>();
+                public List<String> labels = List.of("<label>");
+                private Line line = new Line();
+                private Object payload;
+                private String hidden;
+
+                public Order(String id) {
+                    this.id = id;
+                }
+
+                public String getCustomer() { return customer; }
+                public void setCustomer(String customer) { this.customer = customer; }
+                public String getId() { return id; }
+                public List<String> getTags() { return tags; }
+                public Map<String, String> getAttributes() { return attributes; }
+                public Line getLine() { return line; }
+                public Object getPayload() { return payload; }
+                public void setPayload(Object payload) { this.payload = payload; }
+                public String hidden() { return hidden; }
+                public void hide(String hidden) { this.hidden = hidden; }
+
+                public enum Status { NEW }
+            }
+            """;
+
+    private static final String BASE = """
+            package com.example;
+
+            public class Base {
+                String origin;
+            }
+            """;
+
+    private static final String LINE = """
+            package com.example;
+
+            public class Line {
+                public String description;
+            }
+            """;
+
+    private static final String RECORD = """
+            package com.example;
+
+            @io.github.haiphamcoder.xss.annotation.XssSanitized
+            public record Summary(String title, Line line,
+                    @io.github.haiphamcoder.xss.annotation.XssIgnore Line ignored,
+                    @io.github.haiphamcoder.xss.annotation.XssPolicy("rich") Line rich) {
+            }
+            """;
+
+    private static final String COPYING = """
+            package com.example;
+
+            import io.github.haiphamcoder.xss.annotation.XssSanitized;
+            import java.util.*;
+
+            @XssSanitized
+            public class Copying {
+                List<String> tags = new ArrayList<>();
+                private Line line = new Line();
+
+                public List<String> getTags() { return new ArrayList<>(tags); }
+                public void setTags(List<String> tags) { this.tags = tags; }
+                public Line getLine() {
+                    Line copy = new Line();
+                    copy.description = line.description;
+                    return copy;
+                }
+                public void setLine(Line line) { this.line = line; }
+            }
+            """;
+
+    private static final String GETTER_ANNOTATIONS = """
+            package com.example;
+
+            import io.github.haiphamcoder.xss.annotation.*;
+
+            @XssSanitized
+            public class Profile {
+                private String secret;
+                private Line bio;
+
+                @XssIgnore
+                public String getSecret() { return secret; }
+                public void setSecret(String secret) { this.secret = secret; }
+                @XssPolicy("rich")
+                public Line getBio() { return bio; }
+            }
+            """;
+
+    @TempDir
+    Path output;
+
+    @Test
+    void testGeneratesCleanerUsedBeforeReflection() throws Exception {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(
+                Map.of("com.example.Order", ORDER, "com.example.Base", BASE, "com.example.Line", LINE));
+
+        assertTrue(errors(diagnostics).isEmpty(), errors(diagnostics)::toString);
+        assertTrue(warnings(diagnostics).stream().anyMatch(message -> message.contains("hidden")));
+        assertEquals("com.example.Order_XssCleaner",
+                Files.readString(output.resolve(XssSanitizedProcessor.SERVICE_FILE)).trim());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toUri().toURL() },
+                getClass().getClassLoader())) {
+            Class<?> orderClass = loader.loadClass("com.example.Order");
+            Cleaner<?> cleaner = (Cleaner<?>) loader.loadClass("com.example.Order_XssCleaner")
+                    .getConstructor().newInstance();
+            assertSame(orderClass, cleaner.getType());
+            CleanerRegistry.register(cleaner);
+            assertSame(cleaner, CleanerRegistry.find(orderClass));
+
+            Object order = orderClass.getConstructor(String.class).newInstance("<id>");
+            orderClass.getMethod("setCustomer", String.class).invoke(order, "<customer>");
+            orderClass.getField("note").set(order, "<note>");
+            orderClass.getMethod("setPayload", Object.class).invoke(order, "<payload>");
+            orderClass.getMethod("hide", String.class).invoke(order, "<hidden>");
+            set(orderClass.getSuperclass(), order, "origin", "<origin>");
+            @SuppressWarnings("unchecked")
+            List<String> tags = (List<String>) orderClass.getMethod("getTags").invoke(order);
+            tags.add("<tag>");
+            @SuppressWarnings("unchecked")
+            Map<String, String> attributes = (Map<String, String>) orderClass.getMethod("getAttributes")
+                    .invoke(order);
+            attributes.put("key", "<value>");
+            Object line = orderClass.getMethod("getLine").invoke(order);
+            line.getClass().getField("description").set(line, "<description>");
+
+            ReflectionCleaner.clean(order, value -> value.replace("<", "[").replace(">", "]"));
+
+            assertEquals("[customer]", orderClass.getMethod("getCustomer").invoke(order));
+            assertEquals("[note]", orderClass.getField("note").get(order));
+            assertEquals("[payload]", orderClass.getMethod("getPayload").invoke(order));
+            assertEquals("[origin]", get(orderClass.getSuperclass(), order, "origin"));
+            assertEquals("<id>", orderClass.getMethod("getId").invoke(order)); // final
+            assertEquals("<hidden>", orderClass.getMethod("hidden").invoke(order)); // not accessible
+            assertEquals(List.of("[tag]"), tags);
+            assertEquals(Map.of("key", "[value]"), attributes);
+            assertEquals(List.of("[label]"), orderClass.getField("labels").get(order)); // rebuilt
+            assertEquals("[description]", line.getClass().getField("description").get(line));
+        }
+    }
+
+    @Test
+    void testGeneratesCleanerForRecords() throws Exception {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(
+                Map.of("com.example.Summary", RECORD, "com.example.Line", LINE));
+
+        assertTrue(errors(diagnostics).isEmpty(), errors(diagnostics)::toString);
+        assertTrue(warnings(diagnostics).isEmpty(), warnings(diagnostics)::toString);
+        String source = Files.readString(output.resolve("com/example/Summary_XssCleaner.java"));
+        assertTrue(source.contains("context.cleanNested(object.line());"), source);
+        assertTrue(source.contains("context.withPolicy(\"rich\").cleanNested(object.rich());"), source);
+        assertFalse(source.contains("ignored"), source);
+        assertFalse(source.contains("title"), source);
+    }
+
+    @Test
+    void testCleansFieldsBehindCopyingGetters() throws Exception {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(
+                Map.of("com.example.Copying", COPYING, "com.example.Line", LINE));
+
+        assertTrue(errors(diagnostics).isEmpty(), errors(diagnostics)::toString);
+        String source = Files.readString(output.resolve("com/example/Copying_XssCleaner.java"));
+        assertTrue(source.contains("Object value = object.tags;"), source);
+        assertTrue(source.contains("object.setLine(cleaned);"), source);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toUri().toURL() },
+                getClass().getClassLoader())) {
+            Class<?> copyingClass = loader.loadClass("com.example.Copying");
+            CleanerRegistry.register((Cleaner<?>) loader.loadClass("com.example.Copying_XssCleaner")
+                    .getConstructor().newInstance());
+
+            Object copying = copyingClass.getConstructor().newInstance();
+            copyingClass.getMethod("setTags", List.class).invoke(copying, new ArrayList<>(List.of("<tag>")));
+            Object line = loader.loadClass("com.example.Line").getConstructor().newInstance();
+            line.getClass().getField("description").set(line, "<description>");
+            copyingClass.getMethod("setLine", line.getClass()).invoke(copying, line);
+
+            ReflectionCleaner.clean(copying, value -> value.replace("<", "[").replace(">", "]"));
+
+            assertEquals(List.of("[tag]"), copyingClass.getMethod("getTags").invoke(copying));
+            Object cleanedLine = copyingClass.getMethod("getLine").invoke(copying);
+            assertEquals("[description]", line.getClass().getField("description").get(cleanedLine));
+        }
+    }
+
+    @Test
+    void testHonorsAnnotationsOnGetters() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(
+                Map.of("com.example.Profile", GETTER_ANNOTATIONS, "com.example.Line", LINE));
+
+        assertTrue(errors(diagnostics).isEmpty(), errors(diagnostics)::toString);
+        String source = Files.readString(output.resolve("com/example/Profile_XssCleaner.java"));
+        assertFalse(source.contains("Secret"), source);
+        assertTrue(source.contains("context.withPolicy(\"rich\").cleanNested(object.getBio());"), source);
+    }
+
+    @Test
+    void testRejectsInterfacesAndPrivateClasses() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(Map.of("com.example.Invalid", """
+                package com.example;
+
+                import io.github.haiphamcoder.xss.annotation.XssSanitized;
+
+                public class Invalid {
+                    @XssSanitized
+                    interface Api {
+                    }
+
+                    @XssSanitized
+                    private static class Hidden {
+                    }
+                }
+                """));
+
+        assertEquals(2, errors(diagnostics).size(), errors(diagnostics)::toString);
+        assertFalse(Files.exists(output.resolve(XssSanitizedProcessor.SERVICE_FILE)));
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(Map<String, String> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<JavaFileObject> units = new ArrayList<>();
+        sources.forEach((name, code) -> units.add(new SourceFile(name, code)));
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<String> options = List.of("-d", output.toString(), "-s", output.toString(),
+                    "-classpath", System.getProperty("java.class.path"));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, options, null, units);
+            task.setProcessors(List.of(new XssSanitizedProcessor()));
+            task.call();
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    private static List<String> errors(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        return messages(diagnostics, Diagnostic.Kind.ERROR);
+    }
+
+    private static List<String> warnings(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        return messages(diagnostics, Diagnostic.Kind.WARNING);
+    }
+
+    private static List<String> messages(List<Diagnostic<? extends JavaFileObject>> diagnostics,
+            Diagnostic.Kind kind) {
+        return diagnostics.stream()
+                .filter(diagnostic -> diagnostic.getKind() == kind)
+                .map(diagnostic -> diagnostic.getMessage(null))
+                .collect(Collectors.toList());
+    }
+
+    private static void set(Class<?> type, Object object, String name, Object value) throws Exception {
+        var field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+
+    private static Object get(Class<?> type, Object object, String name) throws Exception {
+        var field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    /**
+     * A source file held in memory.
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String code;
+
+        SourceFile(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+}
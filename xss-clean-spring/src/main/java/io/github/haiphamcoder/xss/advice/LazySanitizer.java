@@ -0,0 +1,575 @@
+package io.github.haiphamcoder.xss.advice;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.PolicyRegistry;
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The LazySanitizer class sanitizes an object graph on access instead of up
+ * front. Strings are cleaned right away, lists and maps are wrapped in views
+ * cleaning each element the first time it is read, and beans are wrapped in
+ * class proxies cleaning the value of each getter on its first call. Every
+ * cleaned value is memoized, so members the caller never reads cost nothing
+ * and members read twice are cleaned once.
+ * <p>
+ * A bean is proxied only if its class is not final, declares all of its
+ * instance fields private and has no final methods, so that no code can
+ * observe the empty fields of the proxy. Other beans, arrays and collections
+ * other than random access lists are cleaned eagerly with
+ * {@link CleanerService#cleanObject(Object)}. A view or copy is only returned
+ * where the declared type accepts it: a getter returning a concrete
+ * collection or map class gets the original instance, cleaned eagerly in
+ * place. Only the values returned by
+ * getters are cleaned: methods of the bean itself still see the raw fields.
+ * {@link XssIgnore} and {@link XssPolicy} are honored on types, getters and
+ * the fields backing them.
+ */
+public class LazySanitizer {
+
+    /**
+     * Marks a memoized null value.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The getters of each proxiable class, or null if the class cannot be
+     * proxied.
+     */
+    private static final ClassValue<Map<Method, Getter>> GETTERS = new ClassValue<>() {
+        @Override
+        protected Map<Method, Getter> computeValue(Class<?> type) {
+            return isProxiable(type) ? getters(type) : null;
+        }
+    };
+
+    /**
+     * The cleaner to use.
+     */
+    private final CleanerService cleaner;
+
+    /**
+     * Constructs a new LazySanitizer.
+     *
+     * @param cleaner The cleaner to use.
+     */
+    public LazySanitizer(CleanerService cleaner) {
+        if (cleaner == null) {
+            throw new IllegalArgumentException("cleaner must not be null");
+        }
+        this.cleaner = cleaner;
+    }
+
+    /**
+     * Sanitizes the given value, deferring the work for lists, maps and
+     * proxiable beans until their content is read.
+     *
+     * @param value The value to sanitize.
+     * @return The sanitized value, a view or proxy of the value, or the value
+     *         itself when it was cleaned in place.
+     */
+    public Object sanitize(Object value) {
+        return sanitize(value, Object.class);
+    }
+
+    /**
+     * Sanitizes the given value into an instance of the given type, deferring
+     * the work for lists, maps and proxiable beans until their content is
+     * read. A collection or map whose view or copy is not an instance of the
+     * expected type is cleaned in place instead.
+     *
+     * @param value    The value to sanitize.
+     * @param expected The type the result must be assignable to.
+     * @return The sanitized value, a view or proxy of the value, or the value
+     *         itself when it was cleaned in place.
+     */
+    public Object sanitize(Object value, Class<?> expected) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String string) {
+            return cleaner.clean(string);
+        }
+        if (value instanceof SanitizingList<?> || value instanceof SanitizingMap<?, ?> || value instanceof SpringProxy) {
+            return value;
+        }
+        if (value instanceof Collection<?> || value instanceof Map<?, ?>) {
+            Object view = view(value, expected);
+            if (view == null) {
+                cleaner.cleanObject(value);
+                return value;
+            }
+            return view;
+        }
+        Class<?> type = value.getClass();
+        if (type.isPrimitive() || type.isEnum() || type.getName().startsWith("java.")) {
+            return value;
+        }
+        if (type.isAnnotationPresent(XssIgnore.class)) {
+            return value;
+        }
+        XssPolicy policy = type.getAnnotation(XssPolicy.class);
+        LazySanitizer target = policy == null ? this : withPolicy(policy.value());
+        Map<Method, Getter> getters = GETTERS.get(type);
+        if (getters == null) {
+            target.cleaner.cleanObject(value);
+            return value;
+        }
+        return target.proxy(value, getters);
+    }
+
+    /**
+     * Gets the cleaner to use.
+     *
+     * @return The cleaner.
+     */
+    public CleanerService getCleaner() {
+        return cleaner;
+    }
+
+    /**
+     * Gets a sanitizer applying the named policy, or this sanitizer if no
+     * cleaner is registered under the name.
+     *
+     * @param policy The name of the policy.
+     * @return The sanitizer.
+     */
+    private LazySanitizer withPolicy(String policy) {
+        CleanerService named = PolicyRegistry.find(policy);
+        return named == null || named == cleaner ? this : new LazySanitizer(named);
+    }
+
+    /**
+     * Creates a view cleaning a list or map on read, or a cleaned copy of a
+     * collection that cannot be viewed lazily.
+     *
+     * @param value The collection or map.
+     * @param type  The type the view or copy must be assignable to.
+     * @return The view or copy, or null if it would not be an instance of the
+     *         type.
+     */
+    private Object view(Object value, Class<?> type) {
+        if (value instanceof List<?> list && list instanceof RandomAccess) {
+            return type.isAssignableFrom(SanitizingList.class) ? new SanitizingList<>(list, this) : null;
+        }
+        if (value instanceof Map<?, ?> map) {
+            return type.isAssignableFrom(SanitizingMap.class) ? new SanitizingMap<>(map, this) : null;
+        }
+        Collection<?> collection = (Collection<?>) value;
+        Class<?> copyType = collection instanceof Set<?> ? LinkedHashSet.class : ArrayList.class;
+        return type.isAssignableFrom(copyType) ? copy(collection) : null;
+    }
+
+    /**
+     * Copies a collection that cannot be viewed lazily, cleaning the
+     * elements. Sets keep their iteration order.
+     *
+     * @param collection The collection.
+     * @return The cleaned copy.
+     */
+    private Collection<Object> copy(Collection<?> collection) {
+        Collection<Object> copy = collection instanceof Set<?>
+                ? new LinkedHashSet<>(collection.size())
+                : new ArrayList<>(collection.size());
+        for (Object element : collection) {
+            copy.add(sanitize(element));
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a class proxy of the given bean cleaning the values of its
+     * getters.
+     *
+     * @param bean    The bean.
+     * @param getters The getters of the class of the bean.
+     * @return The proxy.
+     */
+    private Object proxy(Object bean, Map<Method, Getter> getters) {
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        // Hide the Advised interface from serializers walking the getters
+        factory.setOpaque(true);
+        factory.addAdvice(new GetterInterceptor(getters, this));
+        return factory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static Object box(Object value) {
+        return value == null ? NULL : value;
+    }
+
+    private static Object unbox(Object value) {
+        return value == NULL ? null : value;
+    }
+
+    /**
+     * Checks if the class of a bean can be proxied without exposing its
+     * fields.
+     *
+     * @param type The class.
+     * @return True if the class can be proxied, false otherwise.
+     */
+    private static boolean isProxiable(Class<?> type) {
+        if (Modifier.isFinal(type.getModifiers()) || type.isRecord() || type.isArray()
+                || type.isInterface() || type.isAnonymousClass() || type.isHidden()) {
+            return false;
+        }
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isPrivate(modifiers)) {
+                    return false;
+                }
+            }
+            for (Method method : c.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                if (Modifier.isFinal(modifiers) && !Modifier.isStatic(modifiers) && !Modifier.isPrivate(modifiers)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the public getters of a class and the annotations applying to
+     * them.
+     *
+     * @param type The class.
+     * @return The getters, or null if the class has none.
+     */
+    private static Map<Method, Getter> getters(Class<?> type) {
+        Map<Method, Getter> getters = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            String property = property(method);
+            if (property == null) {
+                continue;
+            }
+            Field field = field(type, property);
+            if (isAnnotated(method, field, XssIgnore.class)) {
+                getters.put(method, Getter.IGNORED);
+                continue;
+            }
+            XssPolicy policy = method.getAnnotation(XssPolicy.class);
+            if (policy == null && field != null) {
+                policy = field.getAnnotation(XssPolicy.class);
+            }
+            getters.put(method, policy == null ? Getter.DEFAULT : new Getter(false, policy.value()));
+        }
+        return getters.isEmpty() ? null : getters;
+    }
+
+    /**
+     * Gets the name of the property read by a getter.
+     *
+     * @param method The method.
+     * @return The property name, or null if the method is not a getter.
+     */
+    private static String property(Method method) {
+        if (method.getParameterCount() != 0 || method.getReturnType() == void.class
+                || method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        String name = method.getName();
+        int prefix = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+        if (prefix == 0 || name.length() == prefix) {
+            return null;
+        }
+        return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+    }
+
+    private static Field field(Class<?> type, String name) {
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // Look in the superclass
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAnnotated(AnnotatedElement method, AnnotatedElement field,
+            Class<? extends java.lang.annotation.Annotation> annotation) {
+        return method.isAnnotationPresent(annotation) || (field != null && field.isAnnotationPresent(annotation));
+    }
+
+    /**
+     * The annotations applying to a getter.
+     *
+     * @param ignored Whether the value is returned as-is.
+     * @param policy  The name of the policy cleaning the value, or null for
+     *                the default cleaner.
+     */
+    private record Getter(boolean ignored, String policy) {
+
+        static final Getter DEFAULT = new Getter(false, null);
+
+        static final Getter IGNORED = new Getter(true, null);
+    }
+
+    /**
+     * Cleans and memoizes the values of the getters of a proxied bean. Any
+     * other method may change the bean, so it drops the memoized values.
+     */
+    private static final class GetterInterceptor implements MethodInterceptor {
+
+        private final Map<Method, Getter> getters;
+
+        private final LazySanitizer sanitizer;
+
+        private final Map<Method, Object> values = new ConcurrentHashMap<>();
+
+        GetterInterceptor(Map<Method, Getter> getters, LazySanitizer sanitizer) {
+            this.getters = getters;
+            this.sanitizer = sanitizer;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            Getter getter = getters.get(method);
+            if (getter == null) {
+                if (method.getParameterCount() > 0 && !values.isEmpty()) {
+                    values.clear();
+                }
+                return invocation.proceed();
+            }
+            if (getter.ignored()) {
+                return invocation.proceed();
+            }
+            Object value = values.get(method);
+            if (value == null) {
+                LazySanitizer target = getter.policy() == null ? sanitizer : sanitizer.withPolicy(getter.policy());
+                value = box(target.sanitize(invocation.proceed(), method.getReturnType()));
+                values.put(method, value);
+            }
+            return unbox(value);
+        }
+    }
+
+    /**
+     * A view of a random access list cleaning each element on its first read.
+     * Elements written through the view are stored as given.
+     */
+    private static final class SanitizingList<E> extends AbstractList<E> implements RandomAccess {
+
+        private final List<Object> source;
+
+        private final List<Object> values;
+
+        private final LazySanitizer sanitizer;
+
+        @SuppressWarnings("unchecked")
+        SanitizingList(List<?> source, LazySanitizer sanitizer) {
+            this.source = (List<Object>) source;
+            this.values = new ArrayList<>(Collections.nCopies(source.size(), null));
+            this.sanitizer = sanitizer;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            Object value = values.get(index);
+            if (value == null) {
+                value = box(sanitizer.sanitize(source.get(index)));
+                values.set(index, value);
+            }
+            return (E) unbox(value);
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        public E set(int index, E element) {
+            E previous = get(index);
+            source.set(index, element);
+            values.set(index, box(element));
+            return previous;
+        }
+
+        @Override
+        public void add(int index, E element) {
+            source.add(index, element);
+            values.add(index, box(element));
+            modCount++;
+        }
+
+        @Override
+        public E remove(int index) {
+            E previous = get(index);
+            source.remove(index);
+            values.remove(index);
+            modCount++;
+            return previous;
+        }
+    }
+
+    /**
+     * A view of a map cleaning each value on its first read. Keys are not
+     * cleaned, as with {@link CleanerService#cleanObject(Object)}. Values
+     * written through the view are stored as given.
+     */
+    private static final class SanitizingMap<K, V> extends AbstractMap<K, V> {
+
+        private final Map<Object, Object> source;
+
+        private final Map<Object, Object> values = new HashMap<>();
+
+        private final LazySanitizer sanitizer;
+
+        @SuppressWarnings("unchecked")
+        SanitizingMap(Map<?, ?> source, LazySanitizer sanitizer) {
+            this.source = (Map<Object, Object>) source;
+            this.sanitizer = sanitizer;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            Object value = values.get(key);
+            if (value == null) {
+                if (!source.containsKey(key)) {
+                    return null;
+                }
+                value = box(sanitizer.sanitize(source.get(key)));
+                values.put(key, value);
+            }
+            return (V) unbox(value);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return source.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V previous = get(key);
+            source.put(key, value);
+            values.put(key, box(value));
+            return previous;
+        }
+
+        @Override
+        public V remove(Object key) {
+            V previous = get(key);
+            source.remove(key);
+            values.remove(key);
+            return previous;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    Iterator<Object> keys = source.keySet().iterator();
+                    return new Iterator<>() {
+                        private Object last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return keys.hasNext();
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Entry<K, V> next() {
+                            K key = (K) keys.next();
+                            last = key;
+                            return new LazyEntry(key);
+                        }
+
+                        @Override
+                        public void remove() {
+                            keys.remove();
+                            values.remove(last);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return source.size();
+                }
+            };
+        }
+
+        /**
+         * An entry reading and writing its value through the view.
+         */
+        private final class LazyEntry implements Entry<K, V> {
+
+            private final K key;
+
+            LazyEntry(K key) {
+                this.key = key;
+            }
+
+            @Override
+            public K getKey() {
+                return key;
+            }
+
+            @Override
+            public V getValue() {
+                return get(key);
+            }
+
+            @Override
+            public V setValue(V value) {
+                return put(key, value);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Entry<?, ?> e && Objects.equals(key, e.getKey())
+                        && Objects.equals(getValue(), e.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+            }
+
+            @Override
+            public String toString() {
+                return key + "=" + getValue();
+            }
+        }
+    }
+
+}
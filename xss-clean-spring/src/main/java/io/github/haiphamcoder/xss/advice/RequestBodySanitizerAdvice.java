@@ -1,15 +1,49 @@
 package io.github.haiphamcoder.xss.advice;
 
 import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.PolicyRegistry;
+import io.github.haiphamcoder.xss.ReflectionCleaner;
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssLazy;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+import io.github.haiphamcoder.xss.web.XssJsonBodyFilter;
 import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.validation.annotation.ValidationAnnotationUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
 
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Sanitize the entire JSON body after deserialization into an object.
+ * <p>
+ * Bodies opted in with {@link XssLazy} on the parameter, the handler method,
+ * the controller or the class of the body are sanitized on access by a
+ * {@link LazySanitizer} instead. Parameters validated with {@code @Valid} or
+ * {@code @Validated} are always sanitized eagerly, since the validator reads
+ * fields directly.
+ * <p>
+ * How the body of each handler method parameter is sanitized is decided once
+ * and cached: bodies whose type cannot hold a string, such as {@code byte[]},
+ * streams, resources or numeric DTOs, and bodies opted out with
+ * {@link XssIgnore} on the parameter, the handler method, the controller or
+ * the class of the body are not sanitized, and {@link XssPolicy} on the
+ * parameter, the handler method or the controller selects the cleaner.
+ * <p>
+ * Bodies already rewritten by {@link XssJsonBodyFilter} while they were read
+ * are returned as they are, so they are not cleaned twice and strings the
+ * filter's path rules exclude stay untouched.
  */
 public class RequestBodySanitizerAdvice extends RequestBodyAdviceAdapter {
 
@@ -18,6 +52,16 @@ public class RequestBodySanitizerAdvice extends RequestBodyAdviceAdapter {
      */
     private final CleanerService cleaner;
 
+    /**
+     * The sanitizer of bodies opted in to lazy sanitization.
+     */
+    private final LazySanitizer lazySanitizer;
+
+    /**
+     * The plan of each parameter seen so far.
+     */
+    private final Map<MethodParameter, Plan> plans = new ConcurrentHashMap<>();
+
     /**
      * Constructs a new RequestBodySanitizerAdvice.
      * 
@@ -25,10 +69,12 @@ public class RequestBodySanitizerAdvice extends RequestBodyAdviceAdapter {
      */
     public RequestBodySanitizerAdvice(CleanerService cleaner) {
         this.cleaner = cleaner;
+        this.lazySanitizer = new LazySanitizer(cleaner);
     }
 
     /**
-     * Checks if the advice supports the given method parameter.
+     * Checks if the advice supports the given method parameter, that is if
+     * its body may need sanitizing.
      * 
      * @param methodParameter The method parameter.
      * @param targetType      The target type.
@@ -39,7 +85,7 @@ public class RequestBodySanitizerAdvice extends RequestBodyAdviceAdapter {
     @Override
     public boolean supports(MethodParameter methodParameter, Type targetType,
             Class<? extends HttpMessageConverter<?>> converterType) {
-        return true; // apply to all @RequestBody
+        return !planFor(methodParameter, targetType).skipped();
     }
 
     /**
@@ -56,7 +102,142 @@ public class RequestBodySanitizerAdvice extends RequestBodyAdviceAdapter {
     public Object afterBodyRead(Object body, HttpInputMessage inputMessage,
             MethodParameter parameter, Type targetType,
             Class<? extends HttpMessageConverter<?>> converterType) {
-        cleaner.cleanObject(body);
+        Plan plan = planFor(parameter, targetType);
+        if (body == null || plan.skipped() || body.getClass() == plan.inertType() || isSanitizedByFilter()) {
+            return body;
+        }
+        if (plan.lazy() != null && (plan.optedIn() || body.getClass().isAnnotationPresent(XssLazy.class))) {
+            return plan.lazy().sanitize(body, parameter == null ? Object.class : parameter.getParameterType());
+        }
+        plan.cleaner().cleanObject(body);
         return body;
     }
+
+    /**
+     * Checks if the body of the current request was rewritten by
+     * {@link XssJsonBodyFilter} as it was read.
+     *
+     * @return True if the filter sanitized the body, false otherwise.
+     */
+    private static boolean isSanitizedByFilter() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(XssJsonBodyFilter.SANITIZED_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    /**
+     * Gets the plan of a parameter, computing it on first use.
+     * 
+     * @param parameter  The method parameter, or null.
+     * @param targetType The target type, or null.
+     * @return The plan.
+     */
+    private Plan planFor(MethodParameter parameter, Type targetType) {
+        if (parameter == null) {
+            return plan(null, targetType);
+        }
+        Plan plan = plans.get(parameter);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(parameter, p -> plan(p, targetType));
+        }
+        return plan;
+    }
+
+    /**
+     * Decides how the body of a parameter is sanitized.
+     * 
+     * @param parameter  The method parameter, or null.
+     * @param targetType The target type, or null.
+     * @return The plan.
+     */
+    private Plan plan(MethodParameter parameter, Type targetType) {
+        Type type = targetType != null ? targetType
+                : parameter != null ? parameter.getGenericParameterType() : Object.class;
+        Class<?> raw = ResolvableType.forType(type).resolve(Object.class);
+        if (raw == String.class || raw.isPrimitive() || InputStream.class.isAssignableFrom(raw)
+                || Resource.class.isAssignableFrom(raw) || raw.isAnnotationPresent(XssIgnore.class)
+                || isAnnotated(parameter, XssIgnore.class) || !ReflectionCleaner.canHoldString(type)) {
+            return Plan.SKIP;
+        }
+
+        // A concrete body class holding no strings is skipped when the body
+        // is exactly of that class, not a subclass
+        Class<?> inertType = !raw.isInterface() && !Modifier.isAbstract(raw.getModifiers())
+                && !ReflectionCleaner.canReachString(raw) ? raw : null;
+
+        CleanerService planCleaner = cleaner;
+        XssPolicy policy = findAnnotation(parameter, XssPolicy.class);
+        if (policy != null) {
+            CleanerService named = PolicyRegistry.find(policy.value());
+            if (named != null) {
+                planCleaner = named;
+            }
+        }
+
+        LazySanitizer lazy = null;
+        boolean optedIn = raw.isAnnotationPresent(XssLazy.class) || isAnnotated(parameter, XssLazy.class);
+        if (!isValidated(parameter)) {
+            lazy = planCleaner == cleaner ? lazySanitizer : new LazySanitizer(planCleaner);
+        }
+        return new Plan(false, inertType, planCleaner, lazy, optedIn);
+    }
+
+    /**
+     * Checks if an annotation is present on a parameter, its handler method
+     * or its controller.
+     */
+    private static boolean isAnnotated(MethodParameter parameter, Class<? extends Annotation> annotationType) {
+        return findAnnotation(parameter, annotationType) != null;
+    }
+
+    /**
+     * Finds an annotation on a parameter, its handler method or its
+     * controller, in that order.
+     */
+    private static <A extends Annotation> A findAnnotation(MethodParameter parameter, Class<A> annotationType) {
+        if (parameter == null) {
+            return null;
+        }
+        A annotation = parameter.getParameterAnnotation(annotationType);
+        if (annotation == null) {
+            annotation = parameter.getMethodAnnotation(annotationType);
+        }
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(parameter.getContainingClass(), annotationType);
+        }
+        return annotation;
+    }
+
+    /**
+     * Checks if a parameter is validated, in which case its body is always
+     * sanitized eagerly.
+     */
+    private static boolean isValidated(MethodParameter parameter) {
+        if (parameter == null) {
+            return false;
+        }
+        for (Annotation annotation : parameter.getParameterAnnotations()) {
+            if (ValidationAnnotationUtils.determineValidationHints(annotation) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * How the body of a parameter is sanitized.
+     * 
+     * @param skipped   Whether the body is never sanitized.
+     * @param inertType The class of bodies holding no strings, or null.
+     * @param cleaner   The cleaner of eagerly sanitized bodies.
+     * @param lazy      The sanitizer of lazily sanitized bodies, or null if
+     *                  the parameter is validated.
+     * @param optedIn   Whether the parameter, handler, controller or declared
+     *                  class opted in to lazy sanitization.
+     */
+    private record Plan(boolean skipped, Class<?> inertType, CleanerService cleaner, LazySanitizer lazy,
+            boolean optedIn) {
+
+        static final Plan SKIP = new Plan(true, null, null, null, false);
+    }
 }
@@ -39,9 +39,8 @@ public class NoXssValidator implements ConstraintValidator<NoXss, String> {
             return true;
         }
 
-        // Clean the value
-        String cleaned = cleaner.clean(value);
-        return cleaned.equals(value);
+        // Valid only if cleaning would leave the value unchanged
+        return cleaner.isSafe(value);
 
     }
 }
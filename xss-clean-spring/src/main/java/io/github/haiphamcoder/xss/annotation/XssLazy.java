@@ -0,0 +1,14 @@
+package io.github.haiphamcoder.xss.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Sanitize a request body on access instead of after deserialization. Place
+ * it on a {@code @RequestBody} parameter, on a handler method or controller,
+ * or on the class of the body.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD, ElementType.PARAMETER })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface XssLazy {
+}
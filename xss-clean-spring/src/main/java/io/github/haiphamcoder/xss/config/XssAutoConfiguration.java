@@ -1,13 +1,23 @@
 package io.github.haiphamcoder.xss.config;
 
+import io.github.haiphamcoder.xss.CachingCleanerService;
 import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.ParallelCleanerService;
+import io.github.haiphamcoder.xss.PolicyRegistry;
 import io.github.haiphamcoder.xss.advice.RequestBodySanitizerAdvice;
+import io.github.haiphamcoder.xss.jackson.XssModule;
+import io.github.haiphamcoder.xss.policy.EscapeCleanerService;
 import io.github.haiphamcoder.xss.policy.JsoupCleanerService;
 import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
 import io.github.haiphamcoder.xss.policy.SanitizerStrategy;
+import io.github.haiphamcoder.xss.policy.StripTagsCleanerService;
+import io.github.haiphamcoder.xss.web.XssBindingPostProcessor;
 import io.github.haiphamcoder.xss.web.XssFilter;
+import io.github.haiphamcoder.xss.web.XssJsonBodyFilter;
 import org.jsoup.safety.Safelist;
+import org.owasp.html.HtmlPolicyBuilder;
 import org.owasp.html.PolicyFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureOrder;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -17,6 +27,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.util.StringUtils;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -28,7 +39,11 @@ import java.util.Set;
 public class XssAutoConfiguration {
 
     /**
-     * Creates a CleanerService based on the configured strategy.
+     * Creates a CleanerService based on the configured strategy, wrapped in a
+     * result cache when {@code xss.cleaner.cache.enabled} is set, and in a
+     * parallel object cleaner when {@code xss.cleaner.parallel.enabled} is
+     * set. Each configured profile is registered in {@link PolicyRegistry},
+     * so that {@code @XssPolicy} members can name it.
      * 
      * @param props The XSS properties.
      * @return The CleanerService.
@@ -36,10 +51,38 @@ public class XssAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     CleanerService cleanerService(XssProperties props) {
+        CleanerService cleaner = createCleanerFromStrategy(props);
+        registerProfilePolicies(props);
+
+        XssProperties.Cache cache = props.getCache();
+        if (cache.isEnabled()) {
+            cleaner = new CachingCleanerService(cleaner, cache.getMaximumWeight(), cache.getMaxInputLength());
+        }
+
+        XssProperties.Parallel parallel = props.getParallel();
+        if (parallel.isEnabled()) {
+            cleaner = new ParallelCleanerService(cleaner, parallel.getThreshold(), parallel.getParallelism());
+        }
+        return cleaner;
+    }
+
+    /**
+     * Creates the CleanerService engine for the configured strategy.
+     * 
+     * @param props The XSS properties.
+     * @return The CleanerService.
+     */
+    private CleanerService createCleanerFromStrategy(XssProperties props) {
         if (SanitizerStrategy.JSOUP.name().equalsIgnoreCase(props.getStrategy())) {
             // Create JsoupCleanerService with profile-based safelist
             Safelist safelist = createSafelistFromProfile(props);
             return new JsoupCleanerService(safelist);
+        } else if (SanitizerStrategy.STRIP_TAGS.name().equalsIgnoreCase(props.getStrategy())) {
+            // Remove all markup without the OWASP policy engine
+            return new StripTagsCleanerService();
+        } else if (SanitizerStrategy.ESCAPE.name().equalsIgnoreCase(props.getStrategy())) {
+            // Encode markup instead of removing it
+            return new EscapeCleanerService();
         } else {
             // Create OwaspCleanerService with configured policy
             PolicyFactory policy = createPolicyFromConfiguration(props);
@@ -47,6 +90,46 @@ public class XssAutoConfiguration {
         }
     }
 
+    /**
+     * Registers a cleaner for each configured profile under the name of the
+     * profile. Profiles use JSoup with the jsoup strategy, and the OWASP
+     * engine otherwise.
+     * 
+     * @param props The XSS properties.
+     */
+    private void registerProfilePolicies(XssProperties props) {
+        boolean jsoup = SanitizerStrategy.JSOUP.name().equalsIgnoreCase(props.getStrategy());
+        props.getProfiles().forEach((name, profile) -> PolicyRegistry.register(name,
+                jsoup ? new JsoupCleanerService(createSafelist(profile)) : new OwaspCleanerService(createPolicy(profile))));
+    }
+
+    /**
+     * Creates an OWASP policy allowing the tags and attributes of the given
+     * profile.
+     * 
+     * @param profile The profile.
+     * @return The PolicyFactory.
+     */
+    private PolicyFactory createPolicy(XssProperties.Profile profile) {
+        HtmlPolicyBuilder builder = new HtmlPolicyBuilder().allowStandardUrlProtocols();
+        String[] tags = split(profile.getAllowedTags());
+        if (tags.length > 0) {
+            builder.allowElements(tags);
+            String[] attributes = split(profile.getAllowedAttributes());
+            if (attributes.length > 0) {
+                builder.allowAttributes(attributes).onElements(tags);
+            }
+        }
+        return builder.toFactory();
+    }
+
+    private static String[] split(String list) {
+        if (!StringUtils.hasText(list)) {
+            return new String[0];
+        }
+        return Arrays.stream(list.split(",")).map(String::trim).filter(StringUtils::hasText).toArray(String[]::new);
+    }
+
     /**
      * Creates a Safelist based on the configured profile.
      * 
@@ -61,7 +144,17 @@ public class XssAutoConfiguration {
             // Use default safelist if profile not found
             return Safelist.none();
         }
+        return createSafelist(profile);
+    }
 
+    /**
+     * Creates a Safelist allowing the tags and attributes of the given
+     * profile.
+     * 
+     * @param profile The profile.
+     * @return The Safelist.
+     */
+    private Safelist createSafelist(XssProperties.Profile profile) {
         Safelist safelist = Safelist.none();
         Set<String> addedTags = new HashSet<>();
 
@@ -110,27 +203,78 @@ public class XssAutoConfiguration {
     }
 
     /**
-     * Creates a XssFilter.
+     * Creates a XssFilter, unless parameters are sanitized during data
+     * binding.
      * 
      * @param cleanerService The CleanerService.
      * @param properties     The XSS properties.
      * @return The XssFilter.
      */
     @Bean
+    @ConditionalOnProperty(prefix = "xss.cleaner", name = "mode", havingValue = "filter", matchIfMissing = true)
     XssFilter xssFilter(CleanerService cleanerService, XssProperties properties) {
         return new XssFilter(cleanerService, properties);
     }
 
     /**
-     * Creates a RequestBodySanitizerAdvice.
+     * Creates a XssBindingPostProcessor sanitizing the values bound to handler
+     * method parameters and model attributes when {@code xss.cleaner.mode} is
+     * {@code binding}. The method is static so that the post-processor does
+     * not initialize this configuration early.
+     * 
+     * @param cleanerService The CleanerService.
+     * @param properties     The XSS properties.
+     * @return The XssBindingPostProcessor.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "xss.cleaner", name = "mode", havingValue = "binding")
+    static XssBindingPostProcessor xssBindingPostProcessor(ObjectProvider<CleanerService> cleanerService,
+            ObjectProvider<XssProperties> properties) {
+        return new XssBindingPostProcessor(cleanerService, properties);
+    }
+
+    /**
+     * Creates a XssJsonBodyFilter rewriting JSON request bodies when
+     * {@code xss.cleaner.json-body.enabled} is set.
+     * 
+     * @param cleanerService The CleanerService.
+     * @param properties     The XSS properties.
+     * @return The XssJsonBodyFilter.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "xss.cleaner.json-body", name = "enabled", havingValue = "true")
+    XssJsonBodyFilter xssJsonBodyFilter(CleanerService cleanerService, XssProperties properties) {
+        return new XssJsonBodyFilter(cleanerService, properties);
+    }
+
+    /**
+     * Creates a RequestBodySanitizerAdvice, unless request bodies are
+     * sanitized during deserialization. Bodies rewritten by the JSON body
+     * filter are skipped by the advice itself.
      * 
      * @param cleanerService The CleanerService.
      * @return The RequestBodySanitizerAdvice.
      */
     @Bean
     @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "xss.cleaner.jackson", name = "enabled", havingValue = "false", matchIfMissing = true)
     RequestBodySanitizerAdvice requestBodySanitizerAdvice(CleanerService cleanerService) {
         return new RequestBodySanitizerAdvice(cleanerService);
     }
 
+    /**
+     * Creates a XssModule sanitizing strings during deserialization when
+     * {@code xss.cleaner.jackson.enabled} is set. Spring Boot registers it on
+     * the auto-configured ObjectMapper.
+     * 
+     * @param cleanerService The CleanerService.
+     * @return The XssModule.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "xss.cleaner.jackson", name = "enabled", havingValue = "true")
+    XssModule xssModule(CleanerService cleanerService) {
+        return new XssModule(cleanerService);
+    }
+
 }
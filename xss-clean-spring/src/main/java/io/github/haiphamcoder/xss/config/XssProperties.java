@@ -2,6 +2,7 @@ package io.github.haiphamcoder.xss.config;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +21,13 @@ public class XssProperties {
      */
     private String strategy = "owasp";
 
+    /**
+     * Where request parameters and headers are sanitized: {@code filter}
+     * wraps every request, {@code binding} cleans only the values bound to
+     * handler method parameters and model attributes.
+     */
+    private String mode = "filter";
+
     /**
      * Whether to throw an exception when a violation is detected.
      */
@@ -46,6 +54,38 @@ public class XssProperties {
      * Default: [NONE] - removes all HTML tags
      */
     private List<OwaspPolicy> owaspPolicies = new ArrayList<>();
+
+    /**
+     * The result cache settings for XSS cleaning.
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * The parallel object cleaning settings for XSS cleaning.
+     */
+    private Parallel parallel = new Parallel();
+
+    /**
+     * The Jackson deserialization settings for XSS cleaning.
+     */
+    private Jackson jackson = new Jackson();
+
+    /**
+     * The JSON body rewriting settings for XSS cleaning.
+     */
+    private JsonBody jsonBody = new JsonBody();
+
+    /**
+     * The request matching settings of the XSS filter.
+     */
+    private Filter filter = new Filter();
+
+    /**
+     * The policy of each request header: {@code skip}, {@code sanitize} or the
+     * name of a registered policy, keyed by header name compared without case.
+     * The {@code *} entry applies to headers not listed.
+     */
+    private Map<String, String> headers = new LinkedHashMap<>();
     
     /**
      * Constructor to initialize default OWASP policy.
@@ -86,6 +126,24 @@ public class XssProperties {
         this.strategy = strategy;
     }
 
+    /**
+     * Gets where request parameters and headers are sanitized.
+     * 
+     * @return The mode, {@code filter} or {@code binding}.
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets where request parameters and headers are sanitized.
+     * 
+     * @param mode The mode, {@code filter} or {@code binding}.
+     */
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
     /**
      * Gets whether to throw an exception when a violation is detected.
      * 
@@ -177,6 +235,114 @@ public class XssProperties {
         this.owaspPolicies = owaspPolicies;
     }
 
+    /**
+     * Gets the result cache settings for XSS cleaning.
+     * 
+     * @return The result cache settings.
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the result cache settings for XSS cleaning.
+     * 
+     * @param cache The result cache settings.
+     */
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Gets the parallel object cleaning settings for XSS cleaning.
+     * 
+     * @return The parallel object cleaning settings.
+     */
+    public Parallel getParallel() {
+        return parallel;
+    }
+
+    /**
+     * Sets the parallel object cleaning settings for XSS cleaning.
+     * 
+     * @param parallel The parallel object cleaning settings.
+     */
+    public void setParallel(Parallel parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Gets the Jackson deserialization settings for XSS cleaning.
+     * 
+     * @return The Jackson deserialization settings.
+     */
+    public Jackson getJackson() {
+        return jackson;
+    }
+
+    /**
+     * Sets the Jackson deserialization settings for XSS cleaning.
+     * 
+     * @param jackson The Jackson deserialization settings.
+     */
+    public void setJackson(Jackson jackson) {
+        this.jackson = jackson;
+    }
+
+    /**
+     * Gets the JSON body rewriting settings for XSS cleaning.
+     * 
+     * @return The JSON body rewriting settings.
+     */
+    public JsonBody getJsonBody() {
+        return jsonBody;
+    }
+
+    /**
+     * Sets the JSON body rewriting settings for XSS cleaning.
+     * 
+     * @param jsonBody The JSON body rewriting settings.
+     */
+    public void setJsonBody(JsonBody jsonBody) {
+        this.jsonBody = jsonBody;
+    }
+
+    /**
+     * Gets the request matching settings of the XSS filter.
+     * 
+     * @return The request matching settings.
+     */
+    public Filter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Sets the request matching settings of the XSS filter.
+     * 
+     * @param filter The request matching settings.
+     */
+    public void setFilter(Filter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Gets the policy of each request header.
+     * 
+     * @return The header policy table.
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Sets the policy of each request header.
+     * 
+     * @param headers The header policy table.
+     */
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
     /**
      * The profile to use for XSS cleaning.
      */
@@ -229,4 +395,446 @@ public class XssProperties {
         }
     }
 
+    /**
+     * The result cache settings for XSS cleaning.
+     */
+    public static class Cache {
+
+        /**
+         * Whether cleaned values are cached.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of characters held by the cache.
+         */
+        private long maximumWeight = 1_048_576;
+
+        /**
+         * The maximum length of a value to be cached.
+         */
+        private int maxInputLength = 1024;
+
+        /**
+         * Gets whether cleaned values are cached.
+         * 
+         * @return Whether cleaned values are cached.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether cleaned values are cached.
+         * 
+         * @param enabled Whether cleaned values are cached.
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets the maximum number of characters held by the cache.
+         * 
+         * @return The maximum number of characters held by the cache.
+         */
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        /**
+         * Sets the maximum number of characters held by the cache.
+         * 
+         * @param maximumWeight The maximum number of characters held by the cache.
+         */
+        public void setMaximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        /**
+         * Gets the maximum length of a value to be cached.
+         * 
+         * @return The maximum length of a value to be cached.
+         */
+        public int getMaxInputLength() {
+            return maxInputLength;
+        }
+
+        /**
+         * Sets the maximum length of a value to be cached.
+         * 
+         * @param maxInputLength The maximum length of a value to be cached.
+         */
+        public void setMaxInputLength(int maxInputLength) {
+            this.maxInputLength = maxInputLength;
+        }
+    }
+
+    /**
+     * The parallel object cleaning settings for XSS cleaning.
+     */
+    public static class Parallel {
+
+        /**
+         * Whether large arrays and collections are cleaned in parallel.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The minimum number of elements of an array or collection cleaned in
+         * parallel.
+         */
+        private int threshold = 4096;
+
+        /**
+         * The number of threads of a dedicated pool, or 0 to use the common
+         * pool.
+         */
+        private int parallelism = 0;
+
+        /**
+         * Gets whether large arrays and collections are cleaned in parallel.
+         * 
+         * @return Whether large arrays and collections are cleaned in parallel.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether large arrays and collections are cleaned in parallel.
+         * 
+         * @param enabled Whether large arrays and collections are cleaned in
+         *                parallel.
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets the minimum number of elements of an array or collection
+         * cleaned in parallel.
+         * 
+         * @return The minimum number of elements cleaned in parallel.
+         */
+        public int getThreshold() {
+            return threshold;
+        }
+
+        /**
+         * Sets the minimum number of elements of an array or collection
+         * cleaned in parallel.
+         * 
+         * @param threshold The minimum number of elements cleaned in parallel.
+         */
+        public void setThreshold(int threshold) {
+            this.threshold = threshold;
+        }
+
+        /**
+         * Gets the number of threads of a dedicated pool.
+         * 
+         * @return The number of threads, or 0 to use the common pool.
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Sets the number of threads of a dedicated pool.
+         * 
+         * @param parallelism The number of threads, or 0 to use the common
+         *                    pool.
+         */
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * The Jackson deserialization settings for XSS cleaning.
+     */
+    public static class Jackson {
+
+        /**
+         * Whether strings are sanitized while request bodies are read, instead
+         * of walking the body after deserialization.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Gets whether strings are sanitized while request bodies are read.
+         * 
+         * @return Whether strings are sanitized while request bodies are read.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether strings are sanitized while request bodies are read.
+         * 
+         * @param enabled Whether strings are sanitized while request bodies
+         *                are read.
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * The JSON body rewriting settings for XSS cleaning.
+     */
+    public static class JsonBody {
+
+        /**
+         * Whether JSON request bodies are rewritten by a servlet filter.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Whether field names are cleaned along with string values.
+         */
+        private boolean sanitizeFieldNames = false;
+
+        /**
+         * The rules selecting the strings cleaned in the bodies of matching
+         * endpoints. The first rule whose endpoint matches applies, and
+         * bodies of other endpoints are cleaned entirely.
+         */
+        private List<PathRule> rules = new ArrayList<>();
+
+        /**
+         * Gets whether JSON request bodies are rewritten by a servlet filter.
+         * 
+         * @return Whether JSON request bodies are rewritten.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether JSON request bodies are rewritten by a servlet filter.
+         * 
+         * @param enabled Whether JSON request bodies are rewritten.
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets whether field names are cleaned along with string values.
+         * 
+         * @return Whether field names are cleaned.
+         */
+        public boolean isSanitizeFieldNames() {
+            return sanitizeFieldNames;
+        }
+
+        /**
+         * Sets whether field names are cleaned along with string values.
+         * 
+         * @param sanitizeFieldNames Whether field names are cleaned.
+         */
+        public void setSanitizeFieldNames(boolean sanitizeFieldNames) {
+            this.sanitizeFieldNames = sanitizeFieldNames;
+        }
+
+        /**
+         * Gets the rules selecting the strings cleaned per endpoint.
+         * 
+         * @return The rules.
+         */
+        public List<PathRule> getRules() {
+            return rules;
+        }
+
+        /**
+         * Sets the rules selecting the strings cleaned per endpoint.
+         * 
+         * @param rules The rules.
+         */
+        public void setRules(List<PathRule> rules) {
+            this.rules = rules;
+        }
+    }
+
+    /**
+     * The strings of a JSON body cleaned for an endpoint, as JSON Pointers
+     * whose segments may be {@code *} or {@code **}.
+     */
+    public static class PathRule {
+
+        /**
+         * The Ant-style pattern of the request paths the rule applies to.
+         */
+        private String endpoint = "/**";
+
+        /**
+         * The JSON Pointers of the strings to clean, or empty to clean all
+         * strings.
+         */
+        private List<String> include = new ArrayList<>();
+
+        /**
+         * The JSON Pointers of the strings not to clean.
+         */
+        private List<String> exclude = new ArrayList<>();
+
+        /**
+         * Gets the pattern of the request paths the rule applies to.
+         * 
+         * @return The endpoint pattern.
+         */
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * Sets the pattern of the request paths the rule applies to.
+         * 
+         * @param endpoint The endpoint pattern.
+         */
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * Gets the JSON Pointers of the strings to clean.
+         * 
+         * @return The included JSON Pointers.
+         */
+        public List<String> getInclude() {
+            return include;
+        }
+
+        /**
+         * Sets the JSON Pointers of the strings to clean.
+         * 
+         * @param include The included JSON Pointers.
+         */
+        public void setInclude(List<String> include) {
+            this.include = include;
+        }
+
+        /**
+         * Gets the JSON Pointers of the strings not to clean.
+         * 
+         * @return The excluded JSON Pointers.
+         */
+        public List<String> getExclude() {
+            return exclude;
+        }
+
+        /**
+         * Sets the JSON Pointers of the strings not to clean.
+         * 
+         * @param exclude The excluded JSON Pointers.
+         */
+        public void setExclude(List<String> exclude) {
+            this.exclude = exclude;
+        }
+    }
+
+
+    /**
+     * The requests wrapped by the XSS filter. Path patterns are Ant-style
+     * patterns matched against the path within the application.
+     */
+    public static class Filter {
+
+        /**
+         * The path patterns of the requests to filter, or empty to filter all
+         * requests.
+         */
+        private List<String> include = new ArrayList<>();
+
+        /**
+         * The path patterns of the requests not to filter.
+         */
+        private List<String> exclude = new ArrayList<>();
+
+        /**
+         * The HTTP methods of the requests not to filter.
+         */
+        private List<String> excludeMethods = new ArrayList<>();
+
+        /**
+         * The content types of the requests not to filter, which may be
+         * wildcards such as {@code multipart/*}.
+         */
+        private List<String> excludeContentTypes = new ArrayList<>();
+
+        /**
+         * Gets the path patterns of the requests to filter.
+         * 
+         * @return The included path patterns.
+         */
+        public List<String> getInclude() {
+            return include;
+        }
+
+        /**
+         * Sets the path patterns of the requests to filter.
+         * 
+         * @param include The included path patterns.
+         */
+        public void setInclude(List<String> include) {
+            this.include = include;
+        }
+
+        /**
+         * Gets the path patterns of the requests not to filter.
+         * 
+         * @return The excluded path patterns.
+         */
+        public List<String> getExclude() {
+            return exclude;
+        }
+
+        /**
+         * Sets the path patterns of the requests not to filter.
+         * 
+         * @param exclude The excluded path patterns.
+         */
+        public void setExclude(List<String> exclude) {
+            this.exclude = exclude;
+        }
+
+        /**
+         * Gets the HTTP methods of the requests not to filter.
+         * 
+         * @return The excluded HTTP methods.
+         */
+        public List<String> getExcludeMethods() {
+            return excludeMethods;
+        }
+
+        /**
+         * Sets the HTTP methods of the requests not to filter.
+         * 
+         * @param excludeMethods The excluded HTTP methods.
+         */
+        public void setExcludeMethods(List<String> excludeMethods) {
+            this.excludeMethods = excludeMethods;
+        }
+
+        /**
+         * Gets the content types of the requests not to filter.
+         * 
+         * @return The excluded content types.
+         */
+        public List<String> getExcludeContentTypes() {
+            return excludeContentTypes;
+        }
+
+        /**
+         * Sets the content types of the requests not to filter.
+         * 
+         * @param excludeContentTypes The excluded content types.
+         */
+        public void setExcludeContentTypes(List<String> excludeContentTypes) {
+            this.excludeContentTypes = excludeContentTypes;
+        }
+    }
 }
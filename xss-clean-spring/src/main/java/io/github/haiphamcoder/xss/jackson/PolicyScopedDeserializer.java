@@ -0,0 +1,204 @@
+package io.github.haiphamcoder.xss.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.PolicyRegistry;
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+
+import java.io.IOException;
+
+/**
+ * The PolicyScopedDeserializer class applies the {@link XssIgnore} or
+ * {@link XssPolicy} annotation of a type or property to every string read
+ * below it, by storing the scope in a per-call attribute of the
+ * {@link DeserializationContext} while its delegate runs. Nested scopes
+ * replace outer ones, and a policy that is not registered in
+ * {@link PolicyRegistry} leaves the outer scope in place.
+ */
+final class PolicyScopedDeserializer extends DelegatingDeserializer {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The attribute holding the current scope.
+     */
+    static final Object SCOPE = PolicyScopedDeserializer.class;
+
+    /**
+     * The scope of values read without sanitizing.
+     */
+    static final Object IGNORE = new Object();
+
+    /**
+     * {@link #IGNORE} or the name of a policy.
+     */
+    private final Object scope;
+
+    /**
+     * Constructs a new PolicyScopedDeserializer.
+     *
+     * @param delegatee The deserializer of the value, or null to find it when
+     *                  the property is contextualized.
+     * @param scope     {@link #IGNORE} or the name of a policy.
+     */
+    PolicyScopedDeserializer(JsonDeserializer<?> delegatee, Object scope) {
+        super(delegatee == null ? Unresolved.INSTANCE : delegatee);
+        this.scope = scope;
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+        return new PolicyScopedDeserializer(newDelegatee, scope);
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property)
+            throws JsonMappingException {
+        if (_delegatee == Unresolved.INSTANCE) {
+            return newDelegatingInstance(ctxt.findContextualValueDeserializer(property.getType(), property));
+        }
+        return super.createContextual(ctxt, property);
+    }
+
+    @Override
+    public boolean isCachable() {
+        return _delegatee != Unresolved.INSTANCE && super.isCachable();
+    }
+
+    @Override
+    public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        Object previous = enter(ctxt);
+        try {
+            return super.deserialize(p, ctxt);
+        } finally {
+            ctxt.setAttribute(SCOPE, previous);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object deserialize(JsonParser p, DeserializationContext ctxt, Object intoValue) throws IOException {
+        Object previous = enter(ctxt);
+        try {
+            return ((JsonDeserializer<Object>) _delegatee).deserialize(p, ctxt, intoValue);
+        } finally {
+            ctxt.setAttribute(SCOPE, previous);
+        }
+    }
+
+    @Override
+    public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer)
+            throws IOException {
+        Object previous = enter(ctxt);
+        try {
+            return super.deserializeWithType(p, ctxt, typeDeserializer);
+        } finally {
+            ctxt.setAttribute(SCOPE, previous);
+        }
+    }
+
+    /**
+     * Makes this scope the current one, unless it names an unknown policy.
+     *
+     * @param ctxt The context.
+     * @return The previous scope.
+     */
+    private Object enter(DeserializationContext ctxt) {
+        Object previous = ctxt.getAttribute(SCOPE);
+        if (scope == IGNORE || PolicyRegistry.find((String) scope) != null) {
+            ctxt.setAttribute(SCOPE, scope);
+        }
+        return previous;
+    }
+
+    /**
+     * Gets the scope declared by the annotations of a property.
+     *
+     * @param property The property, or null.
+     * @return {@link #IGNORE}, the name of a policy, or null.
+     */
+    static Object scopeOf(BeanProperty property) {
+        if (property == null) {
+            return null;
+        }
+        if (property.getAnnotation(XssIgnore.class) != null) {
+            return IGNORE;
+        }
+        XssPolicy policy = property.getAnnotation(XssPolicy.class);
+        return policy == null ? null : policy.value();
+    }
+
+    /**
+     * Gets the scope declared by the annotations of a class.
+     *
+     * @param annotated The annotated class.
+     * @return {@link #IGNORE}, the name of a policy, or null.
+     */
+    static Object scopeOf(Annotated annotated) {
+        if (annotated.hasAnnotation(XssIgnore.class)) {
+            return IGNORE;
+        }
+        XssPolicy policy = annotated.getAnnotation(XssPolicy.class);
+        return policy == null ? null : policy.value();
+    }
+
+    /**
+     * Gets the cleaner applying to a string, from the scope of its property
+     * or else the current scope of the context.
+     *
+     * @param scope   The scope of the property, or null.
+     * @param cleaner The default cleaner.
+     * @param ctxt    The context.
+     * @return The cleaner, or null if the string is read as-is.
+     */
+    static CleanerService cleanerFor(Object scope, CleanerService cleaner, DeserializationContext ctxt) {
+        if (scope instanceof String policy) {
+            CleanerService named = PolicyRegistry.find(policy);
+            if (named != null) {
+                return named;
+            }
+            scope = null;
+        }
+        if (scope == null) {
+            scope = ctxt.getAttribute(SCOPE);
+        }
+        if (scope == IGNORE) {
+            return null;
+        }
+        if (scope instanceof String policy) {
+            CleanerService named = PolicyRegistry.find(policy);
+            return named == null ? cleaner : named;
+        }
+        return cleaner;
+    }
+
+    /**
+     * Stands in for the deserializer of a property until the property is
+     * contextualized.
+     */
+    private static final class Unresolved extends StdDeserializer<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        static final Unresolved INSTANCE = new Unresolved();
+
+        private Unresolved() {
+            super(Object.class);
+        }
+
+        @Override
+        public Object deserialize(JsonParser p, DeserializationContext ctxt) {
+            throw new IllegalStateException("Deserializer of scoped property was not contextualized");
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package io.github.haiphamcoder.xss.jackson;
+
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualKeyDeserializer;
+import io.github.haiphamcoder.xss.CleanerService;
+
+/**
+ * The SanitizingKeyDeserializer class cleans the string keys of maps as they
+ * are read, applying the {@code XssIgnore} and {@code XssPolicy} annotations
+ * of the map property like {@link SanitizingStringDeserializer}.
+ */
+public class SanitizingKeyDeserializer extends KeyDeserializer implements ContextualKeyDeserializer {
+
+    /**
+     * The cleaner to use.
+     */
+    private final CleanerService cleaner;
+
+    /**
+     * The scope of the property, or null to use the scope of the context.
+     */
+    private final Object scope;
+
+    /**
+     * Constructs a new SanitizingKeyDeserializer.
+     *
+     * @param cleaner The cleaner to use.
+     */
+    public SanitizingKeyDeserializer(CleanerService cleaner) {
+        this(cleaner, null);
+    }
+
+    private SanitizingKeyDeserializer(CleanerService cleaner, Object scope) {
+        if (cleaner == null) {
+            throw new IllegalArgumentException("cleaner must not be null");
+        }
+        this.cleaner = cleaner;
+        this.scope = scope;
+    }
+
+    /**
+     * Creates a key deserializer applying the annotations of the given
+     * property.
+     *
+     * @param ctxt     The context.
+     * @param property The map property, or null.
+     * @return The key deserializer.
+     */
+    @Override
+    public KeyDeserializer createContextual(DeserializationContext ctxt, BeanProperty property) {
+        Object propertyScope = PolicyScopedDeserializer.scopeOf(property);
+        return propertyScope == null ? this : new SanitizingKeyDeserializer(cleaner, propertyScope);
+    }
+
+    /**
+     * Cleans a key.
+     *
+     * @param key  The raw key.
+     * @param ctxt The context.
+     * @return The cleaned key.
+     */
+    @Override
+    public Object deserializeKey(String key, DeserializationContext ctxt) {
+        if (key == null) {
+            return null;
+        }
+        CleanerService target = PolicyScopedDeserializer.cleanerFor(scope, cleaner, ctxt);
+        return target == null ? key : target.clean(key);
+    }
+
+}
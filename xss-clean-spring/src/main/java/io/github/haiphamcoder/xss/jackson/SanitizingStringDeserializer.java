@@ -0,0 +1,101 @@
+package io.github.haiphamcoder.xss.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.type.LogicalType;
+import io.github.haiphamcoder.xss.CleanerService;
+
+import java.io.IOException;
+
+/**
+ * The SanitizingStringDeserializer class cleans each string as it is read.
+ * Jackson also uses it for the elements of string arrays and collections,
+ * the values of string maps and the strings of untyped values, so these need
+ * no deserializer of their own. The {@code XssIgnore} and {@code XssPolicy}
+ * annotations of the property holding the string take precedence over the
+ * scope of the enclosing object.
+ */
+public class SanitizingStringDeserializer extends StdScalarDeserializer<String> implements ContextualDeserializer {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The cleaner to use.
+     */
+    private final transient CleanerService cleaner;
+
+    /**
+     * The scope of the property, or null to use the scope of the context.
+     */
+    private final transient Object scope;
+
+    /**
+     * Constructs a new SanitizingStringDeserializer.
+     *
+     * @param cleaner The cleaner to use.
+     */
+    public SanitizingStringDeserializer(CleanerService cleaner) {
+        this(cleaner, null);
+    }
+
+    private SanitizingStringDeserializer(CleanerService cleaner, Object scope) {
+        super(String.class);
+        if (cleaner == null) {
+            throw new IllegalArgumentException("cleaner must not be null");
+        }
+        this.cleaner = cleaner;
+        this.scope = scope;
+    }
+
+    /**
+     * Creates a deserializer applying the annotations of the given property.
+     *
+     * @param ctxt     The context.
+     * @param property The property, or null.
+     * @return The deserializer.
+     */
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) {
+        Object propertyScope = PolicyScopedDeserializer.scopeOf(property);
+        return propertyScope == null ? this : new SanitizingStringDeserializer(cleaner, propertyScope);
+    }
+
+    /**
+     * Reads a string, coercing scalars as Jackson does, and cleans it.
+     *
+     * @param p    The parser.
+     * @param ctxt The context.
+     * @return The cleaned string.
+     * @throws IOException If the value cannot be read as a string.
+     */
+    @Override
+    public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        String raw = StringDeserializer.instance.deserialize(p, ctxt);
+        if (raw == null) {
+            return null;
+        }
+        CleanerService target = PolicyScopedDeserializer.cleanerFor(scope, cleaner, ctxt);
+        return target == null ? raw : target.clean(raw);
+    }
+
+    @Override
+    public LogicalType logicalType() {
+        return LogicalType.Textual;
+    }
+
+    @Override
+    public boolean isCachable() {
+        return true;
+    }
+
+    @Override
+    public Object getEmptyValue(DeserializationContext ctxt) {
+        return "";
+    }
+
+}
@@ -0,0 +1,72 @@
+package io.github.haiphamcoder.xss.jackson;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The XssBeanDeserializerModifier class extends the {@code XssIgnore} and
+ * {@code XssPolicy} annotations of bean classes and bean properties to
+ * everything read below them. Classes are wrapped as a whole, and properties
+ * holding objects or containers get a scoped value deserializer; string
+ * properties are handled by {@link SanitizingStringDeserializer} directly.
+ */
+public class XssBeanDeserializerModifier extends BeanDeserializerModifier {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Scopes the non-string properties annotated with {@code XssIgnore} or
+     * {@code XssPolicy}.
+     *
+     * @param config   The configuration.
+     * @param beanDesc The bean description.
+     * @param builder  The builder of the bean deserializer.
+     * @return The builder.
+     */
+    @Override
+    public BeanDeserializerBuilder updateBuilder(DeserializationConfig config, BeanDescription beanDesc,
+            BeanDeserializerBuilder builder) {
+        List<SettableBeanProperty> scoped = new ArrayList<>();
+        Iterator<SettableBeanProperty> properties = builder.getProperties();
+        while (properties.hasNext()) {
+            SettableBeanProperty property = properties.next();
+            if (property.getType().hasRawClass(String.class)) {
+                continue;
+            }
+            Object scope = PolicyScopedDeserializer.scopeOf(property);
+            if (scope != null) {
+                JsonDeserializer<?> deserializer = property.hasValueDeserializer() ? property.getValueDeserializer() : null;
+                scoped.add(property.withValueDeserializer(new PolicyScopedDeserializer(deserializer, scope)));
+            }
+        }
+        for (SettableBeanProperty property : scoped) {
+            builder.addOrReplaceProperty(property, true);
+        }
+        return builder;
+    }
+
+    /**
+     * Scopes the deserializer of a class annotated with {@code XssIgnore} or
+     * {@code XssPolicy}.
+     *
+     * @param config       The configuration.
+     * @param beanDesc     The bean description.
+     * @param deserializer The bean deserializer.
+     * @return The deserializer, scoped if the class is annotated.
+     */
+    @Override
+    public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc,
+            JsonDeserializer<?> deserializer) {
+        Object scope = PolicyScopedDeserializer.scopeOf(beanDesc.getClassInfo());
+        return scope == null ? deserializer : new PolicyScopedDeserializer(deserializer, scope);
+    }
+
+}
@@ -0,0 +1,48 @@
+package io.github.haiphamcoder.xss.jackson;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.github.haiphamcoder.xss.CleanerService;
+
+/**
+ * The XssModule class sanitizes strings while Jackson reads them, so request
+ * bodies need no reflective walk after deserialization. It registers
+ * {@link SanitizingStringDeserializer} for values,
+ * {@link SanitizingKeyDeserializer} for map keys and
+ * {@link XssBeanDeserializerModifier} for the {@code XssIgnore} and
+ * {@code XssPolicy} annotations.
+ */
+public class XssModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The cleaner to use.
+     */
+    private final transient CleanerService cleaner;
+
+    /**
+     * Constructs a new XssModule.
+     *
+     * @param cleaner The cleaner to use.
+     */
+    public XssModule(CleanerService cleaner) {
+        super(XssModule.class.getSimpleName());
+        if (cleaner == null) {
+            throw new IllegalArgumentException("cleaner must not be null");
+        }
+        this.cleaner = cleaner;
+        addDeserializer(String.class, new SanitizingStringDeserializer(cleaner));
+        addKeyDeserializer(String.class, new SanitizingKeyDeserializer(cleaner));
+        setDeserializerModifier(new XssBeanDeserializerModifier());
+    }
+
+    /**
+     * Gets the cleaner to use.
+     *
+     * @return The cleaner.
+     */
+    public CleanerService getCleaner() {
+        return cleaner;
+    }
+
+}
@@ -0,0 +1,168 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.config.XssProperties;
+import io.github.haiphamcoder.xss.exception.XssViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The BindingSanitizer class cleans values bound to handler method parameters
+ * and model attributes, with the same logging and exception handling as
+ * {@link XssRequestWrapper}. Strings are cleaned in the shapes argument
+ * resolvers produce them: alone, in arrays, lists, sets, optionals, maps and
+ * multi-value maps. Other values are returned as-is.
+ */
+final class BindingSanitizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BindingSanitizer.class);
+    private static final String SUFFIX = "]";
+
+    /**
+     * The XSS properties.
+     */
+    private final XssProperties properties;
+
+    /**
+     * Constructs a new BindingSanitizer.
+     *
+     * @param properties The XSS properties.
+     */
+    BindingSanitizer(XssProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Cleans a bound value.
+     *
+     * @param value   The value.
+     * @param cleaner The cleaner to use.
+     * @param prefix  The prefix of the context for logging.
+     * @param name    The name of the value.
+     * @return The cleaned value, a copy of the value if it is a container.
+     */
+    Object sanitize(Object value, CleanerService cleaner, String prefix, String name) {
+        if (value instanceof String string) {
+            return clean(string, cleaner, prefix, name);
+        }
+        if (value instanceof String[] array) {
+            return cleanAll(array, cleaner, prefix, name);
+        }
+        if (value instanceof Optional<?> optional) {
+            return optional.map(element -> sanitize(element, cleaner, prefix, name));
+        }
+        if (value instanceof HttpHeaders headers) {
+            HttpHeaders cleaned = new HttpHeaders();
+            headers.forEach((key, values) -> cleaned.put(key,
+                    Arrays.asList(cleanAll(values.toArray(new String[0]), cleaner, prefix, key))));
+            return cleaned;
+        }
+        if (value instanceof MultiValueMap<?, ?> map) {
+            MultiValueMap<Object, Object> cleaned = new LinkedMultiValueMap<>(map.size());
+            map.forEach((key, values) -> cleaned.put(key, sanitizeList(values, cleaner, prefix, String.valueOf(key))));
+            return cleaned;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> cleaned = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+            map.forEach((key, element) -> cleaned.put(key, sanitize(element, cleaner, prefix, String.valueOf(key))));
+            return cleaned;
+        }
+        if (value instanceof List<?> list) {
+            return sanitizeList(list, cleaner, prefix, name);
+        }
+        if (value instanceof Set<?> set) {
+            Set<Object> cleaned = new LinkedHashSet<>(set.size() * 4 / 3 + 1);
+            for (Object element : set) {
+                cleaned.add(sanitize(element, cleaner, prefix, name));
+            }
+            return cleaned;
+        }
+        return value;
+    }
+
+    private List<Object> sanitizeList(Collection<?> values, CleanerService cleaner, String prefix, String name) {
+        List<Object> cleaned = new ArrayList<>(values.size());
+        for (Object element : values) {
+            cleaned.add(sanitize(element, cleaner, prefix, name));
+        }
+        return cleaned;
+    }
+
+    /**
+     * Cleans a string value.
+     *
+     * @param value   The value, or null.
+     * @param cleaner The cleaner to use.
+     * @param prefix  The prefix of the context for logging.
+     * @param name    The name of the value.
+     * @return The cleaned value.
+     */
+    String clean(String value, CleanerService cleaner, String prefix, String name) {
+        if (value == null) {
+            return null;
+        }
+        if (properties.isThrowOnViolation() && cleaner.isSafe(value)) {
+            return value;
+        }
+        CleanResult result = cleaner.cleanTracked(value);
+        if (result.isChanged()) {
+            handleViolation(prefix, name, value, result.getValue());
+        }
+        return result.getValue();
+    }
+
+    private String[] cleanAll(String[] values, CleanerService cleaner, String prefix, String name) {
+        String[] cleaned = new String[values.length];
+        if (properties.isThrowOnViolation()) {
+            for (int i = 0; i < values.length; i++) {
+                cleaned[i] = clean(values[i], cleaner, prefix, name);
+            }
+            return cleaned;
+        }
+        CleanResult[] results = cleaner.cleanAllTracked(values);
+        for (int i = 0; i < values.length; i++) {
+            if (results[i].isChanged()) {
+                handleViolation(prefix, name, values[i], results[i].getValue());
+            }
+            cleaned[i] = results[i].getValue();
+        }
+        return cleaned;
+    }
+
+    /**
+     * Logs a violation and throws an exception if enabled.
+     *
+     * @param prefix  The prefix of the context for logging.
+     * @param name    The name of the value.
+     * @param value   The original value.
+     * @param cleaned The cleaned value.
+     */
+    private void handleViolation(String prefix, String name, String value, String cleaned) {
+        boolean log = properties.isLogViolation();
+        boolean reject = properties.isThrowOnViolation();
+        if (!log && !reject) {
+            return;
+        }
+        String context = prefix + name + SUFFIX;
+        if (log) {
+            logger.warn("XSS violation detected in {}: '{}' -> '{}'", context, value, cleaned);
+        }
+        if (reject) {
+            throw new XssViolationException(context, value, cleaned);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.PolicyRegistry;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The HeaderRules class holds the cleaner of each request header, compiled
+ * from the header policy table of {@code xss.cleaner.headers}. Each entry maps
+ * a header name, compared without case, to {@code skip}, {@code sanitize} or
+ * the name of a policy registered in {@link PolicyRegistry}; the {@code *}
+ * entry applies to headers not listed. Named policies are resolved once, when
+ * the rules are compiled.
+ */
+final class HeaderRules {
+
+    /**
+     * The value of a header left as-is.
+     */
+    static final String SKIP = "skip";
+
+    /**
+     * The value of a header cleaned with the default cleaner.
+     */
+    static final String SANITIZE = "sanitize";
+
+    /**
+     * The entry applying to headers not listed.
+     */
+    static final String DEFAULT = "*";
+
+    /**
+     * The cleaner of each listed header, or null for skipped headers.
+     */
+    private final Map<String, CleanerService> cleaners = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * The cleaner of headers not listed, or null to skip them.
+     */
+    private CleanerService fallback;
+
+    private HeaderRules() {
+    }
+
+    /**
+     * Compiles a header policy table.
+     *
+     * @param table   The policy of each header name.
+     * @param cleaner The default cleaner.
+     * @return The rules.
+     * @throws IllegalArgumentException If a named policy is not registered.
+     */
+    static HeaderRules compile(Map<String, String> table, CleanerService cleaner) {
+        HeaderRules rules = new HeaderRules();
+        rules.fallback = cleaner;
+        for (Map.Entry<String, String> entry : table.entrySet()) {
+            CleanerService resolved = resolve(entry.getKey(), entry.getValue(), cleaner);
+            if (DEFAULT.equals(entry.getKey())) {
+                rules.fallback = resolved;
+            } else {
+                rules.cleaners.put(entry.getKey(), resolved);
+            }
+        }
+        return rules;
+    }
+
+    private static CleanerService resolve(String header, String policy, CleanerService cleaner) {
+        String value = policy == null ? SANITIZE : policy.trim();
+        if (SKIP.equalsIgnoreCase(value)) {
+            return null;
+        }
+        if (SANITIZE.equalsIgnoreCase(value) || value.isEmpty()) {
+            return cleaner;
+        }
+        CleanerService named = PolicyRegistry.find(value);
+        if (named == null) {
+            throw new IllegalArgumentException("Unknown policy '" + value + "' for header " + header);
+        }
+        return named;
+    }
+
+    /**
+     * Gets the cleaner of a header.
+     *
+     * @param name The name of the header.
+     * @return The cleaner, or null if the header is left as-is.
+     */
+    CleanerService cleanerFor(String name) {
+        if (cleaners.isEmpty()) {
+            return fallback;
+        }
+        CleanerService cleaner = cleaners.get(name);
+        return cleaner != null || cleaners.containsKey(name) ? cleaner : fallback;
+    }
+
+    /**
+     * Gets the cleaner of header names.
+     *
+     * @return The default cleaner, or null if headers not listed are left
+     *         as-is.
+     */
+    CleanerService nameCleaner() {
+        return fallback;
+    }
+}
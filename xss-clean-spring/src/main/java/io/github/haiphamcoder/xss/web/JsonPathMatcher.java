@@ -0,0 +1,278 @@
+package io.github.haiphamcoder.xss.web;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The JsonPathMatcher class decides which strings of a JSON document are
+ * cleaned, from include and exclude rules written as JSON Pointers whose
+ * segments may be {@code *}, matching any one member name or array index, or
+ * {@code **}, matching any number of segments. A rule covers the node it
+ * matches and everything below it. A string is cleaned if no include rule is
+ * given or one covers it, and no exclude rule covers it.
+ * <p>
+ * The rules are compiled once into a trie of segments. While a document is
+ * scanned, each container holds a {@link State} with the trie nodes its path
+ * has reached, and the state of a member is derived from the raw bytes of
+ * its name, so no path is ever built. Below a node no rule can reach, the
+ * state of the container is reused as-is.
+ */
+final class JsonPathMatcher {
+
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final State root;
+
+    private JsonPathMatcher(Node trie, boolean hasIncludes, boolean hasExcludes) {
+        Node[] nodes = closure(List.of(trie));
+        boolean included = !hasIncludes || any(nodes, true);
+        boolean excluded = any(nodes, false);
+        this.root = new State(nodes, included, excluded, hasExcludes);
+    }
+
+    /**
+     * Compiles include and exclude rules.
+     *
+     * @param include The JSON Pointers of the strings to clean, or empty to
+     *                clean all strings.
+     * @param exclude The JSON Pointers of the strings not to clean.
+     * @return The matcher.
+     * @throws IllegalArgumentException If a rule is not a JSON Pointer.
+     */
+    static JsonPathMatcher compile(Collection<String> include, Collection<String> exclude) {
+        Node trie = new Node(null, -1, false);
+        for (String pointer : include) {
+            add(trie, pointer).include = true;
+        }
+        for (String pointer : exclude) {
+            add(trie, pointer).exclude = true;
+        }
+        return new JsonPathMatcher(trie, !include.isEmpty(), !exclude.isEmpty());
+    }
+
+    /**
+     * Gets the state of the document root.
+     *
+     * @return The state.
+     */
+    State root() {
+        return root;
+    }
+
+    private static Node add(Node trie, String pointer) {
+        if (pointer == null || (!pointer.isEmpty() && pointer.charAt(0) != '/')) {
+            throw new IllegalArgumentException("JSON Pointer must be empty or start with '/': " + pointer);
+        }
+        Node node = trie;
+        if (pointer.isEmpty()) {
+            return node;
+        }
+        for (String segment : pointer.substring(1).split("/", -1)) {
+            node = node.child(segment.replace("~1", "/").replace("~0", "~"));
+        }
+        return node;
+    }
+
+    /**
+     * Adds the nodes reached through {@code **} without consuming a segment.
+     */
+    private static Node[] closure(Collection<Node> nodes) {
+        if (nodes.isEmpty()) {
+            return NO_NODES;
+        }
+        Set<Node> all = new LinkedHashSet<>(nodes);
+        List<Node> pending = new ArrayList<>(nodes);
+        while (!pending.isEmpty()) {
+            Node deep = pending.remove(pending.size() - 1).deep;
+            if (deep != null && all.add(deep)) {
+                pending.add(deep);
+            }
+        }
+        return all.toArray(NO_NODES);
+    }
+
+    private static boolean any(Node[] nodes, boolean include) {
+        for (Node node : nodes) {
+            if (include ? node.include : node.exclude) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A segment of the trie.
+     */
+    private static final class Node {
+
+        /**
+         * The UTF-8 member name matched by this node, or null for wildcards.
+         */
+        final byte[] name;
+
+        /**
+         * The array index matched by this node, or -1.
+         */
+        final int index;
+
+        /**
+         * Whether this node is a {@code **} node, staying active on every
+         * segment.
+         */
+        final boolean loop;
+
+        final List<Node> literals = new ArrayList<>();
+
+        Node any;
+
+        Node deep;
+
+        boolean include;
+
+        boolean exclude;
+
+        Node(byte[] name, int index, boolean loop) {
+            this.name = name;
+            this.index = index;
+            this.loop = loop;
+        }
+
+        Node child(String segment) {
+            if (segment.equals("*")) {
+                return any == null ? any = new Node(null, -1, false) : any;
+            }
+            if (segment.equals("**")) {
+                return deep == null ? deep = new Node(null, -1, true) : deep;
+            }
+            byte[] bytes = segment.getBytes(StandardCharsets.UTF_8);
+            for (Node literal : literals) {
+                if (Arrays.equals(literal.name, bytes)) {
+                    return literal;
+                }
+            }
+            Node literal = new Node(bytes, parseIndex(segment), false);
+            literals.add(literal);
+            return literal;
+        }
+
+        boolean matches(byte[] bytes, int length, int arrayIndex) {
+            if (bytes == null) {
+                return index >= 0 && index == arrayIndex;
+            }
+            return Arrays.equals(name, 0, name.length, bytes, 0, length);
+        }
+
+        private static int parseIndex(String segment) {
+            if (segment.isEmpty() || segment.length() > 9 || (segment.length() > 1 && segment.charAt(0) == '0')) {
+                return -1;
+            }
+            for (int i = 0; i < segment.length(); i++) {
+                if (segment.charAt(i) < '0' || segment.charAt(i) > '9') {
+                    return -1;
+                }
+            }
+            return Integer.parseInt(segment);
+        }
+    }
+
+    /**
+     * The trie nodes reached by the path of a JSON node, and whether strings
+     * at or below it are cleaned.
+     */
+    static final class State {
+
+        private final Node[] nodes;
+
+        private final boolean included;
+
+        private final boolean excluded;
+
+        private final boolean hasExcludes;
+
+        private State settled;
+
+        private State(Node[] nodes, boolean included, boolean excluded, boolean hasExcludes) {
+            this.nodes = nodes;
+            this.included = included;
+            this.excluded = excluded;
+            this.hasExcludes = hasExcludes;
+        }
+
+        /**
+         * Checks if a string at this path is cleaned.
+         *
+         * @return True if the string is cleaned, false otherwise.
+         */
+        boolean isSanitized() {
+            return included && !excluded;
+        }
+
+        /**
+         * Gets the state of a member of the object at this path.
+         *
+         * @param name   The UTF-8 bytes of the member name.
+         * @param length The number of bytes.
+         * @return The state.
+         */
+        State member(byte[] name, int length) {
+            return next(name, length, -1);
+        }
+
+        /**
+         * Gets the state of an element of the array at this path.
+         *
+         * @param index The index of the element.
+         * @return The state.
+         */
+        State element(int index) {
+            return next(null, 0, index);
+        }
+
+        private State next(byte[] name, int length, int index) {
+            if (nodes.length == 0) {
+                return this;
+            }
+            // Nothing below can change the decision
+            if (excluded || (included && !hasExcludes)) {
+                return settled();
+            }
+            List<Node> reached = new ArrayList<>(2);
+            for (Node node : nodes) {
+                if (node.loop) {
+                    reached.add(node);
+                }
+                for (Node literal : node.literals) {
+                    if (literal.matches(name, length, index)) {
+                        reached.add(literal);
+                    }
+                }
+                if (node.any != null) {
+                    reached.add(node.any);
+                }
+            }
+            Node[] next = closure(reached);
+            boolean nextIncluded = included || any(next, true);
+            boolean nextExcluded = excluded || any(next, false);
+            if (next.length == 0 && nextIncluded == included && nextExcluded == excluded) {
+                return settled();
+            }
+            return new State(next, nextIncluded, nextExcluded, hasExcludes);
+        }
+
+        /**
+         * Gets the state of the nodes below this one that no rule reaches.
+         */
+        private State settled() {
+            if (settled == null) {
+                settled = new State(NO_NODES, included, excluded, hasExcludes);
+            }
+            return settled;
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+package io.github.haiphamcoder.xss.web;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The PathPatternTrie class matches request paths against a set of Ant-style
+ * patterns, where {@code ?} matches one character, {@code *} matches zero or
+ * more characters within a segment and {@code **} matches zero or more
+ * segments.
+ * <p>
+ * The patterns are compiled once into a trie of segments, so patterns sharing
+ * a prefix such as {@code /actuator/health} and {@code /actuator/prometheus}
+ * are walked together. A path is matched in place, segment by segment,
+ * without splitting it or building substrings.
+ */
+final class PathPatternTrie {
+
+    private final Node root;
+
+    private final boolean empty;
+
+    private PathPatternTrie(Node root, boolean empty) {
+        this.root = root;
+        this.empty = empty;
+    }
+
+    /**
+     * Compiles path patterns.
+     *
+     * @param patterns The patterns, each starting with {@code /}.
+     * @return The trie.
+     * @throws IllegalArgumentException If a pattern does not start with
+     *                                  {@code /}.
+     */
+    static PathPatternTrie compile(Collection<String> patterns) {
+        Node root = new Node(null);
+        for (String pattern : patterns) {
+            if (pattern == null || !pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Path pattern must start with '/': " + pattern);
+            }
+            Node node = root;
+            for (String segment : pattern.substring(1).split("/")) {
+                if (!segment.isEmpty()) {
+                    node = node.child(segment);
+                }
+            }
+            node.terminal = true;
+        }
+        return new PathPatternTrie(root, patterns.isEmpty());
+    }
+
+    /**
+     * Checks if no pattern was compiled.
+     *
+     * @return True if the trie matches no path, false otherwise.
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Checks if a pattern matches the given path. Empty segments, such as
+     * those of a trailing slash, are ignored.
+     *
+     * @param path The path.
+     * @return True if a pattern matches, false otherwise.
+     */
+    boolean matches(String path) {
+        return !empty && matches(root, path, 0);
+    }
+
+    private static boolean matches(Node node, String path, int from) {
+        int length = path.length();
+        while (from < length && path.charAt(from) == '/') {
+            from++;
+        }
+        if (node.deep != null) {
+            // Let ** consume zero or more of the remaining segments
+            int position = from;
+            while (true) {
+                if (matches(node.deep, path, position)) {
+                    return true;
+                }
+                if (position == length) {
+                    break;
+                }
+                int slash = path.indexOf('/', position + 1);
+                position = slash < 0 ? length : slash;
+            }
+        }
+        if (from == length) {
+            return node.terminal;
+        }
+        int slash = path.indexOf('/', from);
+        int end = slash < 0 ? length : slash;
+        int segmentLength = end - from;
+        for (Node literal : node.literals) {
+            if (literal.segment.length() == segmentLength
+                    && path.regionMatches(from, literal.segment, 0, segmentLength)
+                    && matches(literal, path, end)) {
+                return true;
+            }
+        }
+        for (Node glob : node.globs) {
+            if (glob(glob.segment, 0, path, from, end) && matches(glob, path, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Matches a segment pattern with {@code *} and {@code ?} against a region
+     * of the path.
+     */
+    private static boolean glob(String pattern, int p, String path, int from, int end) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            if (c == '*') {
+                for (int i = end; i >= from; i--) {
+                    if (glob(pattern, p + 1, path, i, end)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (from == end || (c != '?' && c != path.charAt(from))) {
+                return false;
+            }
+            p++;
+            from++;
+        }
+        return from == end;
+    }
+
+    /**
+     * A segment of the trie.
+     */
+    private static final class Node {
+
+        /**
+         * The segment pattern matched by this node, or null for the root and
+         * {@code **} nodes.
+         */
+        final String segment;
+
+        final List<Node> literals = new ArrayList<>();
+
+        final List<Node> globs = new ArrayList<>();
+
+        Node deep;
+
+        boolean terminal;
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        Node child(String segment) {
+            if (segment.equals("**")) {
+                return deep == null ? deep = new Node(null) : deep;
+            }
+            List<Node> children = segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 ? globs : literals;
+            for (Node child : children) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+            Node child = new Node(segment);
+            children.add(child);
+            return child;
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.PolicyRegistry;
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decorator of the argument resolvers of {@code @RequestParam},
+ * {@code @PathVariable} and {@code @RequestHeader} parameters, cleaning the
+ * values they resolve. Values are only cleaned when a handler binds them, so
+ * request parameters no handler declares are never read.
+ * <p>
+ * Whether and how a parameter is cleaned is decided once per handler method
+ * parameter: parameters annotated with {@link XssIgnore} or whose type cannot
+ * hold a string, such as numbers or uploaded files, are passed through, and
+ * {@link XssPolicy} selects a named policy.
+ */
+public class SanitizingArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String PARAMETER_PREFIX = "parameter[";
+    private static final String PATH_PREFIX = "path[";
+    private static final String HEADER_PREFIX = "header[";
+
+    /**
+     * Marks a parameter passed through.
+     */
+    private static final Plan SKIP = new Plan(null, null, null);
+
+    /**
+     * The resolver to decorate.
+     */
+    private final HandlerMethodArgumentResolver delegate;
+
+    /**
+     * The cleaner to use.
+     */
+    private final CleanerService cleaner;
+
+    /**
+     * The sanitizer of bound values.
+     */
+    private final BindingSanitizer sanitizer;
+
+    /**
+     * The plan of each parameter resolved so far.
+     */
+    private final Map<MethodParameter, Plan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new SanitizingArgumentResolver.
+     *
+     * @param delegate  The resolver to decorate.
+     * @param cleaner   The cleaner to use.
+     * @param sanitizer The sanitizer of bound values.
+     */
+    SanitizingArgumentResolver(HandlerMethodArgumentResolver delegate, CleanerService cleaner,
+            BindingSanitizer sanitizer) {
+        this.delegate = delegate;
+        this.cleaner = cleaner;
+        this.sanitizer = sanitizer;
+    }
+
+    /**
+     * Gets the decorated resolver.
+     *
+     * @return The resolver.
+     */
+    public HandlerMethodArgumentResolver getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return delegate.supportsParameter(parameter);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+        Object value = delegate.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
+        if (value == null) {
+            return null;
+        }
+        Plan plan = plans.computeIfAbsent(parameter, this::plan);
+        if (plan == SKIP) {
+            return value;
+        }
+        return sanitizer.sanitize(value, plan.cleaner(), plan.prefix(), plan.name());
+    }
+
+    /**
+     * Decides how a parameter is cleaned.
+     *
+     * @param parameter The parameter.
+     * @return The plan, or {@link #SKIP}.
+     */
+    private Plan plan(MethodParameter parameter) {
+        if (parameter.hasParameterAnnotation(XssIgnore.class) || !canHoldString(parameter)) {
+            return SKIP;
+        }
+        CleanerService planCleaner = cleaner;
+        XssPolicy policy = parameter.getParameterAnnotation(XssPolicy.class);
+        if (policy != null) {
+            CleanerService named = PolicyRegistry.find(policy.value());
+            if (named != null) {
+                planCleaner = named;
+            }
+        }
+        String prefix = PARAMETER_PREFIX;
+        String name = null;
+        RequestHeader header = parameter.getParameterAnnotation(RequestHeader.class);
+        PathVariable path = parameter.getParameterAnnotation(PathVariable.class);
+        RequestParam param = parameter.getParameterAnnotation(RequestParam.class);
+        if (header != null) {
+            prefix = HEADER_PREFIX;
+            name = header.name();
+        } else if (path != null) {
+            prefix = PATH_PREFIX;
+            name = path.name();
+        } else if (param != null) {
+            name = param.name();
+        }
+        if (name == null || name.isEmpty()) {
+            name = parameter.getParameterName();
+        }
+        return new Plan(planCleaner, prefix, name);
+    }
+
+    /**
+     * Checks if the value of a parameter can hold a string. Values converted
+     * from the request string to other types, such as value objects, are
+     * converted by the delegate before they are seen here and are not cleaned.
+     *
+     * @param parameter The parameter.
+     * @return True for strings, string arrays, collections, maps and untyped
+     *         parameters, false otherwise.
+     */
+    private static boolean canHoldString(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        if (type == Optional.class) {
+            type = parameter.nested().getNestedParameterType();
+        }
+        return type == String.class || type == String[].class || type == Object.class
+                || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+    }
+
+    /**
+     * How the values of a parameter are cleaned.
+     */
+    private record Plan(CleanerService cleaner, String prefix, String name) {
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.support.WebBindingInitializer;
+
+import java.beans.PropertyEditorSupport;
+
+/**
+ * Decorator of the binding initializer of Spring MVC registering an editor
+ * that cleans the strings bound to {@code @ModelAttribute} objects, as they
+ * are bound. Only the properties and constructor arguments a request
+ * actually binds are cleaned. Binders of simple named values, which have no
+ * target, are left to {@link SanitizingArgumentResolver}.
+ */
+public class SanitizingBindingInitializer implements WebBindingInitializer {
+
+    private static final String MODEL_PREFIX = "model[";
+
+    /**
+     * The initializer to decorate, or null.
+     */
+    private final WebBindingInitializer delegate;
+
+    /**
+     * The cleaner to use.
+     */
+    private final CleanerService cleaner;
+
+    /**
+     * The sanitizer of bound values.
+     */
+    private final BindingSanitizer sanitizer;
+
+    /**
+     * Constructs a new SanitizingBindingInitializer.
+     *
+     * @param delegate  The initializer to decorate, or null.
+     * @param cleaner   The cleaner to use.
+     * @param sanitizer The sanitizer of bound values.
+     */
+    SanitizingBindingInitializer(WebBindingInitializer delegate, CleanerService cleaner,
+            BindingSanitizer sanitizer) {
+        this.delegate = delegate;
+        this.cleaner = cleaner;
+        this.sanitizer = sanitizer;
+    }
+
+    @Override
+    public void initBinder(WebDataBinder binder) {
+        if (delegate != null) {
+            delegate.initBinder(binder);
+        }
+        if (binder.getTarget() != null || binder.getTargetType() != null) {
+            String name = binder.getObjectName();
+            binder.registerCustomEditor(String.class, new SanitizingEditor(name));
+            binder.registerCustomEditor(String[].class, new SanitizingEditor(name));
+        }
+    }
+
+    /**
+     * Editor cleaning bound strings and string arrays.
+     */
+    private class SanitizingEditor extends PropertyEditorSupport {
+
+        private final String objectName;
+
+        SanitizingEditor(String objectName) {
+            this.objectName = objectName;
+        }
+
+        @Override
+        public void setAsText(String text) {
+            setValue(text);
+        }
+
+        @Override
+        public void setValue(Object value) {
+            super.setValue(sanitizer.sanitize(value, cleaner, MODEL_PREFIX, objectName));
+        }
+    }
+}
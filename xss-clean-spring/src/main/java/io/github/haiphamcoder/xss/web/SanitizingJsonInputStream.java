@@ -0,0 +1,459 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.CleanerService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The SanitizingJsonInputStream class rewrites a UTF-8 JSON document while it
+ * is read, cleaning string values and optionally field names. The input is
+ * scanned byte by byte for string tokens; everything between them is copied
+ * through as-is, and a string that cleaning leaves unchanged is copied in its
+ * original encoding, so a document without anything to clean comes out
+ * byte for byte identical. Memory is bounded by the read buffer, the nesting
+ * depth and the longest string, not by the size of the document.
+ * <p>
+ * With a {@link JsonPathMatcher}, only the strings at the paths it selects
+ * are cleaned; the state of each open container is kept on a stack next to
+ * the kind of the container.
+ * <p>
+ * The scanner does not validate the document: malformed input is passed
+ * through for the JSON parser downstream to reject.
+ */
+final class SanitizingJsonInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+
+    private final CleanerService cleaner;
+
+    private final boolean sanitizeFieldNames;
+
+    private final byte[] input = new byte[BUFFER_SIZE];
+
+    /**
+     * The bytes ready to be read.
+     */
+    private byte[] output = new byte[BUFFER_SIZE];
+
+    private int outputPosition;
+
+    private int outputLimit;
+
+    /**
+     * The raw bytes of the current string token, without quotes.
+     */
+    private byte[] string = new byte[64];
+
+    private int stringLength;
+
+    private boolean inString;
+
+    private boolean escaped;
+
+    private boolean stringIsKey;
+
+    /**
+     * Whether each open container is an object rather than an array.
+     */
+    private boolean[] objects = new boolean[16];
+
+    private int depth;
+
+    /**
+     * The state of the document root, or null to clean every string.
+     */
+    private final JsonPathMatcher.State root;
+
+    /**
+     * The path state of each open container.
+     */
+    private JsonPathMatcher.State[] states;
+
+    /**
+     * The index of the current element of each open array.
+     */
+    private int[] indices;
+
+    /**
+     * The path state of the value of the current member.
+     */
+    private JsonPathMatcher.State memberState;
+
+    private int memberNameLength;
+
+    /**
+     * The path state of the current string value.
+     */
+    private JsonPathMatcher.State stringState;
+
+    private boolean expectKey;
+
+    private boolean eof;
+
+    /**
+     * Constructs a new SanitizingJsonInputStream.
+     *
+     * @param in                 The raw JSON document.
+     * @param cleaner            The cleaner to use.
+     * @param sanitizeFieldNames Whether field names are cleaned too.
+     */
+    SanitizingJsonInputStream(InputStream in, CleanerService cleaner, boolean sanitizeFieldNames) {
+        this(in, cleaner, sanitizeFieldNames, null);
+    }
+
+    /**
+     * Constructs a new SanitizingJsonInputStream cleaning only the strings
+     * selected by a matcher.
+     *
+     * @param in                 The raw JSON document.
+     * @param cleaner            The cleaner to use.
+     * @param sanitizeFieldNames Whether field names are cleaned too.
+     * @param root               The state of the document root, or null to
+     *                           clean every string.
+     */
+    SanitizingJsonInputStream(InputStream in, CleanerService cleaner, boolean sanitizeFieldNames,
+            JsonPathMatcher.State root) {
+        this.in = in;
+        this.cleaner = cleaner;
+        this.sanitizeFieldNames = sanitizeFieldNames;
+        this.root = root;
+        if (root != null) {
+            this.states = new JsonPathMatcher.State[objects.length];
+            this.indices = new int[objects.length];
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (outputPosition == outputLimit && !fill()) {
+            return -1;
+        }
+        return output[outputPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (outputPosition == outputLimit && !fill()) {
+            return -1;
+        }
+        int count = Math.min(len, outputLimit - outputPosition);
+        System.arraycopy(output, outputPosition, b, off, count);
+        outputPosition += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return outputLimit - outputPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Scans input until some output is ready.
+     *
+     * @return False at the end of the document.
+     * @throws IOException If reading the input fails.
+     */
+    private boolean fill() throws IOException {
+        outputPosition = 0;
+        outputLimit = 0;
+        while (outputLimit == 0) {
+            if (eof) {
+                return false;
+            }
+            int count = in.read(input);
+            if (count < 0) {
+                eof = true;
+                if (inString) {
+                    // Unterminated string, pass it through for the parser to reject
+                    inString = false;
+                    emit((byte) '"');
+                    emit(string, 0, stringLength);
+                }
+            } else {
+                scan(count);
+            }
+        }
+        return true;
+    }
+
+    private void scan(int count) {
+        int run = 0;
+        int i = 0;
+        while (i < count) {
+            if (inString) {
+                int start = i;
+                while (i < count) {
+                    byte b = input[i];
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        break;
+                    }
+                    i++;
+                }
+                appendString(start, i - start);
+                if (i == count) {
+                    return;
+                }
+                endString();
+                i++;
+                run = i;
+                continue;
+            }
+            byte b = input[i];
+            switch (b) {
+                case '"' -> {
+                    emit(input, run, i - run);
+                    inString = true;
+                    stringIsKey = expectKey;
+                    stringLength = 0;
+                    if (root != null && !stringIsKey) {
+                        stringState = valueState();
+                    }
+                }
+                case '{' -> {
+                    push(true);
+                    expectKey = true;
+                }
+                case '[' -> {
+                    push(false);
+                    expectKey = false;
+                }
+                case '}', ']' -> {
+                    if (depth > 0) {
+                        depth--;
+                    }
+                    expectKey = false;
+                }
+                case ',' -> {
+                    expectKey = depth > 0 && objects[depth - 1];
+                    if (root != null && depth > 0 && !expectKey) {
+                        indices[depth - 1]++;
+                    }
+                }
+                case ':' -> expectKey = false;
+                default -> {
+                    // Whitespace, numbers and literals are copied as-is
+                }
+            }
+            i++;
+        }
+        if (!inString) {
+            emit(input, run, count - run);
+        }
+    }
+
+    /**
+     * Writes the current string token, cleaned if it is a value or field
+     * names are cleaned, and in its original bytes if cleaning left it
+     * unchanged.
+     */
+    private void endString() {
+        inString = false;
+        boolean sanitize = stringIsKey ? sanitizeFieldNames : true;
+        if (root != null) {
+            if (stringIsKey) {
+                memberState = states[depth - 1].member(memberName(), memberNameLength);
+                sanitize = sanitize && memberState.isSanitized();
+            } else {
+                sanitize = stringState.isSanitized();
+            }
+        }
+        if (sanitize) {
+            String value = decode(string, stringLength);
+            if (value != null) {
+                CleanResult result = cleaner.cleanTracked(value);
+                if (result.isChanged()) {
+                    byte[] encoded = encode(result.getValue());
+                    emit(encoded, 0, encoded.length);
+                    return;
+                }
+            }
+        }
+        emit((byte) '"');
+        emit(string, 0, stringLength);
+        emit((byte) '"');
+    }
+
+    private void push(boolean object) {
+        JsonPathMatcher.State state = root == null ? null : valueState();
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+            if (root != null) {
+                states = Arrays.copyOf(states, depth * 2);
+                indices = Arrays.copyOf(indices, depth * 2);
+            }
+        }
+        if (root != null) {
+            states[depth] = state;
+            indices[depth] = 0;
+        }
+        objects[depth++] = object;
+    }
+
+    /**
+     * Gets the path state of the value starting at the current position.
+     *
+     * @return The state.
+     */
+    private JsonPathMatcher.State valueState() {
+        if (depth == 0) {
+            return root;
+        }
+        if (objects[depth - 1]) {
+            return memberState == null ? states[depth - 1] : memberState;
+        }
+        return states[depth - 1].element(indices[depth - 1]);
+    }
+
+    /**
+     * Gets the UTF-8 bytes of the current member name, decoding escapes only
+     * when the raw token holds any.
+     *
+     * @return The bytes, valid up to {@link #memberNameLength}.
+     */
+    private byte[] memberName() {
+        for (int i = 0; i < stringLength; i++) {
+            if (string[i] == '\\') {
+                String decoded = decode(string, stringLength);
+                byte[] bytes = decoded == null ? Arrays.copyOf(string, stringLength)
+                        : decoded.getBytes(StandardCharsets.UTF_8);
+                memberNameLength = bytes.length;
+                return bytes;
+            }
+        }
+        memberNameLength = stringLength;
+        return string;
+    }
+
+    private void appendString(int from, int length) {
+        if (stringLength + length > string.length) {
+            string = Arrays.copyOf(string, Math.max(string.length * 2, stringLength + length));
+        }
+        System.arraycopy(input, from, string, stringLength, length);
+        stringLength += length;
+    }
+
+    private void emit(byte b) {
+        if (outputLimit == output.length) {
+            output = Arrays.copyOf(output, output.length * 2);
+        }
+        output[outputLimit++] = b;
+    }
+
+    private void emit(byte[] bytes, int from, int length) {
+        if (length <= 0) {
+            return;
+        }
+        if (outputLimit + length > output.length) {
+            output = Arrays.copyOf(output, Math.max(output.length * 2, outputLimit + length));
+        }
+        System.arraycopy(bytes, from, output, outputLimit, length);
+        outputLimit += length;
+    }
+
+    /**
+     * Decodes the content of a JSON string token.
+     *
+     * @param bytes  The raw bytes, without quotes.
+     * @param length The number of bytes.
+     * @return The string, or null if an escape sequence is invalid.
+     */
+    static String decode(byte[] bytes, int length) {
+        String text = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        int backslash = text.indexOf('\\');
+        if (backslash < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        sb.append(text, 0, backslash);
+        for (int i = backslash; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (++i == text.length()) {
+                return null;
+            }
+            switch (text.charAt(i)) {
+                case '"' -> sb.append('"');
+                case '\\' -> sb.append('\\');
+                case '/' -> sb.append('/');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (i + 4 >= text.length()) {
+                        return null;
+                    }
+                    int code = 0;
+                    for (int j = 1; j <= 4; j++) {
+                        int digit = Character.digit(text.charAt(i + j), 16);
+                        if (digit < 0) {
+                            return null;
+                        }
+                        code = code * 16 + digit;
+                    }
+                    sb.append((char) code);
+                    i += 4;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Encodes a string as a JSON string token in UTF-8.
+     *
+     * @param value The string.
+     * @return The token, with quotes.
+     */
+    static byte[] encode(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                case '\b' -> sb.append("\\b");
+                case '\f' -> sb.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.config.XssProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.web.method.annotation.RequestHeaderMapMethodArgumentResolver;
+import org.springframework.web.method.annotation.RequestHeaderMethodArgumentResolver;
+import org.springframework.web.method.annotation.RequestParamMapMethodArgumentResolver;
+import org.springframework.web.method.annotation.RequestParamMethodArgumentResolver;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.mvc.method.annotation.PathVariableMapMethodArgumentResolver;
+import org.springframework.web.servlet.mvc.method.annotation.PathVariableMethodArgumentResolver;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Post-processor switching request parameter sanitization from the servlet
+ * filter to data binding, when {@code xss.cleaner.mode} is {@code binding}.
+ * Once a {@link RequestMappingHandlerAdapter} is initialized, the resolvers of
+ * {@code @RequestParam}, {@code @PathVariable} and {@code @RequestHeader}
+ * parameters are decorated with a {@link SanitizingArgumentResolver}, and its
+ * binding initializer with a {@link SanitizingBindingInitializer} for
+ * {@code @ModelAttribute} objects.
+ */
+public class XssBindingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<CleanerService> cleaner;
+    private final ObjectProvider<XssProperties> properties;
+
+    /**
+     * Constructs a new XssBindingPostProcessor. The cleaner and properties are
+     * looked up when the adapter is processed, so that creating the
+     * post-processor does not initialize them early.
+     *
+     * @param cleaner    The cleaner to use.
+     * @param properties The XSS properties.
+     */
+    public XssBindingPostProcessor(ObjectProvider<CleanerService> cleaner, ObjectProvider<XssProperties> properties) {
+        this.cleaner = cleaner;
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof RequestMappingHandlerAdapter adapter) {
+            decorate(adapter, cleaner.getObject(), new BindingSanitizer(properties.getObject()));
+        }
+        return bean;
+    }
+
+    /**
+     * Decorates the argument resolvers and binding initializer of an adapter.
+     *
+     * @param adapter   The adapter.
+     * @param cleaner   The cleaner to use.
+     * @param sanitizer The sanitizer of bound values.
+     */
+    static void decorate(RequestMappingHandlerAdapter adapter, CleanerService cleaner, BindingSanitizer sanitizer) {
+        List<HandlerMethodArgumentResolver> resolvers = adapter.getArgumentResolvers();
+        if (resolvers != null) {
+            List<HandlerMethodArgumentResolver> decorated = new ArrayList<>(resolvers.size());
+            for (HandlerMethodArgumentResolver resolver : resolvers) {
+                decorated.add(isNamedValueResolver(resolver)
+                        ? new SanitizingArgumentResolver(resolver, cleaner, sanitizer)
+                        : resolver);
+            }
+            adapter.setArgumentResolvers(decorated);
+        }
+        if (!(adapter.getWebBindingInitializer() instanceof SanitizingBindingInitializer)) {
+            adapter.setWebBindingInitializer(
+                    new SanitizingBindingInitializer(adapter.getWebBindingInitializer(), cleaner, sanitizer));
+        }
+    }
+
+    private static boolean isNamedValueResolver(HandlerMethodArgumentResolver resolver) {
+        return resolver instanceof RequestParamMethodArgumentResolver
+                || resolver instanceof RequestParamMapMethodArgumentResolver
+                || resolver instanceof PathVariableMethodArgumentResolver
+                || resolver instanceof PathVariableMapMethodArgumentResolver
+                || resolver instanceof RequestHeaderMethodArgumentResolver
+                || resolver instanceof RequestHeaderMapMethodArgumentResolver;
+    }
+}
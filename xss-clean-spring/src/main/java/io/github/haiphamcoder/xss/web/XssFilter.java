@@ -6,28 +6,94 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
- * Filter to sanitize query params + headers.
+ * Filter to sanitize query params + headers. The request rules of
+ * {@code xss.cleaner.filter} and the header policy table of
+ * {@code xss.cleaner.headers} are compiled once, when the filter is created,
+ * and requests the rules exclude are passed on without a wrapper.
  */
 public class XssFilter extends OncePerRequestFilter {
 
     private final CleanerService cleaner;
     private final XssProperties properties;
+    private final PathPatternTrie include;
+    private final PathPatternTrie exclude;
+    private final Set<String> excludeMethods = new HashSet<>();
+    private final List<MediaType> excludeContentTypes = new ArrayList<>();
+    private final HeaderRules headerRules;
 
     public XssFilter(CleanerService cleaner, XssProperties properties) {
         this.cleaner = cleaner;
         this.properties = properties;
+        this.headerRules = HeaderRules.compile(properties.getHeaders(), cleaner);
+        XssProperties.Filter filter = properties.getFilter();
+        this.include = PathPatternTrie.compile(filter.getInclude());
+        this.exclude = PathPatternTrie.compile(filter.getExclude());
+        for (String method : filter.getExcludeMethods()) {
+            excludeMethods.add(method.trim().toUpperCase(Locale.ROOT));
+        }
+        for (String contentType : filter.getExcludeContentTypes()) {
+            excludeContentTypes.add(MediaType.parseMediaType(contentType));
+        }
+    }
+
+    /**
+     * Skips requests excluded by method, content type or path, checked in
+     * that order so the path is only resolved when path rules are set.
+     *
+     * @param request The request.
+     * @return True if the request is not filtered, false otherwise.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!excludeMethods.isEmpty() && excludeMethods.contains(request.getMethod())) {
+            return true;
+        }
+        if (!excludeContentTypes.isEmpty() && isExcludedContentType(request.getContentType())) {
+            return true;
+        }
+        if (include.isEmpty() && exclude.isEmpty()) {
+            return false;
+        }
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        return (!include.isEmpty() && !include.matches(path)) || exclude.matches(path);
+    }
+
+    private boolean isExcludedContentType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        for (MediaType excluded : excludeContentTypes) {
+            if (excluded.includes(type)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
-        XssRequestWrapper wrapped = new XssRequestWrapper(request, cleaner, properties);
+        XssRequestWrapper wrapped = new XssRequestWrapper(request, cleaner, properties, headerRules);
         filterChain.doFilter(wrapped, response);
     }
 }
@@ -0,0 +1,259 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.config.XssProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Filter to sanitize the string values of JSON request bodies as they are
+ * read, for handlers and converters reading the raw body. The path rules of
+ * {@code xss.cleaner.json-body.rules} are compiled once, when the filter is
+ * created.
+ * <p>
+ * When the rewritten body is read, the request attribute
+ * {@link #SANITIZED_ATTRIBUTE} is set, so that the body advice does not clean
+ * the converted body a second time. Bodies the filter does not rewrite, such
+ * as JSON in another charset or other formats, are left to the advice.
+ */
+public class XssJsonBodyFilter extends OncePerRequestFilter {
+
+    /**
+     * The request attribute set once the body rewritten by this filter has
+     * been read.
+     */
+    public static final String SANITIZED_ATTRIBUTE = XssJsonBodyFilter.class.getName() + ".SANITIZED";
+
+    private final CleanerService cleaner;
+    private final XssProperties properties;
+    private final List<CompiledRule> rules = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public XssJsonBodyFilter(CleanerService cleaner, XssProperties properties) {
+        this.cleaner = cleaner;
+        this.properties = properties;
+        for (XssProperties.PathRule rule : properties.getJsonBody().getRules()) {
+            rules.add(new CompiledRule(rule.getEndpoint(),
+                    JsonPathMatcher.compile(rule.getInclude(), rule.getExclude())));
+        }
+    }
+
+    /**
+     * Skips requests whose body is not JSON encoded in UTF-8.
+     *
+     * @param request The request.
+     * @return True if the request is not filtered, false otherwise.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !isJson(request.getContentType());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(new JsonBodyRequest(request, findPaths(request)), response);
+    }
+
+    /**
+     * Finds the path rules of the endpoint of the given request.
+     *
+     * @param request The request.
+     * @return The state of the document root, or null to clean every string.
+     */
+    private JsonPathMatcher.State findPaths(HttpServletRequest request) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        for (CompiledRule rule : rules) {
+            if (pathMatcher.match(rule.endpoint(), path)) {
+                return rule.matcher().root();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the given content type is JSON, such as
+     * {@code application/json} or {@code application/problem+json}, with no
+     * charset other than UTF-8.
+     *
+     * @param contentType The content type, or null.
+     * @return True if the content type is JSON, false otherwise.
+     */
+    static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        if (type.getCharset() != null && !StandardCharsets.UTF_8.equals(type.getCharset())) {
+            return false;
+        }
+        return MediaType.APPLICATION_JSON.includes(type) || "json".equals(type.getSubtypeSuffix());
+    }
+
+    /**
+     * A path rule compiled for an endpoint pattern.
+     */
+    private record CompiledRule(String endpoint, JsonPathMatcher matcher) {
+    }
+
+    /**
+     * Wrapper rewriting the body. The length of the rewritten body is not
+     * known up front, so the content length is hidden.
+     */
+    private class JsonBodyRequest extends HttpServletRequestWrapper {
+
+        private ServletInputStream inputStream;
+
+        private BufferedReader reader;
+
+        private final JsonPathMatcher.State paths;
+
+        JsonBodyRequest(HttpServletRequest request, JsonPathMatcher.State paths) {
+            super(request);
+            this.paths = paths;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("getReader() has already been called for this request");
+            }
+            if (inputStream == null) {
+                inputStream = open();
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                if (inputStream != null) {
+                    throw new IllegalStateException("getInputStream() has already been called for this request");
+                }
+                reader = new BufferedReader(new InputStreamReader(open(), StandardCharsets.UTF_8));
+            }
+            return reader;
+        }
+
+        private ServletInputStream open() throws IOException {
+            setAttribute(SANITIZED_ATTRIBUTE, Boolean.TRUE);
+            return new SanitizingServletInputStream(super.getInputStream(), cleaner,
+                    properties.getJsonBody().isSanitizeFieldNames(), paths);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) ? Collections.emptyEnumeration()
+                    : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(HttpHeaders.CONTENT_LENGTH::equalsIgnoreCase);
+            return Collections.enumeration(names);
+        }
+    }
+
+    /**
+     * Servlet stream reading the rewritten body. Readiness and read listeners
+     * are those of the original stream.
+     */
+    private static class SanitizingServletInputStream extends ServletInputStream {
+
+        private final ServletInputStream original;
+
+        private final SanitizingJsonInputStream sanitized;
+
+        private boolean finished;
+
+        SanitizingServletInputStream(ServletInputStream original, CleanerService cleaner, boolean sanitizeFieldNames,
+                JsonPathMatcher.State paths) {
+            this.original = original;
+            this.sanitized = new SanitizingJsonInputStream(original, cleaner, sanitizeFieldNames, paths);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = sanitized.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = sanitized.read(b, off, len);
+            finished = count < 0;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return sanitized.available();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return sanitized.available() > 0 || original.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            original.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            sanitized.close();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.haiphamcoder.xss.web;
 
+import io.github.haiphamcoder.xss.CleanResult;
 import io.github.haiphamcoder.xss.CleanerService;
 import io.github.haiphamcoder.xss.config.XssProperties;
 import io.github.haiphamcoder.xss.exception.XssViolationException;
@@ -7,19 +8,35 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.LinkedCaseInsensitiveMap;
 
 import java.util.*;
+import java.util.function.IntFunction;
 
 /**
- * Wrapper to sanitize request parameters.
+ * Wrapper to sanitize request parameters. Each value is cleaned at most once
+ * per request: cleaned parameters and headers are kept by name, and the
+ * parameter map is built once and returned as the same unmodifiable map on
+ * every call. A value whose cleaning raised a violation is not kept, so
+ * reading it again raises the violation again.
+ * <p>
+ * Headers are cleaned according to the header policy table of
+ * {@code xss.cleaner.headers}, the same way through {@link #getHeader},
+ * {@link #getHeaders} and {@link #getHeaderNames}.
  */
 public class XssRequestWrapper extends HttpServletRequestWrapper {
 
     private static final Logger logger = LoggerFactory.getLogger(XssRequestWrapper.class);
     private static final String PARAMETER_PREFIX = "parameter[";
     private static final String HEADER_PREFIX = "header[";
+    private static final String HEADER_NAME_PREFIX = "header-name[";
     private static final String SUFFIX = "]";
 
+    /**
+     * Marks a header known to be absent.
+     */
+    private static final String NO_HEADER = new String();
+
     /**
      * The cleaner to use.
      */
@@ -30,6 +47,36 @@ public class XssRequestWrapper extends HttpServletRequestWrapper {
      */
     private final XssProperties properties;
 
+    /**
+     * The cleaned parameter values by name.
+     */
+    private final Map<String, String[]> parameters = new HashMap<>();
+
+    /**
+     * The cleaned parameter map, once built.
+     */
+    private Map<String, String[]> parameterMap;
+
+    /**
+     * The cleaned header values by name, or {@link #NO_HEADER}.
+     */
+    private final Map<String, String> headers = new LinkedCaseInsensitiveMap<>();
+
+    /**
+     * The cleaned values of all headers with a given name.
+     */
+    private final Map<String, List<String>> headerValues = new LinkedCaseInsensitiveMap<>();
+
+    /**
+     * The cleaned header names, once built.
+     */
+    private List<String> headerNames;
+
+    /**
+     * The cleaner of each header.
+     */
+    private final HeaderRules headerRules;
+
     /**
      * Constructs a new XssRequestWrapper.
      * 
@@ -38,41 +85,127 @@ public class XssRequestWrapper extends HttpServletRequestWrapper {
      * @param properties The XSS properties.
      */
     public XssRequestWrapper(HttpServletRequest request, CleanerService cleaner, XssProperties properties) {
+        this(request, cleaner, properties, HeaderRules.compile(properties.getHeaders(), cleaner));
+    }
+
+    /**
+     * Constructs a new XssRequestWrapper with precompiled header rules.
+     * 
+     * @param request     The request to wrap.
+     * @param cleaner     The cleaner to use.
+     * @param properties  The XSS properties.
+     * @param headerRules The cleaner of each header.
+     */
+    XssRequestWrapper(HttpServletRequest request, CleanerService cleaner, XssProperties properties,
+            HeaderRules headerRules) {
         super(request);
         this.cleaner = cleaner;
         this.properties = properties;
+        this.headerRules = headerRules;
     }
 
     /**
      * Cleans a value with logging and exception handling.
      * 
      * @param value   The value to clean.
-     * @param context The context for logging (e.g., parameter name).
+     * @param cleaner The cleaner to use.
+     * @param prefix  The prefix of the context for logging.
+     * @param name    The name of the value.
      * @return The cleaned value.
      */
-    private String cleanValue(String value, String context) {
+    private String cleanValue(String value, CleanerService cleaner, String prefix, String name) {
         if (value == null) {
             return null;
         }
 
-        String cleaned = cleaner.clean(value);
+        // When violations are rejected, a safe value is returned as-is and
+        // the cleaned value is only built for the violation report
+        if (properties.isThrowOnViolation() && cleaner.isSafe(value)) {
+            return value;
+        }
+
+        CleanResult result = cleaner.cleanTracked(value);
 
         // Check if content was changed (XSS detected)
-        if (!value.equals(cleaned)) {
-            // Log violation if enabled
-            if (properties.isLogViolation()) {
-                logger.warn("XSS violation detected in {}: '{}' -> '{}'", context, value, cleaned);
-            }
+        if (result.isChanged()) {
+            handleViolation(prefix, name, value, result.getValue());
+        }
+
+        return result.getValue();
+    }
+
+    /**
+     * Cleans a batch of parameter values with logging and exception handling.
+     * 
+     * @param values The values to clean.
+     * @param names  The name of the parameter of the value at a given index.
+     * @return The cleaned values.
+     */
+    private String[] cleanValues(String[] values, IntFunction<String> names) {
+        return cleanValues(values, cleaner, PARAMETER_PREFIX, names);
+    }
 
-            // Throw exception if enabled
-            if (properties.isThrowOnViolation()) {
-                throw new XssViolationException(context, value, cleaned);
+    /**
+     * Cleans a batch of values with logging and exception handling. When
+     * violations are rejected, each value goes through the same safety check
+     * as a single value. Otherwise the values are passed to the cleaner in a
+     * single {@link CleanerService#cleanAllTracked} call.
+     * 
+     * @param values  The values to clean.
+     * @param cleaner The cleaner to use.
+     * @param prefix  The prefix of the context for logging.
+     * @param names   The name of the value at a given index.
+     * @return The cleaned values.
+     */
+    private String[] cleanValues(String[] values, CleanerService cleaner, String prefix,
+            IntFunction<String> names) {
+        String[] cleaned = new String[values.length];
+        if (properties.isThrowOnViolation()) {
+            for (int i = 0; i < values.length; i++) {
+                cleaned[i] = cleanValue(values[i], cleaner, prefix, names.apply(i));
             }
+            return cleaned;
         }
 
+        CleanResult[] results = cleaner.cleanAllTracked(values);
+        for (int i = 0; i < values.length; i++) {
+            CleanResult result = results[i];
+            if (result.isChanged()) {
+                handleViolation(prefix, names.apply(i), values[i], result.getValue());
+            }
+            cleaned[i] = result.getValue();
+        }
         return cleaned;
     }
 
+    /**
+     * Logs a violation and throws an exception if enabled. The context is
+     * only built here, so values without violations cost no string building.
+     * 
+     * @param prefix  The prefix of the context for logging.
+     * @param name    The name of the value.
+     * @param value   The original value.
+     * @param cleaned The cleaned value.
+     */
+    private void handleViolation(String prefix, String name, String value, String cleaned) {
+        boolean log = properties.isLogViolation();
+        boolean reject = properties.isThrowOnViolation();
+        if (!log && !reject) {
+            return;
+        }
+        String context = prefix + name + SUFFIX;
+
+        // Log violation if enabled
+        if (log) {
+            logger.warn("XSS violation detected in {}: '{}' -> '{}'", context, value, cleaned);
+        }
+
+        // Throw exception if enabled
+        if (reject) {
+            throw new XssViolationException(context, value, cleaned);
+        }
+    }
+
     /**
      * Gets the parameter value.
      * 
@@ -81,8 +214,8 @@ public class XssRequestWrapper extends HttpServletRequestWrapper {
      */
     @Override
     public String getParameter(String name) {
-        String value = super.getParameter(name);
-        return cleanValue(value, PARAMETER_PREFIX + name + SUFFIX);
+        String[] values = cleanedValues(name);
+        return values == null || values.length == 0 ? null : values[0];
     }
 
     /**
@@ -93,32 +226,80 @@ public class XssRequestWrapper extends HttpServletRequestWrapper {
      */
     @Override
     public String[] getParameterValues(String name) {
-        String[] values = super.getParameterValues(name);
-        if (values == null) {
-            // Preserve servlet contract: return null when parameter is absent
-            return null;
+        String[] values = cleanedValues(name);
+        // Preserve servlet contract: return null when parameter is absent
+        return values == null ? null : values.clone();
+    }
+
+    /**
+     * Gets the cleaned values of a parameter, cleaning them on first use.
+     * 
+     * @param name The name of the parameter.
+     * @return The cleaned values, or null if the parameter is absent.
+     */
+    private String[] cleanedValues(String name) {
+        String[] cleaned = parameters.get(name);
+        if (cleaned == null) {
+            String[] values = super.getParameterValues(name);
+            if (values == null) {
+                return null;
+            }
+            cleaned = cleanValues(values, i -> name);
+            parameters.put(name, cleaned);
         }
-        return Arrays.stream(values)
-                .map(value -> cleanValue(value, PARAMETER_PREFIX + name + SUFFIX))
-                .toArray(String[]::new);
+        return cleaned;
     }
 
     /**
-     * Gets the parameter map.
+     * Gets the parameter map. The map is built on first use and is
+     * unmodifiable.
      * 
      * @return The parameter map.
      */
     @Override
     public Map<String, String[]> getParameterMap() {
+        if (parameterMap == null) {
+            parameterMap = buildParameterMap();
+        }
+        return parameterMap;
+    }
+
+    private Map<String, String[]> buildParameterMap() {
         Map<String, String[]> map = super.getParameterMap();
-        Map<String, String[]> cleaned = new HashMap<>();
+
+        // Clean the values of all parameters not cleaned yet as one batch
+        int total = 0;
         for (Map.Entry<String, String[]> e : map.entrySet()) {
-            String[] newVals = Arrays.stream(e.getValue())
-                    .map(value -> cleanValue(value, PARAMETER_PREFIX + e.getKey() + SUFFIX))
-                    .toArray(String[]::new);
-            cleaned.put(e.getKey(), newVals);
+            if (!parameters.containsKey(e.getKey())) {
+                total += e.getValue().length;
+            }
         }
-        return cleaned;
+        String[] names = new String[total];
+        String[] values = new String[total];
+        int k = 0;
+        for (Map.Entry<String, String[]> e : map.entrySet()) {
+            if (!parameters.containsKey(e.getKey())) {
+                for (String value : e.getValue()) {
+                    names[k] = e.getKey();
+                    values[k++] = value;
+                }
+            }
+        }
+        String[] cleanedValues = total == 0 ? values : cleanValues(values, i -> names[i]);
+
+        Map<String, String[]> cleaned = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        k = 0;
+        for (Map.Entry<String, String[]> e : map.entrySet()) {
+            String[] known = parameters.get(e.getKey());
+            if (known == null) {
+                int length = e.getValue().length;
+                known = Arrays.copyOfRange(cleanedValues, k, k + length);
+                parameters.put(e.getKey(), known);
+                k += length;
+            }
+            cleaned.put(e.getKey(), known);
+        }
+        return Collections.unmodifiableMap(cleaned);
     }
 
     /**
@@ -129,7 +310,74 @@ public class XssRequestWrapper extends HttpServletRequestWrapper {
      */
     @Override
     public String getHeader(String name) {
-        String value = super.getHeader(name);
-        return cleanValue(value, HEADER_PREFIX + name + SUFFIX);
+        if (name == null) {
+            return null;
+        }
+        CleanerService headerCleaner = headerRules.cleanerFor(name);
+        if (headerCleaner == null) {
+            return super.getHeader(name);
+        }
+        String cleaned = headers.get(name);
+        if (cleaned == null) {
+            cleaned = cleanValue(super.getHeader(name), headerCleaner, HEADER_PREFIX, name);
+            headers.put(name, cleaned == null ? NO_HEADER : cleaned);
+        }
+        return cleaned == NO_HEADER ? null : cleaned;
+    }
+
+    /**
+     * Gets all values of a header.
+     * 
+     * @param name The name of the header.
+     * @return The header values.
+     */
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        CleanerService headerCleaner = name == null ? null : headerRules.cleanerFor(name);
+        if (headerCleaner == null) {
+            return super.getHeaders(name);
+        }
+        List<String> cleaned = headerValues.get(name);
+        if (cleaned == null) {
+            Enumeration<String> values = super.getHeaders(name);
+            if (values == null) {
+                return null;
+            }
+            String[] raw = Collections.list(values).toArray(new String[0]);
+            cleaned = raw.length == 0 ? List.of()
+                    : Arrays.asList(cleanValues(raw, headerCleaner, HEADER_PREFIX, i -> name));
+            headerValues.put(name, cleaned);
+        }
+        return Collections.enumeration(cleaned);
+    }
+
+    /**
+     * Gets the header names, cleaned like headers not listed in the header
+     * policy table.
+     * 
+     * @return The header names.
+     */
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        CleanerService nameCleaner = headerRules.nameCleaner();
+        if (nameCleaner == null) {
+            return super.getHeaderNames();
+        }
+        if (headerNames == null) {
+            Enumeration<String> names = super.getHeaderNames();
+            if (names == null) {
+                return null;
+            }
+            String[] raw = Collections.list(names).toArray(new String[0]);
+            String[] cleaned = cleanValues(raw, nameCleaner, HEADER_NAME_PREFIX, i -> raw[i]);
+            List<String> list = new ArrayList<>(cleaned.length);
+            for (String value : cleaned) {
+                if (value != null && !value.isEmpty()) {
+                    list.add(value);
+                }
+            }
+            headerNames = list;
+        }
+        return Collections.enumeration(headerNames);
     }
 }
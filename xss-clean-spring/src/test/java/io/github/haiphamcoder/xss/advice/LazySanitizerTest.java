@@ -0,0 +1,356 @@
+package io.github.haiphamcoder.xss.advice;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.PolicyRegistry;
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssLazy;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import jakarta.validation.Valid;
+import org.junit.jupiter.api.Test;
+import org.owasp.html.Sanitizers;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazySanitizerTest {
+
+    private final CountingCleaner cleaner = new CountingCleaner();
+
+    private final LazySanitizer sanitizer = new LazySanitizer(cleaner);
+
+    @Test
+    void testGettersAreCleanedOnFirstCall() {
+        Article article = new Article();
+        article.setTitle("<script>x</script>Title");
+        article.setBody("<b>Body</b>");
+
+        Article proxy = (Article) sanitizer.sanitize(article);
+
+        assertNotSame(article, proxy);
+        assertEquals(0, cleaner.calls.get());
+        assertEquals("Title", proxy.getTitle());
+        assertEquals("Title", proxy.getTitle());
+        assertEquals(1, cleaner.calls.get());
+        assertEquals("<b>Body</b>", article.getBody());
+    }
+
+    @Test
+    void testSettersDropMemoizedValues() {
+        Article article = new Article();
+        article.setTitle("<i>a</i>");
+        Article proxy = (Article) sanitizer.sanitize(article);
+
+        assertEquals("a", proxy.getTitle());
+        proxy.setTitle("<i>b</i>");
+
+        assertEquals("b", proxy.getTitle());
+        assertEquals("<i>b</i>", article.getTitle());
+    }
+
+    @Test
+    void testListsAndMapsAreCleanedOnRead() {
+        Article article = new Article();
+        article.setTags(new ArrayList<>(List.of("<b>a</b>", "<b>b</b>", "<b>c</b>")));
+        article.setMeta(new HashMap<>(Map.of("author", "<b>me</b>", "id", "1")));
+        Article proxy = (Article) sanitizer.sanitize(article);
+
+        List<String> tags = proxy.getTags();
+        assertEquals("b", tags.get(1));
+        assertEquals(1, cleaner.calls.get());
+        assertEquals(List.of("a", "b", "c"), tags);
+        assertEquals(3, cleaner.calls.get());
+        tags.add(0, "new");
+        assertEquals(List.of("new", "a", "b", "c"), tags);
+        assertEquals("new", article.getTags().get(0));
+
+        Map<String, String> meta = proxy.getMeta();
+        assertEquals("me", meta.get("author"));
+        assertEquals(Map.of("author", "me", "id", "1"), meta);
+        assertNull(meta.get("missing"));
+    }
+
+    @Test
+    void testConcreteCollectionTypesAreCleanedInPlace() {
+        Concrete bean = new Concrete();
+        ArrayList<String> list = new ArrayList<>(List.of("<b>a</b>", "b"));
+        LinkedList<String> linked = new LinkedList<>(List.of("<i>c</i>"));
+        HashMap<String, String> hash = new HashMap<>(Map.of("k", "<b>v</b>"));
+        TreeMap<String, String> tree = new TreeMap<>(Map.of("t", "<u>w</u>"));
+        TreeSet<String> sorted = new TreeSet<>(List.of("<b>s</b>"));
+        bean.setList(list);
+        bean.setLinked(linked);
+        bean.setHash(hash);
+        bean.setTree(tree);
+        bean.setSorted(sorted);
+        bean.setSequence(new LinkedList<>(List.of("<b>q</b>")));
+
+        Concrete proxy = (Concrete) sanitizer.sanitize(bean);
+
+        assertSame(list, proxy.getList());
+        assertEquals(List.of("a", "b"), list);
+        assertSame(linked, proxy.getLinked());
+        assertEquals(List.of("c"), linked);
+        assertSame(hash, proxy.getHash());
+        assertEquals(Map.of("k", "v"), hash);
+        assertSame(tree, proxy.getTree());
+        assertEquals(Map.of("t", "w"), tree);
+        assertSame(sorted, proxy.getSorted());
+        assertEquals(Set.of("s"), sorted);
+        assertEquals(List.of("q"), proxy.getSequence());
+        assertEquals(List.of("<b>q</b>"), bean.getSequence());
+    }
+
+    @Test
+    void testNestedBeansAreProxied() {
+        Article article = new Article();
+        Article related = new Article();
+        related.setTitle("<u>Related</u>");
+        article.setRelated(related);
+
+        Article proxy = (Article) sanitizer.sanitize(article);
+
+        assertEquals("Related", proxy.getRelated().getTitle());
+        assertSame(proxy.getRelated(), proxy.getRelated());
+        assertEquals("<u>Related</u>", related.getTitle());
+    }
+
+    @Test
+    void testBeansWithVisibleFieldsAreCleanedEagerly() {
+        PublicFields bean = new PublicFields();
+        bean.value = "<b>x</b>";
+
+        assertSame(bean, sanitizer.sanitize(bean));
+        assertEquals("x", bean.value);
+    }
+
+    @Test
+    void testAnnotationsAreHonored() {
+        PolicyRegistry.register("lazy-formatting", new OwaspCleanerService(Sanitizers.FORMATTING));
+        try {
+            Annotated bean = new Annotated();
+            bean.setToken("<b>token</b>");
+            bean.setRich("<b>rich</b><script>x</script>");
+            Annotated proxy = (Annotated) sanitizer.sanitize(bean);
+
+            assertEquals("<b>token</b>", proxy.getToken());
+            assertEquals("<b>rich</b>", proxy.getRich());
+
+            Ignored ignored = new Ignored();
+            ignored.setValue("<b>x</b>");
+            assertSame(ignored, sanitizer.sanitize(ignored));
+            assertEquals("<b>x</b>", ignored.getValue());
+        } finally {
+            PolicyRegistry.unregister("lazy-formatting");
+        }
+    }
+
+    @Test
+    void testAdviceSanitizesOptedInBodiesLazily() throws Exception {
+        RequestBodySanitizerAdvice advice = new RequestBodySanitizerAdvice(cleaner);
+        Method method = Handlers.class.getDeclaredMethod("handle", Article.class, Article.class, Article.class);
+        Article lazy = new Article();
+        lazy.setTitle("<b>lazy</b>");
+        Article validated = new Article();
+        validated.setTitle("<b>validated</b>");
+        Article eager = new Article();
+        eager.setTitle("<b>eager</b>");
+
+        Object lazyResult = advice.afterBodyRead(lazy, null, new MethodParameter(method, 0), Article.class, null);
+        Object validatedResult = advice.afterBodyRead(validated, null, new MethodParameter(method, 1), Article.class, null);
+        Object eagerResult = advice.afterBodyRead(eager, null, new MethodParameter(method, 2), Article.class, null);
+
+        assertNotSame(lazy, lazyResult);
+        assertEquals("<b>lazy</b>", lazy.getTitle());
+        assertEquals("lazy", ((Article) lazyResult).getTitle());
+        assertSame(validated, validatedResult);
+        assertEquals("validated", validated.getTitle());
+        assertSame(eager, eagerResult);
+        assertEquals("eager", eager.getTitle());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LazySanitizer(null));
+    }
+
+    static class Handlers {
+        void handle(@XssLazy @RequestBody Article lazy, @XssLazy @Valid @RequestBody Article validated,
+                @RequestBody Article eager) {
+        }
+    }
+
+    static class CountingCleaner implements CleanerService {
+        final AtomicInteger calls = new AtomicInteger();
+        final CleanerService delegate = new OwaspCleanerService();
+
+        @Override
+        public String clean(String raw) {
+            calls.incrementAndGet();
+            return delegate.clean(raw);
+        }
+
+        @Override
+        public void cleanObject(Object object) {
+            delegate.cleanObject(object);
+        }
+    }
+
+    public static class Article {
+        private String title;
+        private String body;
+        private List<String> tags;
+        private Map<String, String> meta;
+        private Article related;
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public void setBody(String body) {
+            this.body = body;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public Map<String, String> getMeta() {
+            return meta;
+        }
+
+        public void setMeta(Map<String, String> meta) {
+            this.meta = meta;
+        }
+
+        public Article getRelated() {
+            return related;
+        }
+
+        public void setRelated(Article related) {
+            this.related = related;
+        }
+    }
+
+    public static class Annotated {
+        @XssIgnore
+        private String token;
+        private String rich;
+
+        public String getToken() {
+            return token;
+        }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
+
+        @XssPolicy("lazy-formatting")
+        public String getRich() {
+            return rich;
+        }
+
+        public void setRich(String rich) {
+            this.rich = rich;
+        }
+    }
+
+    @XssIgnore
+    public static class Ignored {
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+
+    public static class Concrete {
+        private ArrayList<String> list;
+        private LinkedList<String> linked;
+        private HashMap<String, String> hash;
+        private TreeMap<String, String> tree;
+        private SortedSet<String> sorted;
+        private List<String> sequence;
+
+        public ArrayList<String> getList() {
+            return list;
+        }
+
+        public void setList(ArrayList<String> list) {
+            this.list = list;
+        }
+
+        public LinkedList<String> getLinked() {
+            return linked;
+        }
+
+        public void setLinked(LinkedList<String> linked) {
+            this.linked = linked;
+        }
+
+        public HashMap<String, String> getHash() {
+            return hash;
+        }
+
+        public void setHash(HashMap<String, String> hash) {
+            this.hash = hash;
+        }
+
+        public TreeMap<String, String> getTree() {
+            return tree;
+        }
+
+        public void setTree(TreeMap<String, String> tree) {
+            this.tree = tree;
+        }
+
+        public SortedSet<String> getSorted() {
+            return sorted;
+        }
+
+        public void setSorted(SortedSet<String> sorted) {
+            this.sorted = sorted;
+        }
+
+        public List<String> getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(List<String> sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    static class PublicFields {
+        public String value;
+    }
+}
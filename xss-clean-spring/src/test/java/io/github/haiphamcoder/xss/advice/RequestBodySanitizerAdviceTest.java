@@ -0,0 +1,210 @@
+package io.github.haiphamcoder.xss.advice;
+
+import io.github.haiphamcoder.xss.PolicyRegistry;
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+import io.github.haiphamcoder.xss.config.XssProperties;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import io.github.haiphamcoder.xss.web.XssJsonBodyFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestBodySanitizerAdviceTest {
+
+    private final List<Object> cleaned = new ArrayList<>();
+
+    private final OwaspCleanerService cleaner = new OwaspCleanerService() {
+        @Override
+        public void cleanObject(Object object) {
+            cleaned.add(object);
+            super.cleanObject(object);
+        }
+    };
+
+    private final RequestBodySanitizerAdvice advice = new RequestBodySanitizerAdvice(cleaner);
+
+    @Test
+    void testBodiesWithoutStringsAreNotSupported() throws Exception {
+        assertFalse(supports("bytes"));
+        assertFalse(supports("resource"));
+        assertFalse(supports("counts"));
+        assertFalse(supports("ignored"));
+        assertFalse(supports("ignoredType"));
+        assertTrue(supports("comment"));
+        assertTrue(supports("stats"));
+    }
+
+    @Test
+    void testBodiesOfInertClassesAreSkipped() throws Exception {
+        Stats stats = new Stats();
+
+        assertSame(stats, advice.afterBodyRead(stats, null, parameter("stats"), Stats.class, null));
+
+        assertTrue(cleaned.isEmpty());
+    }
+
+    @Test
+    void testPoliciesAreResolvedOncePerParameter() throws Exception {
+        List<Object> formatted = new ArrayList<>();
+        PolicyRegistry.register("advice-formatting", new OwaspCleanerService() {
+            @Override
+            public void cleanObject(Object object) {
+                formatted.add(object);
+                super.cleanObject(object);
+            }
+        });
+        try {
+            Comment first = new Comment();
+            first.text = "<b>x</b>";
+            Comment second = new Comment();
+            advice.afterBodyRead(first, null, parameter("formatted"), Comment.class, null);
+            PolicyRegistry.unregister("advice-formatting");
+            advice.afterBodyRead(second, null, parameter("formatted"), Comment.class, null);
+
+            assertEquals(List.of(first, second), formatted);
+            assertTrue(cleaned.isEmpty());
+            assertEquals("x", first.text);
+        } finally {
+            PolicyRegistry.unregister("advice-formatting");
+        }
+    }
+
+    @Test
+    void testNullParameters() {
+        assertTrue(advice.supports(null, null, null));
+        Comment comment = new Comment();
+        comment.text = "<b>x</b>";
+
+        assertSame(comment, advice.afterBodyRead(comment, null, null, null, null));
+
+        assertEquals("x", comment.text);
+    }
+
+    @Test
+    void testBodiesRewrittenByJsonFilterAreNotCleanedAgain() throws Exception {
+        XssProperties properties = new XssProperties();
+        assertEquals("x", readThroughFilter("application/json", StandardCharsets.UTF_8, properties));
+        assertTrue(cleaned.isEmpty());
+
+        // Bodies the filter does not rewrite are cleaned after conversion
+        assertEquals("x",
+                readThroughFilter("application/json;charset=ISO-8859-1", StandardCharsets.ISO_8859_1, properties));
+        assertEquals("x", readThroughFilter("application/xml", StandardCharsets.UTF_8, properties));
+        assertEquals(2, cleaned.size());
+    }
+
+    @Test
+    void testStringsExcludedByJsonPathRulesAreNotCleaned() throws Exception {
+        XssProperties properties = new XssProperties();
+        XssProperties.PathRule rule = new XssProperties.PathRule();
+        rule.setEndpoint("/**");
+        rule.setExclude(List.of("/text"));
+        properties.getJsonBody().setRules(List.of(rule));
+
+        assertEquals("<b>x</b>", readThroughFilter("application/json", StandardCharsets.UTF_8, properties));
+        assertTrue(cleaned.isEmpty());
+    }
+
+    /**
+     * Sends a body holding {@code <b>x</b>} through the JSON body filter,
+     * converts it the way a message converter would and passes it to the
+     * advice.
+     */
+    private String readThroughFilter(String contentType, Charset charset, XssProperties properties)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.setContentType(contentType);
+        request.setContent("{\"text\":\"<b>x</b>\"}".getBytes(charset));
+        MockFilterChain chain = new MockFilterChain();
+        new XssJsonBodyFilter(cleaner, properties).doFilter(request, new MockHttpServletResponse(), chain);
+        HttpServletRequest filtered = (HttpServletRequest) chain.getRequest();
+
+        Comment comment = new ObjectMapper().readValue(new InputStreamReader(filtered.getInputStream(), charset),
+                Comment.class);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(filtered));
+        try {
+            return ((Comment) advice.afterBodyRead(comment, null, parameter("comment"), Comment.class, null)).text;
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private boolean supports(String method) throws Exception {
+        MethodParameter parameter = parameter(method);
+        return advice.supports(parameter, parameter.getGenericParameterType(), null);
+    }
+
+    private static MethodParameter parameter(String name) throws Exception {
+        for (Method method : Handlers.class.getDeclaredMethods()) {
+            if (method.getName().equals(name)) {
+                return new MethodParameter(method, 0);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    public static class Comment {
+
+        public String text;
+    }
+
+    public static class Stats {
+
+        public int views;
+
+        public long likes;
+    }
+
+    @XssIgnore
+    public static class Secret {
+
+        public String token;
+    }
+
+    static class Handlers {
+
+        void bytes(@RequestBody byte[] body) {
+        }
+
+        void resource(@RequestBody Resource body) {
+        }
+
+        void counts(@RequestBody Map<String, Integer> body) {
+        }
+
+        void ignored(@XssIgnore @RequestBody Comment body) {
+        }
+
+        void ignoredType(@RequestBody Secret body) {
+        }
+
+        void comment(@RequestBody Comment body) {
+        }
+
+        void stats(@RequestBody Stats body) {
+        }
+
+        @XssPolicy("advice-formatting")
+        void formatted(@RequestBody Comment body) {
+        }
+    }
+}
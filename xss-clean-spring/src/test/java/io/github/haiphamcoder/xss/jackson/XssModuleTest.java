@@ -0,0 +1,121 @@
+package io.github.haiphamcoder.xss.jackson;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.haiphamcoder.xss.PolicyRegistry;
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.annotation.XssPolicy;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.owasp.html.Sanitizers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XssModuleTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new XssModule(new OwaspCleanerService()));
+
+    @BeforeEach
+    void setUp() {
+        PolicyRegistry.register("json-formatting", new OwaspCleanerService(Sanitizers.FORMATTING));
+    }
+
+    @AfterEach
+    void tearDown() {
+        PolicyRegistry.unregister("json-formatting");
+    }
+
+    @Test
+    void testStringsAreCleanedWhileRead() throws Exception {
+        Comment comment = mapper.readValue("""
+                {"text": "<script>x</script>hi", "tags": ["<b>a</b>", "b"], "labels": ["<i>c</i>"],
+                 "meta": {"<b>key</b>": "<b>value</b>"}, "number": 5}
+                """, Comment.class);
+
+        assertEquals("hi", comment.text);
+        assertEquals(List.of("a", "b"), comment.tags);
+        assertArrayEquals(new String[] { "c" }, comment.labels);
+        assertEquals(Map.of("key", "value"), comment.meta);
+        assertEquals(5, comment.number);
+    }
+
+    @Test
+    void testUntypedValuesAreCleaned() throws Exception {
+        Map<String, Object> body = mapper.readValue("""
+                {"a": "<b>x</b>", "b": ["<i>y</i>", 1], "c": {"d": "<u>z</u>"}}
+                """, new TypeReference<Map<String, Object>>() {
+        });
+
+        assertEquals("x", body.get("a"));
+        assertEquals(List.of("y", 1), body.get("b"));
+        assertEquals(Map.of("d", "z"), body.get("c"));
+    }
+
+    @Test
+    void testPropertyAnnotationsAreHonored() throws Exception {
+        Annotated annotated = mapper.readValue("""
+                {"token": "<b>t</b>", "rich": "<b>r</b><script>x</script>", "unknown": "<b>u</b>",
+                 "raw": {"text": "<b>raw</b>"}, "formatted": [{"text": "<b>f</b><img src=x>"}],
+                 "ignored": {"text": "<b>i</b>"}, "plain": {"text": "<b>p</b>"}}
+                """, Annotated.class);
+
+        assertEquals("<b>t</b>", annotated.token);
+        assertEquals("<b>r</b>", annotated.rich);
+        assertEquals("u", annotated.unknown);
+        assertEquals("<b>raw</b>", annotated.raw.text);
+        assertEquals("<b>f</b>", annotated.formatted.get(0).text);
+        assertEquals("<b>i</b>", annotated.ignored.text);
+        assertEquals("p", annotated.plain.text);
+    }
+
+    @Test
+    void testRecordComponentsHonorAnnotations() throws Exception {
+        Login login = mapper.readValue("""
+                {"user": "<b>me</b>", "password": "<b>secret</b>"}
+                """, Login.class);
+
+        assertEquals("me", login.user());
+        assertEquals("<b>secret</b>", login.password());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new XssModule(null));
+    }
+
+    public static class Comment {
+        public String text;
+        public List<String> tags;
+        public String[] labels;
+        public Map<String, String> meta;
+        public int number;
+    }
+
+    public static class Annotated {
+        @XssIgnore
+        public String token;
+        @XssPolicy("json-formatting")
+        public String rich;
+        @XssPolicy("missing")
+        public String unknown;
+        @XssIgnore
+        public Comment raw;
+        @XssPolicy("json-formatting")
+        public List<Comment> formatted;
+        public IgnoredComment ignored;
+        public Comment plain;
+    }
+
+    @XssIgnore
+    public static class IgnoredComment {
+        public String text;
+    }
+
+    public record Login(String user, @XssIgnore String password) {
+    }
+}
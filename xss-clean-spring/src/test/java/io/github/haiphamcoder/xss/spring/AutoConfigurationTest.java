@@ -1,12 +1,21 @@
 package io.github.haiphamcoder.xss.spring;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.haiphamcoder.xss.CachingCleanerService;
 import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.ParallelCleanerService;
 import io.github.haiphamcoder.xss.advice.RequestBodySanitizerAdvice;
 import io.github.haiphamcoder.xss.config.XssAutoConfiguration;
 import io.github.haiphamcoder.xss.config.XssProperties;
+import io.github.haiphamcoder.xss.jackson.XssModule;
+import io.github.haiphamcoder.xss.policy.EscapeCleanerService;
+import io.github.haiphamcoder.xss.policy.StripTagsCleanerService;
+import io.github.haiphamcoder.xss.web.XssBindingPostProcessor;
 import io.github.haiphamcoder.xss.web.XssFilter;
+import io.github.haiphamcoder.xss.web.XssJsonBodyFilter;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -63,4 +72,115 @@ class AutoConfigurationTest {
                     assertThat(cleanerService).isNotNull();
                 });
     }
+
+    @Test
+    void testAutoConfigurationWithStripTagsStrategy() {
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true", "xss.cleaner.strategy=strip_tags")
+                .run(context -> {
+                    CleanerService cleanerService = context.getBean(CleanerService.class);
+                    assertThat(cleanerService).isInstanceOf(StripTagsCleanerService.class);
+                    assertThat(cleanerService.clean("<b>Hello</b><script>alert(1)</script>")).isEqualTo("Hello");
+                });
+    }
+
+    @Test
+    void testAutoConfigurationWithEscapeStrategy() {
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true", "xss.cleaner.strategy=escape")
+                .run(context -> {
+                    CleanerService cleanerService = context.getBean(CleanerService.class);
+                    assertThat(cleanerService).isInstanceOf(EscapeCleanerService.class);
+                    assertThat(cleanerService.clean("<b>Tom & Jerry</b>")).isEqualTo("&lt;b&gt;Tom &amp; Jerry&lt;/b&gt;");
+                });
+    }
+
+    @Test
+    void testAutoConfigurationWithCacheEnabled() {
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true", "xss.cleaner.cache.enabled=true",
+                        "xss.cleaner.cache.maximum-weight=4096", "xss.cleaner.cache.max-input-length=64")
+                .run(context -> {
+                    CleanerService cleanerService = context.getBean(CleanerService.class);
+                    assertThat(cleanerService).isInstanceOf(CachingCleanerService.class);
+                    assertThat(cleanerService.clean("<b>Hello</b>")).isEqualTo("Hello");
+                    assertThat(cleanerService.clean("<b>Hello</b>")).isEqualTo("Hello");
+                    assertThat(((CachingCleanerService) cleanerService).getStats().getHitCount()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void testAutoConfigurationWithParallelEnabled() {
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true", "xss.cleaner.cache.enabled=true",
+                        "xss.cleaner.parallel.enabled=true", "xss.cleaner.parallel.threshold=128",
+                        "xss.cleaner.parallel.parallelism=2")
+                .run(context -> {
+                    CleanerService cleanerService = context.getBean(CleanerService.class);
+                    assertThat(cleanerService).isInstanceOf(ParallelCleanerService.class);
+                    ParallelCleanerService parallel = (ParallelCleanerService) cleanerService;
+                    assertThat(parallel.getDelegate()).isInstanceOf(CachingCleanerService.class);
+                    assertThat(parallel.getThreshold()).isEqualTo(128);
+                    assertThat(parallel.getPool().getParallelism()).isEqualTo(2);
+                    assertThat(cleanerService.clean("<b>Hello</b>")).isEqualTo("Hello");
+                });
+    }
+
+    @Test
+    void testAutoConfigurationWithJacksonEnabled() {
+        this.contextRunner
+                .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class))
+                .withPropertyValues("xss.cleaner.enabled=true", "xss.cleaner.jackson.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(XssModule.class);
+                    assertThat(context).doesNotHaveBean(RequestBodySanitizerAdvice.class);
+                    ObjectMapper mapper = context.getBean(ObjectMapper.class);
+                    assertThat(mapper.readValue("\"<b>Hello</b>\"", String.class)).isEqualTo("Hello");
+                });
+    }
+
+    @Test
+    void testAutoConfigurationWithJacksonDisabledByDefault() {
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true")
+                .run(context -> {
+                    assertThat(context).doesNotHaveBean(XssModule.class);
+                    assertThat(context).hasSingleBean(RequestBodySanitizerAdvice.class);
+                });
+    }
+
+    @Test
+    void testAutoConfigurationWithJsonBodyFilter() {
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true")
+                .run(context -> assertThat(context).doesNotHaveBean(XssJsonBodyFilter.class));
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true", "xss.cleaner.json-body.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(XssJsonBodyFilter.class);
+                    assertThat(context).hasSingleBean(XssFilter.class);
+                    assertThat(context).hasSingleBean(RequestBodySanitizerAdvice.class);
+                });
+    }
+
+    @Test
+    void testAutoConfigurationWithBindingMode() {
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true")
+                .run(context -> assertThat(context).doesNotHaveBean(XssBindingPostProcessor.class));
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true", "xss.cleaner.mode=binding")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(XssBindingPostProcessor.class);
+                    assertThat(context).doesNotHaveBean(XssFilter.class);
+                });
+    }
+
+    @Test
+    void testAutoConfigurationWithCacheDisabledByDefault() {
+        this.contextRunner
+                .withPropertyValues("xss.cleaner.enabled=true")
+                .run(context -> assertThat(context.getBean(CleanerService.class))
+                        .isNotInstanceOf(CachingCleanerService.class));
+    }
 }
@@ -1,6 +1,7 @@
 package io.github.haiphamcoder.xss.spring;
 
 import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.PolicyRegistry;
 import io.github.haiphamcoder.xss.SpringXssCleanApplication;
 import io.github.haiphamcoder.xss.config.XssProperties;
 import org.junit.jupiter.api.Test;
@@ -67,6 +68,15 @@ class ProfileConfigurationTest {
         assertEquals("class,id,style", customProfile.getAllowedAttributes());
     }
 
+    @Test
+    void testProfilesAreRegisteredAsPolicies() {
+        CleanerService lenient = PolicyRegistry.find("lenient");
+        assertNotNull(lenient);
+        assertEquals("<b>Hello</b>", lenient.clean("<b>Hello</b><script>alert('XSS')</script>"));
+        assertNotNull(PolicyRegistry.find("strict"));
+        assertNotNull(PolicyRegistry.find("custom"));
+    }
+
     @Test
     void testDifferentProfiles() {
         // Test that different profiles produce different results
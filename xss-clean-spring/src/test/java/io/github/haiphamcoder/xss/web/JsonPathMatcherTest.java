@@ -0,0 +1,104 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.config.XssProperties;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPathMatcherTest {
+
+    private static final String DOCUMENT = "{\"comments\": [{\"author\": \"<b>a</b>\", \"body\": \"<b>b</b>\"},"
+            + " {\"author\": \"<b>c</b>\", \"body\": {\"text\": \"<b>d</b>\"}}],"
+            + " \"profile\": {\"bio\": \"<b>e</b>\", \"name\": \"<b>f</b>\"}, \"title\": \"<b>g</b>\"}";
+
+    @Test
+    void testIncludedPathsAreCleaned() throws IOException {
+        JsonPathMatcher matcher = JsonPathMatcher.compile(List.of("/comments/*/body", "/profile/bio"), List.of());
+
+        assertEquals("{\"comments\": [{\"author\": \"<b>a</b>\", \"body\": \"b\"},"
+                + " {\"author\": \"<b>c</b>\", \"body\": {\"text\": \"d\"}}],"
+                + " \"profile\": {\"bio\": \"e\", \"name\": \"<b>f</b>\"}, \"title\": \"<b>g</b>\"}",
+                rewrite(DOCUMENT, matcher));
+    }
+
+    @Test
+    void testExcludedPathsAreSkipped() throws IOException {
+        JsonPathMatcher matcher = JsonPathMatcher.compile(List.of(), List.of("/comments/1", "/**/name"));
+
+        assertEquals("{\"comments\": [{\"author\": \"a\", \"body\": \"b\"},"
+                + " {\"author\": \"<b>c</b>\", \"body\": {\"text\": \"<b>d</b>\"}}],"
+                + " \"profile\": {\"bio\": \"e\", \"name\": \"<b>f</b>\"}, \"title\": \"g\"}",
+                rewrite(DOCUMENT, matcher));
+    }
+
+    @Test
+    void testDeepWildcardsAndEscapedNames() throws IOException {
+        JsonPathMatcher matcher = JsonPathMatcher.compile(List.of("/**/text", "/a~1b"), List.of());
+
+        assertEquals(DOCUMENT.replace("<b>d</b>", "d"), rewrite(DOCUMENT, matcher));
+        assertEquals("{\"a/b\": \"x\", \"a\\u002fb\": \"y\", \"c\": \"<b>z</b>\"}",
+                rewrite("{\"a/b\": \"<b>x</b>\", \"a\\u002fb\": \"<b>y</b>\", \"c\": \"<b>z</b>\"}", matcher));
+    }
+
+    @Test
+    void testStatesAreReusedWhereNoRuleReaches() {
+        JsonPathMatcher matcher = JsonPathMatcher.compile(List.of("/profile/bio"), List.of());
+        JsonPathMatcher.State root = matcher.root();
+        byte[] other = "other".getBytes(StandardCharsets.UTF_8);
+
+        JsonPathMatcher.State unmatched = root.member(other, other.length);
+
+        assertFalse(unmatched.isSanitized());
+        assertSame(unmatched, unmatched.member(other, other.length));
+        assertSame(unmatched, unmatched.element(3));
+    }
+
+    @Test
+    void testInvalidPointers() {
+        assertThrows(IllegalArgumentException.class, () -> JsonPathMatcher.compile(List.of("profile"), List.of()));
+    }
+
+    @Test
+    void testFilterAppliesRulesOfMatchingEndpoint() throws Exception {
+        XssProperties properties = new XssProperties();
+        XssProperties.PathRule rule = new XssProperties.PathRule();
+        rule.setEndpoint("/api/profiles/**");
+        rule.setInclude(List.of("/profile/bio"));
+        properties.getJsonBody().setRules(List.of(rule));
+        XssJsonBodyFilter filter = new XssJsonBodyFilter(new OwaspCleanerService(), properties);
+
+        assertEquals("{\"profile\":{\"bio\":\"x\",\"name\":\"<b>y</b>\"}}",
+                filter("/api/profiles/1", "{\"profile\":{\"bio\":\"<b>x</b>\",\"name\":\"<b>y</b>\"}}", filter));
+        assertEquals("{\"profile\":{\"bio\":\"x\",\"name\":\"y\"}}",
+                filter("/api/other", "{\"profile\":{\"bio\":\"<b>x</b>\",\"name\":\"<b>y</b>\"}}", filter));
+    }
+
+    private static String filter(String uri, String body, XssJsonBodyFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        HttpServletRequest wrapped = (HttpServletRequest) chain.getRequest();
+        return new String(wrapped.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static String rewrite(String json, JsonPathMatcher matcher) throws IOException {
+        InputStream raw = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = new SanitizingJsonInputStream(raw, new OwaspCleanerService(), false, matcher.root())) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
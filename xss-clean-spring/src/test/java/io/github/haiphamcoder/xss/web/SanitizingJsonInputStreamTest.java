@@ -0,0 +1,115 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.config.XssProperties;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SanitizingJsonInputStreamTest {
+
+    private final CleanerService cleaner = new OwaspCleanerService();
+
+    @Test
+    void testCleanDocumentPassesThroughUnchanged() throws IOException {
+        String json = "{ \"name\" : \"J\\u00f6rg\\tQ\", \"tags\":[\"a\",\"b\\/c\"],\n"
+                + "  \"n\": 1.50e3, \"ok\": true, \"none\": null, \"text\": \"caf\u00e9\" }";
+
+        assertEquals(json, rewrite(json, false));
+    }
+
+    @Test
+    void testStringValuesAreCleaned() throws IOException {
+        String json = "{\"<b>key</b>\": \"<script>x</script>hi\", \"list\": [\"<i>a</i>\", 1, {\"k\": \"\\u003cb\\u003eb\\u003c/b\\u003e\"}]}";
+
+        assertEquals("{\"<b>key</b>\": \"hi\", \"list\": [\"a\", 1, {\"k\": \"b\"}]}", rewrite(json, false));
+    }
+
+    @Test
+    void testFieldNamesAreCleanedWhenEnabled() throws IOException {
+        assertEquals("{\"key\": \"v\"}", rewrite("{\"<b>key</b>\": \"<b>v</b>\"}", true));
+    }
+
+    @Test
+    void testTopLevelStringAndMalformedInput() throws IOException {
+        assertEquals("\"x\"", rewrite("\"<b>x</b>\"", false));
+        assertEquals("{\"a\": \"unterminated <b>", rewrite("{\"a\": \"unterminated <b>", false));
+        assertEquals("{\"a\": \"bad \\x\"}", rewrite("{\"a\": \"bad \\x\"}", false));
+    }
+
+    @Test
+    void testCleanedValuesAreEscaped() {
+        assertEquals("\"a\\\"b\\\\c\\n\\u0001\"", new String(SanitizingJsonInputStream.encode("a\"b\\c\n\u0001"),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testTokensSplitAcrossReads() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < 5_000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"v\":\"<b>").append(i).append("</b>\"}");
+            expected.append(i == 0 ? "" : ",").append("{\"v\":\"").append(i).append("\"}");
+        }
+        json.append(']');
+        expected.append(']');
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Deliver at most 7 bytes per read to split every kind of token
+        InputStream trickle = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        try (InputStream in = new SanitizingJsonInputStream(trickle, cleaner, false)) {
+            assertEquals(expected.toString(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testFilterRewritesJsonBodiesOnly() throws Exception {
+        XssProperties properties = new XssProperties();
+        XssJsonBodyFilter filter = new XssJsonBodyFilter(cleaner, properties);
+
+        MockHttpServletRequest json = new MockHttpServletRequest("POST", "/");
+        json.setContentType("application/vnd.api+json");
+        json.setContent("{\"a\":\"<b>x</b>\"}".getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(json, new MockHttpServletResponse(), chain);
+        HttpServletRequest wrapped = (HttpServletRequest) chain.getRequest();
+        assertEquals(-1, wrapped.getContentLength());
+        assertNull(wrapped.getHeader("Content-Length"));
+        assertEquals("{\"a\":\"x\"}", new String(wrapped.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+        MockHttpServletRequest text = new MockHttpServletRequest("POST", "/");
+        text.setContentType("text/plain");
+        text.setContent("<b>x</b>".getBytes(StandardCharsets.UTF_8));
+        chain = new MockFilterChain();
+        filter.doFilter(text, new MockHttpServletResponse(), chain);
+        assertSame(text, chain.getRequest());
+
+        assertFalse(XssJsonBodyFilter.isJson("application/json;charset=ISO-8859-1"));
+        assertTrue(XssJsonBodyFilter.isJson("application/json;charset=UTF-8"));
+        assertFalse(XssJsonBodyFilter.isJson("not a type"));
+    }
+
+    private String rewrite(String json, boolean sanitizeFieldNames) throws IOException {
+        InputStream raw = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = new SanitizingJsonInputStream(raw, cleaner, sanitizeFieldNames)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
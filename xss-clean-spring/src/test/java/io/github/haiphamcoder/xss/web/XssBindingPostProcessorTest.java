@@ -0,0 +1,142 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.annotation.XssIgnore;
+import io.github.haiphamcoder.xss.config.XssProperties;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XssBindingPostProcessorTest {
+
+    private final List<String> tracked = new ArrayList<>();
+
+    private final OwaspCleanerService cleaner = new OwaspCleanerService() {
+        @Override
+        public CleanResult cleanTracked(String raw) {
+            tracked.add(raw);
+            return super.cleanTracked(raw);
+        }
+    };
+
+    private final Controller controller = new Controller();
+
+    private RequestMappingHandlerAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.refresh();
+        adapter = new RequestMappingHandlerAdapter();
+        adapter.setApplicationContext(context);
+        adapter.afterPropertiesSet();
+        XssBindingPostProcessor.decorate(adapter, cleaner, new BindingSanitizer(new XssProperties()));
+    }
+
+    @Test
+    void testBoundValuesAreCleaned() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items/x");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", "<b>7</b>"));
+        request.addParameter("q", "<i>query</i>");
+        request.addParameter("tags", "<b>a</b>", "b");
+        request.addParameter("raw", "<b>kept</b>");
+        request.addParameter("page", "2");
+        request.addParameter("utm_source", "<b>unbound</b>");
+        request.addHeader("X-Name", "<b>n</b>");
+
+        invoke("named", request);
+
+        assertEquals(List.of("7", "query", List.of("a", "b"), "<b>kept</b>", 2, "n"), controller.arguments);
+        assertFalse(tracked.contains("<b>unbound</b>"));
+    }
+
+    @Test
+    void testModelAttributesAreCleanedAsBound() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/form");
+        request.addParameter("name", "<script>x</script>Ann");
+        request.addParameter("aliases", "<b>a</b>", "b");
+        request.addParameter("age", "3");
+
+        invoke("form", request);
+
+        Form form = (Form) controller.arguments.get(0);
+        assertEquals("Ann", form.getName());
+        assertArrayEquals(new String[] { "a", "b" }, form.getAliases());
+        assertEquals(3, form.getAge());
+    }
+
+    private void invoke(String method, MockHttpServletRequest request) throws Exception {
+        HandlerMethod handler = null;
+        for (var m : Controller.class.getDeclaredMethods()) {
+            if (m.getName().equals(method)) {
+                handler = new HandlerMethod(controller, m);
+            }
+        }
+        adapter.handle(request, new MockHttpServletResponse(), handler);
+    }
+
+    static class Controller {
+
+        final List<Object> arguments = new ArrayList<>();
+
+        public void named(@PathVariable("id") String id, @RequestParam("q") String q,
+                @RequestParam("tags") List<String> tags, @XssIgnore @RequestParam("raw") String raw,
+                @RequestParam("page") int page,
+                @RequestHeader("X-Name") String name) {
+            arguments.addAll(List.of(id, q, tags, raw, page, name));
+        }
+
+        public void form(@ModelAttribute Form form) {
+            arguments.add(form);
+        }
+    }
+
+    public static class Form {
+
+        private String name;
+
+        private String[] aliases;
+
+        private int age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String[] getAliases() {
+            return aliases;
+        }
+
+        public void setAliases(String[] aliases) {
+            this.aliases = aliases;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+    }
+}
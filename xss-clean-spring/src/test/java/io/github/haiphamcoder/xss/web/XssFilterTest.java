@@ -0,0 +1,82 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.config.XssProperties;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XssFilterTest {
+
+    @Test
+    void testPathPatterns() {
+        PathPatternTrie trie = PathPatternTrie.compile(
+                List.of("/actuator/**", "/static/*.css", "/api/v?/files", "/health"));
+
+        assertTrue(trie.matches("/actuator"));
+        assertTrue(trie.matches("/actuator/health/liveness"));
+        assertTrue(trie.matches("/static/site.css"));
+        assertFalse(trie.matches("/static/css/site.css"));
+        assertTrue(trie.matches("/api/v2/files"));
+        assertFalse(trie.matches("/api/v10/files"));
+        assertTrue(trie.matches("/health/"));
+        assertFalse(trie.matches("/healthz"));
+        assertFalse(trie.matches("/"));
+    }
+
+    @Test
+    void testDeepWildcardInTheMiddle() {
+        PathPatternTrie trie = PathPatternTrie.compile(List.of("/**/upload", "/a/**/b/*.bin"));
+
+        assertTrue(trie.matches("/upload"));
+        assertTrue(trie.matches("/x/y/upload"));
+        assertTrue(trie.matches("/a/b/c.bin"));
+        assertTrue(trie.matches("/a/x/y/b/c.bin"));
+        assertFalse(trie.matches("/a/x/y/b/c.txt"));
+        assertFalse(PathPatternTrie.compile(List.of()).matches("/any"));
+    }
+
+    @Test
+    void testInvalidPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> PathPatternTrie.compile(List.of("actuator/**")));
+    }
+
+    @Test
+    void testExcludedRequestsAreNotWrapped() throws Exception {
+        XssProperties properties = new XssProperties();
+        properties.getFilter().setExclude(List.of("/actuator/**"));
+        properties.getFilter().setExcludeMethods(List.of("options"));
+        properties.getFilter().setExcludeContentTypes(List.of("multipart/*"));
+        XssFilter filter = new XssFilter(new OwaspCleanerService(), properties);
+
+        assertFalse(isWrapped(filter, new MockHttpServletRequest("GET", "/actuator/health")));
+        assertFalse(isWrapped(filter, new MockHttpServletRequest("OPTIONS", "/api/items")));
+        MockHttpServletRequest upload = new MockHttpServletRequest("POST", "/api/items");
+        upload.setContentType("multipart/form-data; boundary=x");
+        assertFalse(isWrapped(filter, upload));
+        assertTrue(isWrapped(filter, new MockHttpServletRequest("GET", "/api/items")));
+    }
+
+    @Test
+    void testOnlyIncludedPathsAreWrapped() throws Exception {
+        XssProperties properties = new XssProperties();
+        properties.getFilter().setInclude(List.of("/api/**"));
+        properties.getFilter().setExclude(List.of("/api/files/**"));
+        XssFilter filter = new XssFilter(new OwaspCleanerService(), properties);
+
+        assertTrue(isWrapped(filter, new MockHttpServletRequest("GET", "/api/items")));
+        assertFalse(isWrapped(filter, new MockHttpServletRequest("GET", "/api/files/1")));
+        assertFalse(isWrapped(filter, new MockHttpServletRequest("GET", "/index.html")));
+    }
+
+    private static boolean isWrapped(XssFilter filter, MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest() instanceof XssRequestWrapper;
+    }
+}
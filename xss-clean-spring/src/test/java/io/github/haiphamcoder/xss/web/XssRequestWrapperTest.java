@@ -0,0 +1,206 @@
+package io.github.haiphamcoder.xss.web;
+
+import io.github.haiphamcoder.xss.CleanResult;
+import io.github.haiphamcoder.xss.CleanerService;
+import io.github.haiphamcoder.xss.config.XssProperties;
+import io.github.haiphamcoder.xss.exception.XssViolationException;
+import io.github.haiphamcoder.xss.policy.OwaspCleanerService;
+import org.junit.jupiter.api.Test;
+import org.owasp.html.Sanitizers;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XssRequestWrapperTest {
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    private final List<String> tracked = new ArrayList<>();
+
+    private final CleanerService cleaner = new OwaspCleanerService() {
+        @Override
+        public CleanResult[] cleanAllTracked(String[] raws) {
+            batchSizes.add(raws.length);
+            return super.cleanAllTracked(raws);
+        }
+
+        @Override
+        public CleanResult cleanTracked(String raw) {
+            tracked.add(raw);
+            return super.cleanTracked(raw);
+        }
+    };
+
+    @Test
+    void testParameterMapIsCleanedAsOneBatch() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("a", "<b>x</b>", "y");
+        request.addParameter("b", "<script>alert(1)</script>z");
+        request.addParameter("c", "plain");
+
+        Map<String, String[]> map = new XssRequestWrapper(request, cleaner, new XssProperties()).getParameterMap();
+
+        assertArrayEquals(new String[] { "x", "y" }, map.get("a"));
+        assertArrayEquals(new String[] { "z" }, map.get("b"));
+        assertArrayEquals(new String[] { "plain" }, map.get("c"));
+        assertEquals(List.of(4), batchSizes);
+    }
+
+    @Test
+    void testParameterValuesAreCleanedAsOneBatch() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("a", "<b>x</b>", "y", "<i>z</i>");
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, new XssProperties());
+
+        assertArrayEquals(new String[] { "x", "y", "z" }, wrapper.getParameterValues("a"));
+        assertNull(wrapper.getParameterValues("missing"));
+        assertEquals(List.of(3), batchSizes);
+    }
+
+    @Test
+    void testParameterValuesKeepUnchangedInstances() {
+        String plain = new String("plain value");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("a", plain, "<b>x</b>");
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, new XssProperties());
+
+        String[] values = wrapper.getParameterValues("a");
+
+        assertSame(plain, values[0]);
+        assertEquals("x", values[1]);
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    @Test
+    void testSafeParameterValuesAreNotCleanedWhenRejecting() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("a", "<b>x</b>", "y");
+        XssProperties properties = new XssProperties();
+        properties.setThrowOnViolation(true);
+        CleanerService formatting = new OwaspCleanerService(Sanitizers.FORMATTING) {
+            @Override
+            public CleanResult cleanTracked(String raw) {
+                tracked.add(raw);
+                return super.cleanTracked(raw);
+            }
+        };
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, formatting, properties);
+
+        assertArrayEquals(new String[] { "<b>x</b>", "y" }, wrapper.getParameterValues("a"));
+        assertTrue(tracked.isEmpty());
+    }
+
+    @Test
+    void testParameterMapViolationNamesTheParameter() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("safe", "ok");
+        request.addParameter("name", "<script>alert(1)</script>");
+        XssProperties properties = new XssProperties();
+        properties.setThrowOnViolation(true);
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, properties);
+
+        XssViolationException exception = assertThrows(XssViolationException.class, wrapper::getParameterMap);
+
+        assertEquals("parameter[name]", exception.getContext());
+        assertEquals("<script>alert(1)</script>", exception.getOriginalValue());
+    }
+
+    @Test
+    void testParametersAreCleanedOncePerRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("a", "<b>x</b>", "y");
+        request.addParameter("b", "<i>z</i>");
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, new XssProperties());
+
+        assertEquals("x", wrapper.getParameter("a"));
+        assertEquals("x", wrapper.getParameter("a"));
+        assertArrayEquals(new String[] { "x", "y" }, wrapper.getParameterValues("a"));
+        Map<String, String[]> map = wrapper.getParameterMap();
+
+        assertSame(map, wrapper.getParameterMap());
+        assertArrayEquals(new String[] { "z" }, map.get("b"));
+        assertEquals("z", wrapper.getParameter("b"));
+        // "a" once on first use, then only "b" for the map
+        assertEquals(List.of(2, 1), batchSizes);
+        assertThrows(UnsupportedOperationException.class, () -> map.put("c", new String[] { "v" }));
+    }
+
+    @Test
+    void testParameterValuesAreCopies() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("a", "x");
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, new XssProperties());
+
+        wrapper.getParameterValues("a")[0] = "changed";
+
+        assertEquals("x", wrapper.getParameter("a"));
+    }
+
+    @Test
+    void testHeadersAreCleanedOncePerRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Name", "<b>x</b>");
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, new XssProperties());
+
+        assertEquals("x", wrapper.getHeader("X-Name"));
+        assertEquals("x", wrapper.getHeader("x-name"));
+        assertNull(wrapper.getHeader("Missing"));
+        assertNull(wrapper.getHeader("Missing"));
+        assertEquals(List.of("<b>x</b>"), tracked);
+    }
+
+    @Test
+    void testViolationsAreRaisedOnEveryRead() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("name", "<script>alert(1)</script>");
+        XssProperties properties = new XssProperties();
+        properties.setThrowOnViolation(true);
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, properties);
+
+        assertThrows(XssViolationException.class, () -> wrapper.getParameter("name"));
+        assertThrows(XssViolationException.class, () -> wrapper.getParameter("name"));
+    }
+
+    @Test
+    void testHeaderPolicyTable() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer <b>token</b>");
+        request.addHeader("X-Name", "<b>x</b>");
+        request.addHeader("X-Tags", "<i>a</i>");
+        request.addHeader("X-Tags", "b");
+        XssProperties properties = new XssProperties();
+        properties.getHeaders().put("authorization", "skip");
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, properties);
+
+        assertEquals("Bearer <b>token</b>", wrapper.getHeader("Authorization"));
+        assertEquals(List.of("Bearer <b>token</b>"), Collections.list(wrapper.getHeaders("AUTHORIZATION")));
+        assertEquals("x", wrapper.getHeader("x-name"));
+        assertEquals(List.of("a", "b"), Collections.list(wrapper.getHeaders("X-Tags")));
+        assertEquals(List.of("a", "b"), Collections.list(wrapper.getHeaders("X-Tags")));
+        assertEquals(List.of(), Collections.list(wrapper.getHeaders("Missing")));
+        assertEquals(List.of("Authorization", "X-Name", "X-Tags"), Collections.list(wrapper.getHeaderNames()));
+        assertFalse(tracked.contains("Bearer <b>token</b>"));
+    }
+
+    @Test
+    void testHeaderPolicyDefaultsAndNamedPolicies() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Name", "<b>x</b>");
+        request.addHeader("X-Other", "<b>y</b>");
+        XssProperties properties = new XssProperties();
+        properties.getHeaders().put("*", "skip");
+        properties.getHeaders().put("X-Name", "sanitize");
+        XssRequestWrapper wrapper = new XssRequestWrapper(request, cleaner, properties);
+
+        assertEquals("x", wrapper.getHeader("X-Name"));
+        assertEquals("<b>y</b>", wrapper.getHeader("X-Other"));
+
+        properties.getHeaders().put("X-Name", "missing-policy");
+        assertThrows(IllegalArgumentException.class, () -> new XssRequestWrapper(request, cleaner, properties));
+    }
+}